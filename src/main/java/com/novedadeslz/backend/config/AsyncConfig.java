@@ -8,9 +8,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Pool acotado para trabajo diferido, hoy solo notificaciones de WhatsApp.
+ * Ejecutores para trabajo fuera del hilo del request: notificaciones de WhatsApp y subidas de
+ * archivos a Cloudinary.
  *
  * <p>Los limites son deliberadamente bajos: el contenedor de Render tiene poca memoria y estas
  * tareas solo esperan por una API externa. Si el proveedor se cae, preferimos descartar
@@ -24,6 +27,7 @@ import java.util.concurrent.Executor;
 public class AsyncConfig {
 
     public static final String NOTIFICATIONS_EXECUTOR = "notificationsExecutor";
+    public static final String MEDIA_UPLOAD_EXECUTOR = "mediaUploadExecutor";
 
     @Bean(name = NOTIFICATIONS_EXECUTOR)
     public Executor notificationsExecutor() {
@@ -43,4 +47,14 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Hilos virtuales para las subidas de la galeria: cada una pasa casi todo el tiempo esperando a
+     * Cloudinary, asi que no tiene sentido reservarles hilos de plataforma. El limite no esta aca
+     * sino en cada guardado (ver ProductService), para que un admin no pueda acaparar la red.
+     */
+    @Bean(name = MEDIA_UPLOAD_EXECUTOR)
+    public ExecutorService mediaUploadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("media-upload-", 0).factory());
+    }
 }
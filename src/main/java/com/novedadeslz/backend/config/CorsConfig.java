@@ -33,11 +33,14 @@ public class CorsConfig {
             "Authorization",
             "Content-Type",
             "Accept",
-            "X-Requested-With"
+            "X-Requested-With",
+            "Idempotency-Key",
+            // El cliente SSE del panel lo manda al reconectar para recibir lo que se perdio.
+            "Last-Event-ID"
         ));
 
-        // Exponer headers
-        configuration.setExposedHeaders(List.of("Authorization"));
+        // Exponer headers. Retry-After: el panel espera lo indicado cuando el stream responde 503.
+        configuration.setExposedHeaders(List.of("Authorization", "Retry-After"));
 
         // Permitir credenciales
         configuration.setAllowCredentials(true);
@@ -2,6 +2,7 @@ package com.novedadeslz.backend.config;
 
 import com.novedadeslz.backend.security.JwtAuthenticationFilter;
 import com.novedadeslz.backend.security.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -69,6 +70,12 @@ public class SecurityConfig {
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authorizeHttpRequests(auth -> auth
+                // El request ya se autorizo al entrar. El cierre de un SseEmitter (o de la
+                // exportacion) lo vuelve a despachar como ASYNC, y JwtAuthenticationFilter no corre
+                // en ese despacho: sin esto cada cierre del stream del panel terminaba en 403 sobre
+                // una respuesta ya enviada. Lo mismo con el despacho a /error de una respuesta fallida.
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                 // Endpoints públicos.
                 // Ojo: "público" aquí significa "sin sesión", no "sin autorización". Los endpoints
                 // de pedido validan el token del pedido dentro de OrderService.
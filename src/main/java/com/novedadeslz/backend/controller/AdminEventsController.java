@@ -0,0 +1,56 @@
+package com.novedadeslz.backend.controller;
+
+import com.novedadeslz.backend.service.AdminEventStream;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Administracion", description = "Cifras del panel")
+public class AdminEventsController {
+
+    /** Cuanto esperar antes de reintentar cuando ya hay demasiados paneles abiertos. */
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    private final AdminEventStream adminEventStream;
+
+    /**
+     * Reemplaza el sondeo del panel: avisa cuando entra, cambia o se cancela un pedido y el panel
+     * recarga solo entonces. Necesita un cliente SSE sobre {@code fetch} que mande el token en
+     * {@code Authorization}: el {@code EventSource} nativo no puede (ver {@link AdminEventStream}).
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Actividad de pedidos en vivo por Server-Sent Events (requiere ADMIN)")
+    public ResponseEntity<SseEmitter> streamEvents(
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+
+        SseEmitter emitter = adminEventStream.subscribe(lastEventId);
+        if (emitter == null) {
+            // La conexion asincrona no retiene un hilo de Tomcat, pero si un socket y su cola de envios.
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                // Que un proxy intermedio no acumule los eventos antes de entregarlos.
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+}
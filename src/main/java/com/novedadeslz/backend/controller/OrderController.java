@@ -10,6 +10,8 @@ import com.novedadeslz.backend.exception.BadRequestException;
 import com.novedadeslz.backend.exception.ResourceNotFoundException;
 import com.novedadeslz.backend.model.Order;
 import com.novedadeslz.backend.security.JwtTokenProvider;
+import com.novedadeslz.backend.service.IdempotencyService;
+import com.novedadeslz.backend.service.OrderExportService;
 import com.novedadeslz.backend.service.OrderService;
 import com.novedadeslz.backend.service.WhatsAppNotificationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,6 +25,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -34,15 +38,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Locale;
@@ -56,6 +63,8 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final IdempotencyService idempotencyService;
     private final WhatsAppNotificationService whatsAppNotificationService;
     private final JwtTokenProvider jwtTokenProvider;
 
@@ -68,13 +77,21 @@ public class OrderController {
     @PostMapping
     @Operation(summary = "Crear nuevo pedido (publico)")
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(
-            @Valid @RequestBody OrderRequest request) {
+            @Valid @RequestBody OrderRequest request,
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         // Sin datos personales: estos logs quedan retenidos en el proveedor de hosting.
         log.info("Creando pedido con {} items",
                 request.getItems() != null ? request.getItems().size() : 0);
 
-        OrderResponse order = orderService.createOrder(request);
+        // Un reintento con la misma clave devuelve el pedido ya creado sin volver a apartar stock.
+        OrderResponse order = idempotencyService.execute(
+                "orders",
+                idempotencyKey,
+                () -> idempotencyService.fingerprintOf(request),
+                OrderResponse.class,
+                () -> orderService.createOrder(request)
+        );
 
         return ResponseEntity
                 .status(HttpStatus.CREATED)
@@ -92,6 +109,7 @@ public class OrderController {
             @RequestParam(required = false, name = "customerPhone") String search,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String paymentMethod,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
@@ -104,12 +122,41 @@ public class OrderController {
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
 
         Page<OrderResponse> orders = orderService.getAllOrders(
-                status, search, startDate, endDate, pageable
+                status, search, startDate, endDate, paymentMethod, pageable
         );
 
         return ResponseEntity.ok(ApiResponse.success(PageResponse.from(orders)));
     }
 
+    /**
+     * Descarga para contabilidad. Se escribe a medida que se lee de la base, asi que el rango no
+     * tiene tope de tamanno; para revisar pedidos en pantalla sigue estando el listado paginado.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Exportar pedidos con sus items en CSV o NDJSON (requiere ADMIN)")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        // Se valida antes de responder: una vez que empieza la descarga ya no se puede devolver un 400.
+        OrderExportService.Format exportFormat = OrderExportService.Format.parse(format);
+        String filename = "pedidos-" + LocalDate.now() + "." + exportFormat.getExtension();
+
+        StreamingResponseBody body = output ->
+                orderExportService.export(exportFormat, status, startDate, endDate, output);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .header("Cache-Control", "no-store")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener pedido por ID (requiere token del pedido o rol ADMIN)")
     public ResponseEntity<ApiResponse<OrderResponse>> getOrderById(
@@ -170,9 +217,17 @@ public class OrderController {
     public ResponseEntity<ApiResponse<OrderResponse>> uploadYapeProof(
             @PathVariable Long id,
             @RequestParam(name = "token", required = false) String publicToken,
-            @RequestPart(value = "proof", required = true) MultipartFile proofImage) throws IOException {
-
-        OrderResponse order = orderService.uploadYapeProof(id, publicToken, proofImage);
+            @RequestPart(value = "proof", required = true) MultipartFile proofImage,
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) throws IOException {
+
+        // El token entra en la huella: la clave sola no debe bastar para leer el pedido.
+        OrderResponse order = idempotencyService.execute(
+                "orders/" + id + "/yape-proof",
+                idempotencyKey,
+                () -> idempotencyService.fingerprintOf(proofImage, publicToken),
+                OrderResponse.class,
+                () -> orderService.uploadYapeProof(id, publicToken, proofImage)
+        );
 
         return ResponseEntity.ok(ApiResponse.success(
                 "Comprobante subido correctamente. Quedo pendiente de revision del administrador.",
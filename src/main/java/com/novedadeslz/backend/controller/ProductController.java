@@ -4,20 +4,27 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.novedadeslz.backend.dto.request.ProductRequest;
 import com.novedadeslz.backend.dto.response.ApiResponse;
+import com.novedadeslz.backend.dto.response.CursorPageResponse;
 import com.novedadeslz.backend.dto.response.PageResponse;
 import com.novedadeslz.backend.dto.response.ProductResponse;
 import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.service.CatalogSnapshotService;
+import com.novedadeslz.backend.service.ProductCursor;
 import com.novedadeslz.backend.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -31,10 +38,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 @RestController
@@ -45,6 +56,7 @@ import java.util.Objects;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogSnapshotService catalogSnapshots;
     private final ObjectMapper objectMapper;
 
     @GetMapping
@@ -56,7 +68,19 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String direction) {
+            @RequestParam(defaultValue = "DESC") String direction,
+            WebRequest webRequest,
+            HttpServletResponse response) throws IOException {
+
+        if (catalogSnapshots.covers(search, active, page, size, sortBy, direction)) {
+            writeSnapshot(catalogSnapshots.getSnapshot(category, page), webRequest, response);
+            return null;
+        }
+
+        String etag = catalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("ASC")
                 ? Sort.Direction.ASC
@@ -68,7 +92,50 @@ public class ProductController {
                 category, search, active, pageable
         );
 
-        return ResponseEntity.ok(ApiResponse.success(PageResponse.from(products)));
+        return revalidated(etag, ApiResponse.success(PageResponse.from(products)));
+    }
+
+    /**
+     * Mismo listado en modo cursor: se activa con {@code ?after=} (vacio para la primera pagina) y
+     * en cada respuesta viene el {@code nextCursor} para pedir la siguiente. Sin {@code after} se
+     * mantiene la respuesta paginada de siempre.
+     */
+    @GetMapping(params = "after")
+    @Operation(summary = "Obtener productos paginando por cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductResponse>>> getProductsAfter(
+            @RequestParam String after,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false, defaultValue = "true") Boolean active,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "DESC") String direction,
+            WebRequest webRequest) {
+
+        if (search != null && !search.isEmpty()) {
+            throw new BadRequestException("La busqueda se ordena por relevancia y se pagina por numero de pagina");
+        }
+        if (!"createdAt".equals(sortBy)) {
+            throw new BadRequestException("La paginacion por cursor solo ordena por createdAt");
+        }
+
+        String etag = catalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("ASC")
+                ? Sort.Direction.ASC
+                : Sort.Direction.DESC;
+
+        Slice<ProductResponse> products = productService.getProductsAfter(
+                category, active, ProductCursor.decode(after), size, sortDirection
+        );
+
+        String nextCursor = products.hasContent()
+                ? ProductCursor.of(products.getContent().getLast()).encode()
+                : null;
+        return revalidated(etag, ApiResponse.success(CursorPageResponse.from(products, nextCursor)));
     }
 
     @GetMapping("/category/{category}")
@@ -80,7 +147,19 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String direction) {
+            @RequestParam(defaultValue = "DESC") String direction,
+            WebRequest webRequest,
+            HttpServletResponse response) throws IOException {
+
+        if (catalogSnapshots.covers(search, active, page, size, sortBy, direction)) {
+            writeSnapshot(catalogSnapshots.getSnapshot(category, page), webRequest, response);
+            return null;
+        }
+
+        String etag = catalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("ASC")
                 ? Sort.Direction.ASC
@@ -92,7 +171,7 @@ public class ProductController {
                 category, search, active, pageable
         );
 
-        return ResponseEntity.ok(ApiResponse.success(PageResponse.from(products)));
+        return revalidated(etag, ApiResponse.success(PageResponse.from(products)));
     }
 
     @GetMapping("/search")
@@ -103,7 +182,13 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String direction) {
+            @RequestParam(defaultValue = "DESC") String direction,
+            WebRequest webRequest) {
+
+        String etag = catalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("ASC")
                 ? Sort.Direction.ASC
@@ -115,14 +200,21 @@ public class ProductController {
                 null, query, active, pageable
         );
 
-        return ResponseEntity.ok(ApiResponse.success(PageResponse.from(products)));
+        return revalidated(etag, ApiResponse.success(PageResponse.from(products)));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Obtener producto por ID")
-    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(
+            @PathVariable Long id,
+            WebRequest webRequest) {
+
         ProductResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(ApiResponse.success(product));
+        String etag = productEtag(product);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return revalidated(etag, ApiResponse.success(product));
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -195,6 +287,74 @@ public class ProductController {
         );
     }
 
+    /**
+     * Los listados se validan contra la version del catalogo, que se lee antes de consultar: si
+     * algo cambia mientras tanto el cliente recibe datos nuevos con la etiqueta vieja y en la
+     * proxima visita los vuelve a bajar. Al reves se quedaria con datos viejos.
+     */
+    private String catalogEtag() {
+        return "c-" + productService.getCatalogVersion();
+    }
+
+    /**
+     * El detalle se valida por su propia fecha de actualizacion. El stock va aparte porque las
+     * reservas de los pedidos lo cambian con un UPDATE directo que no toca updated_at.
+     */
+    private String productEtag(ProductResponse product) {
+        LocalDateTime version = product.getUpdatedAt() != null ? product.getUpdatedAt() : product.getCreatedAt();
+        return "p-" + product.getId() + "-" + version + "-" + product.getStock();
+    }
+
+    /**
+     * Las paginas mas pedidas ya estan serializadas: se copian los bytes (comprimidos si el
+     * navegador acepta gzip) sin pasar por Jackson. Los encabezados son los mismos que los de
+     * {@link #revalidated}, pero el ETag es el de la copia: solo cambia cuando esa pagina se rehace.
+     */
+    private void writeSnapshot(
+            CatalogSnapshotService.Snapshot snapshot,
+            WebRequest webRequest,
+            HttpServletResponse response) throws IOException {
+
+        if (webRequest.checkNotModified(snapshot.etag())) {
+            return;
+        }
+
+        boolean gzip = acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = gzip ? snapshot.gzip() : snapshot.json();
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.ETAG, "\"" + snapshot.etag() + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        return Arrays.stream(acceptEncoding.split(","))
+                .map(value -> value.trim().toLowerCase(Locale.ROOT).replace(" ", ""))
+                .anyMatch(value -> value.equals("gzip")
+                        || (value.startsWith("gzip;") && !value.matches("gzip;q=0(\\.0*)?")));
+    }
+
+    /**
+     * no-cache no impide guardar la respuesta: obliga al navegador a preguntar antes de reusarla,
+     * y si nada cambio recibe un 304 sin cuerpo.
+     */
+    private <T> ResponseEntity<T> revalidated(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
     private List<MultipartFile> resolveImages(MultipartFile[] images, MultipartFile image) {
         if (images != null && images.length > 0) {
             return Arrays.stream(images)
@@ -35,6 +35,14 @@ public class ProductRequest {
 
     private Boolean trackInventory = true;
 
+    /**
+     * Filas entre las que se reparte el stock (0 = en la fila del producto). Solo conviene para
+     * productos en oferta relampago. Si no se envia al editar, se conserva el valor actual.
+     */
+    @Min(value = 0, message = "La cantidad de buckets no puede ser negativa")
+    @Max(value = 16, message = "El stock se puede repartir en hasta 16 buckets")
+    private Integer stockBuckets;
+
     /**
      * URLs existentes que se conservaran al actualizar el producto.
      * Si no se envian en update, se asume que se mantienen todas las actuales.
@@ -0,0 +1,37 @@
+package com.novedadeslz.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Pagina del modo cursor. A diferencia de {@link PageResponse} no trae totales: contarlos es
+ * justamente la consulta que este modo se ahorra.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+    private int size;
+    private int numberOfElements;
+    private boolean hasNext;
+    /** Valor para el siguiente {@code ?after=}; null en la ultima pagina. */
+    private String nextCursor;
+
+    public static <T> CursorPageResponse<T> from(Slice<T> slice, String nextCursor) {
+        return CursorPageResponse.<T>builder()
+                .content(slice.getContent())
+                .size(slice.getSize())
+                .numberOfElements(slice.getNumberOfElements())
+                .hasNext(slice.hasNext())
+                .nextCursor(slice.hasNext() ? nextCursor : null)
+                .build();
+    }
+}
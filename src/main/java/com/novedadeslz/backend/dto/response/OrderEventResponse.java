@@ -0,0 +1,20 @@
+package com.novedadeslz.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventResponse {
+
+    private LocalDateTime createdAt;
+    private String type;
+    private String actor;
+    private String message;
+}
@@ -30,7 +30,12 @@ public class OrderResponse {
     private String paymentProof;
     private String operationNumber;
     private Boolean whatsappSent;
+    /**
+     * El historial en el formato de texto de siempre, para el panel que todavia lo muestra asi.
+     * Solo en el detalle admin, igual que {@link #events}.
+     */
     private String notes;
+    private List<OrderEventResponse> events;
     private List<OrderItemResponse> items;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
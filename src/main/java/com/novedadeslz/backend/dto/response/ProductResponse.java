@@ -25,6 +25,7 @@ public class ProductResponse {
     private String category;
     private Integer stock;
     private Boolean trackInventory;
+    private Integer stockBuckets;
     private Boolean active;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -0,0 +1,33 @@
+package com.novedadeslz.backend.event;
+
+import com.novedadeslz.backend.model.Order;
+
+import java.util.Locale;
+
+/**
+ * Algo que el panel admin tiene que ver sin recargar: un pedido nuevo, un comprobante para revisar
+ * o un pago resuelto. Se entrega al panel despues del commit (ver AdminEventStream).
+ *
+ * <p>El numero de pedido puede faltar: la limpieza de abandonados cancela por id sin leer los
+ * pedidos. El panel usa el id para refrescar lo que muestra.
+ */
+public record OrderActivityEvent(Type type, Long orderId, String orderNumber, Order.OrderStatus status) {
+
+    public static OrderActivityEvent of(Type type, Order order) {
+        return new OrderActivityEvent(type, order.getId(), order.getOrderNumber(), order.getStatus());
+    }
+
+    public enum Type {
+        CREATED,
+        PROOF_UPLOADED,
+        APPROVED,
+        REJECTED,
+        CANCELLED,
+        STATUS_CHANGED;
+
+        /** Nombre del evento SSE, para que el panel se suscriba con addEventListener("order-created"). */
+        public String eventName() {
+            return "order-" + name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.novedadeslz.backend.event;
+
+import java.util.Set;
+
+/**
+ * Se publica cuando cambia algo que el cliente ve de uno o varios pedidos: estado, comprobante,
+ * pago. Lleva ids y no numeros de pedido porque la limpieza de abandonados solo tiene los ids.
+ */
+public record OrderChangedEvent(Set<Long> orderIds) {
+}
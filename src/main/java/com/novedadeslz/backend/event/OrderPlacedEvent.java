@@ -0,0 +1,12 @@
+package com.novedadeslz.backend.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Se publica cuando un pedido nuevo quedo guardado con su stock apartado.
+ *
+ * <p>Lleva la fecha de creacion porque de ahi sale el plazo de la reserva y el consumidor no
+ * necesita releer el pedido para agendarlo.
+ */
+public record OrderPlacedEvent(Long orderId, LocalDateTime createdAt) {
+}
@@ -0,0 +1,12 @@
+package com.novedadeslz.backend.event;
+
+import java.util.Set;
+
+/**
+ * Se publica cuando un producto se crea, se edita o se da de baja.
+ *
+ * <p>Lleva las categorias afectadas (la anterior y la nueva si cambio) para que quien mantiene
+ * copias del catalogo invalide solo los listados donde el producto podia aparecer.
+ */
+public record ProductChangedEvent(Long productId, Set<String> categories) {
+}
@@ -0,0 +1,12 @@
+package com.novedadeslz.backend.event;
+
+import java.util.Set;
+
+/**
+ * Se publica cuando se aparta o se devuelve stock de uno o varios productos.
+ *
+ * <p>A diferencia de {@link ProductChangedEvent}, no cambia que productos hay ni en que orden: solo
+ * las unidades disponibles de los productos indicados.
+ */
+public record ProductStockChangedEvent(Set<Long> productIds) {
+}
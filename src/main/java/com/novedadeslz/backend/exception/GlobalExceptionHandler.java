@@ -226,14 +226,13 @@ public class GlobalExceptionHandler {
         String rootMessage = extractRootMessage(ex);
         String normalizedRootMessage = rootMessage == null ? "" : rootMessage.toLowerCase(Locale.ROOT);
 
-        if (normalizedRootMessage.contains("products")
-                && normalizedRootMessage.contains("image_url")) {
+        if (normalizedRootMessage.contains("product_images")) {
             return ResponseEntity
                     .status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.<Void>builder()
                             .success(false)
-                            .message("La galeria del producto excede el espacio actual de la base de datos. "
-                                    + "Aplica la migracion Oracle para ampliar image_url antes de usar 20 fotos por producto.")
+                            .message("No se pudo guardar la galeria del producto. "
+                                    + "Verifica que la migracion V8 (product_images) este aplicada.")
                             .build());
         }
 
@@ -0,0 +1,116 @@
+package com.novedadeslz.backend.mapper;
+
+import com.novedadeslz.backend.dto.response.OrderEventResponse;
+import com.novedadeslz.backend.dto.response.OrderResponse;
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderEvent;
+import com.novedadeslz.backend.model.OrderItem;
+import com.novedadeslz.backend.repository.OrderItemSummary;
+import com.novedadeslz.backend.repository.OrderSummary;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Order -> OrderResponse escrito a mano, por la misma razon que {@link ProductMapper}: el panel
+ * admin lista pedidos de a decenas y ModelMapper recorria cada uno por reflexion.
+ *
+ * <p>Ademas ModelMapper recorria los items y sus productos para despues descartar el resultado;
+ * aca del producto solo se lee el id, que Hibernate resuelve sin inicializar el proxy.
+ */
+@Component
+public class OrderMapper {
+
+    private static final DateTimeFormatter NOTE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /** Vista del cliente y base de la del admin: sin historial. */
+    public OrderResponse toResponse(Order order) {
+        return OrderResponse.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .publicToken(order.getPublicToken())
+                .customerName(order.getCustomerName())
+                .customerPhone(order.getCustomerPhone())
+                .customerEmail(order.getCustomerEmail())
+                .customerAddress(order.getCustomerAddress())
+                .customerCity(order.getCustomerCity())
+                .total(order.getTotal())
+                .status(order.getStatus().name())
+                .paymentMethod(order.getPaymentMethod())
+                .paymentProof(order.getPaymentProof())
+                .operationNumber(order.getOperationNumber())
+                .whatsappSent(order.getWhatsappSent())
+                .items(order.getItems() == null ? null : toItemResponses(order.getItems()))
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * Detalle del panel. El historial es del admin (OCR, motivos de rechazo); el cliente nunca lo
+     * recibe. Ademas de la lista se arma el texto de notas con el formato que tenia la columna, para
+     * el panel que todavia lo muestra asi.
+     */
+    public OrderResponse toAdminResponse(Order order, List<OrderEvent> events) {
+        OrderResponse response = toResponse(order);
+        response.setEvents(events.stream()
+                .map(event -> OrderEventResponse.builder()
+                        .createdAt(event.getCreatedAt())
+                        .type(event.getType().name())
+                        .actor(event.getActor().name())
+                        .message(event.getMessage())
+                        .build())
+                .toList());
+        response.setNotes(events.isEmpty() ? null : events.stream()
+                .map(event -> event.getCreatedAt().format(NOTE_TIMESTAMP) + " - " + event.getMessage())
+                .collect(Collectors.joining("\n")));
+        return response;
+    }
+
+    /** Fila del listado del panel: mismas columnas que {@link #toResponse}. */
+    public OrderResponse toListResponse(OrderSummary order, List<OrderItemSummary> items) {
+        return OrderResponse.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .publicToken(order.getPublicToken())
+                .customerName(order.getCustomerName())
+                .customerPhone(order.getCustomerPhone())
+                .customerEmail(order.getCustomerEmail())
+                .customerAddress(order.getCustomerAddress())
+                .customerCity(order.getCustomerCity())
+                .total(order.getTotal())
+                .status(order.getStatus().name())
+                .paymentMethod(order.getPaymentMethod())
+                .paymentProof(order.getPaymentProof())
+                .operationNumber(order.getOperationNumber())
+                .whatsappSent(order.getWhatsappSent())
+                .items(items.stream()
+                        .map(item -> OrderResponse.OrderItemResponse.builder()
+                                .id(item.getId())
+                                .productId(item.getProductId())
+                                .productName(item.getProductName())
+                                .quantity(item.getQuantity())
+                                .unitPrice(item.getUnitPrice())
+                                .subtotal(item.getSubtotal())
+                                .build())
+                        .toList())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+
+    private List<OrderResponse.OrderItemResponse> toItemResponses(List<OrderItem> items) {
+        return items.stream()
+                .map(item -> OrderResponse.OrderItemResponse.builder()
+                        .id(item.getId())
+                        .productId(item.getProduct().getId())
+                        .productName(item.getProductName())
+                        .quantity(item.getQuantity())
+                        .unitPrice(item.getUnitPrice())
+                        .subtotal(item.getSubtotal())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,36 @@
+package com.novedadeslz.backend.mapper;
+
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.model.Product;
+import org.springframework.stereotype.Component;
+
+/**
+ * Product -> ProductResponse escrito a mano.
+ *
+ * <p>Reemplaza a ModelMapper, que resolvia la correspondencia por reflexion en cada fila de cada
+ * listado. Al agregar un campo a {@link ProductResponse} hay que agregarlo aca; ProductMapperTest
+ * compara contra la salida que daba ModelMapper.
+ */
+@Component
+public class ProductMapper {
+
+    public ProductResponse toResponse(Product product) {
+        return ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .imageUrl(product.getImageUrl())
+                .imageUrls(product.getImageUrls())
+                .videoUrl(product.getVideoUrl())
+                .category(product.getCategory())
+                .stock(product.getStock())
+                .trackInventory(product.getTrackInventory())
+                .stockBuckets(product.getStockBuckets())
+                .active(product.getActive())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .lowStock(product.isLowStock())
+                .build();
+    }
+}
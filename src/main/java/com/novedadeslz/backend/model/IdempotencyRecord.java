@@ -0,0 +1,40 @@
+package com.novedadeslz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Una solicitud con {@code Idempotency-Key} ya recibida. Mientras se procesa la fila no tiene
+ * respuesta; al terminar guarda el JSON que se devolvio, para repetirlo tal cual si el cliente
+ * reintenta con la misma clave.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    /** Ambito de la operacion mas la clave del cliente, p. ej. {@code orders:6f1c...}. */
+    @Id
+    @Column(name = "request_key", length = 150)
+    private String requestKey;
+
+    /** SHA-256 de la solicitud: la misma clave con otro contenido se rechaza. */
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,48 @@
+package com.novedadeslz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archivo de Cloudinary (o local) pendiente de borrar. La fila se escribe en la misma transaccion
+ * que deja de referenciarlo y la borra {@code MediaDeletionService.processDue} cuando el archivo ya
+ * no existe. Si se agotan los intentos queda marcada con {@link #abandonedAt} para revisarla a mano.
+ */
+@Entity
+@Table(name = "media_deletions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "media_deletion_seq")
+    @SequenceGenerator(name = "media_deletion_seq", sequenceName = "media_deletion_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    /** Se dejo de reintentar: ya no la toma el proceso de borrado. */
+    @Column(name = "abandoned_at")
+    private LocalDateTime abandonedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -26,9 +26,11 @@ import java.util.List;
 @Builder
 public class Order {
 
+    // Pide ids a la secuencia de a 20 (INCREMENT BY 20, ver V11): un pedido ya no paga un viaje a
+    // Oracle por su id.
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
-    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 1)
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 20)
     private Long id;
 
     @Column(name = "order_number", unique = true, nullable = false, length = 50)
@@ -37,9 +39,9 @@ public class Order {
     /**
      * Credencial aleatoria que permite al cliente ver su propio pedido sin tener cuenta.
      * El id es correlativo y por lo tanto adivinable, asi que no puede ser lo unico que protege
-     * los datos personales del comprador.
+     * los datos personales del comprador. Todos los pedidos lo tienen desde V17.
      */
-    @Column(name = "public_token", unique = true, length = 36)
+    @Column(name = "public_token", unique = true, nullable = false, length = 36)
     private String publicToken;
 
     @Column(name = "customer_name", nullable = false, length = 150)
@@ -89,9 +91,6 @@ public class Order {
     @Builder.Default
     private Boolean stockReserved = false;
 
-    @Column(columnDefinition = "CLOB")
-    private String notes;
-
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<OrderItem> items = new ArrayList<>();
@@ -0,0 +1,83 @@
+package com.novedadeslz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Una entrada del historial de un pedido: cambios de estado, resultado del OCR, reintentos de
+ * notificacion. Reemplaza al CLOB {@code orders.notes}, que se reescribia entero con cada nota y
+ * viajaba en cada lectura del pedido. Cada entrada es un INSERT y no se modifica despues.
+ *
+ * <p>Guarda el id del pedido y no la relacion: escribir una entrada no necesita cargar el pedido
+ * y el pedido nunca carga su historial sin pedirlo.
+ */
+@Entity
+@Table(name = "order_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderEvent {
+
+    /**
+     * Tope de la columna, en caracteres ({@code VARCHAR2(1000 CHAR)}, ver V14); un motivo de rechazo
+     * muy largo se corta en vez de tumbar la operacion.
+     */
+    public static final int MAX_MESSAGE_LENGTH = 1000;
+
+    // Bloques de 50 (INCREMENT BY 50, ver V14): la limpieza de abandonados inserta de a lotes.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_event_seq")
+    @SequenceGenerator(name = "order_event_seq", sequenceName = "order_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, updatable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30, updatable = false)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20, updatable = false)
+    private Actor actor;
+
+    @Column(nullable = false, length = MAX_MESSAGE_LENGTH, updatable = false)
+    private String message;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public static OrderEvent of(Long orderId, Type type, Actor actor, String message) {
+        String trimmed = message.trim();
+        return OrderEvent.builder()
+                .orderId(orderId)
+                .type(type)
+                .actor(actor)
+                .message(trimmed.length() > MAX_MESSAGE_LENGTH ? trimmed.substring(0, MAX_MESSAGE_LENGTH) : trimmed)
+                .build();
+    }
+
+    public enum Type {
+        PAYMENT_PROOF_UPLOADED,
+        OCR_RESULT,
+        PAYMENT_APPROVED,
+        PAYMENT_REJECTED,
+        STATUS_CHANGED,
+        NOTIFICATION,
+        CANCELLED,
+        /** Nota migrada desde {@code orders.notes}, sin tipo conocido. */
+        NOTE
+    }
+
+    public enum Actor {
+        CUSTOMER,
+        ADMIN,
+        SYSTEM
+    }
+}
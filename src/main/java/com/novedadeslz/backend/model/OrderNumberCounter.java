@@ -0,0 +1,25 @@
+package com.novedadeslz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Ultimo correlativo entregado en un dia. Una fila por dia con pedidos; ver
+ * {@code OrderNumberAllocator}.
+ */
+@Entity
+@Table(name = "order_number_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderNumberCounter {
+
+    /** yyyyMMdd, el mismo texto que va en el numero de pedido. */
+    @Id
+    @Column(name = "counter_day", length = 8)
+    private String day;
+
+    @Column(name = "last_value", nullable = false)
+    private Integer lastValue;
+}
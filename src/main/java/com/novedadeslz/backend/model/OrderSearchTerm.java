@@ -0,0 +1,43 @@
+package com.novedadeslz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Un termino por el que se puede encontrar un pedido desde el panel. Lo escribe
+ * {@code OrderSearchIndex} al crear el pedido; la busqueda es un rango sobre
+ * {@code (kind, term)} en vez de recorrer la tabla de pedidos.
+ */
+@Entity
+@Table(name = "order_search_terms")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSearchTerm {
+
+    public static final int MAX_TERM_LENGTH = 150;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_search_term_seq")
+    @SequenceGenerator(name = "order_search_term_seq", sequenceName = "order_search_term_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, updatable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10, updatable = false)
+    private Kind kind;
+
+    @Column(nullable = false, length = MAX_TERM_LENGTH, updatable = false)
+    private String term;
+
+    public enum Kind {
+        /** Nombre, numero de pedido y telefono tal cual, normalizados. Se buscan por prefijo. */
+        TEXT,
+        /** Digitos del telefono al reves: buscar por los ultimos digitos tambien es un prefijo. */
+        PHONE
+    }
+}
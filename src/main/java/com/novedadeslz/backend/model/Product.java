@@ -2,16 +2,16 @@ package com.novedadeslz.backend.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "products")
@@ -22,11 +22,10 @@ import java.util.stream.Collectors;
 @Builder
 public class Product {
 
-    private static final String IMAGE_URL_SEPARATOR = "|";
-
+    // Ids de a 20 por viaje a la secuencia (INCREMENT BY 20, ver V11).
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
-    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 1)
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 20)
     private Long id;
 
     @Column(nullable = false, length = 200)
@@ -38,10 +37,32 @@ public class Product {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
 
-    @Column(name = "image_url", length = 4000)
+    /**
+     * Galeria en su propia tabla, en orden. Antes era un texto separado por "|" en image_url que se
+     * partia con una regex en cada lectura (dos veces por producto en cada listado) y que limitaba
+     * la galeria a 4000 caracteres.
+     *
+     * <p>El BatchSize cubre la pagina mas grande del catalogo: las galerias de todo un listado se
+     * traen en una sola consulta con IN (...). La primera es la portada.
+     */
+    @ElementCollection
+    @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
+    @OrderColumn(name = "sort_order")
+    @Column(name = "url", nullable = false, length = 500)
+    @BatchSize(size = 100)
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private List<String> images = new ArrayList<>();
+
+    /**
+     * Copia inmutable de la galeria, armada una sola vez por entidad. Ademas protege a quien guarda
+     * la galeria anterior antes de reemplazarla (ver ProductService.updateProduct).
+     */
+    @Transient
     @Getter(AccessLevel.NONE)
     @Setter(AccessLevel.NONE)
-    private String imageUrl;
+    private List<String> imageUrlsSnapshot;
 
     @Column(name = "video_url", length = 500)
     private String videoUrl;
@@ -49,10 +70,39 @@ public class Product {
     @Column(length = 100)
     private String category;
 
+    /**
+     * Stock en la fila del producto. En un producto con stock repartido (ver {@link #stockBuckets})
+     * no se descuenta: guarda el total que cargo el admin por ultima vez. Leer con {@link #getStock()}.
+     */
     @Column(nullable = false)
     @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
     private Integer stock = 0;
 
+    /**
+     * Filas de product_stock_buckets entre las que se reparte el stock; 0 si vive en esta fila.
+     *
+     * <p>Opcional, para productos en oferta relampago: todos los checkouts de un mismo producto se
+     * turnaban el bloqueo de su unica fila, asi que salia una reserva por cada commit contra Oracle.
+     * Repartido en N filas, N checkouts pueden apartar a la vez.
+     */
+    @Column(name = "stock_buckets", nullable = false)
+    @Builder.Default
+    private Integer stockBuckets = 0;
+
+    /**
+     * Stock disponible tal como lo ve la base: la fila del producto o la suma de sus buckets. La
+     * subconsulta solo se evalua para productos repartidos. Tambien sirve en JPQL
+     * ({@code p.availableStock}) para filtrar por stock sin distinguir el modo.
+     */
+    @Formula("CASE WHEN stock_buckets > 0 "
+            + "THEN (SELECT COALESCE(SUM(b.stock), 0) FROM product_stock_buckets b WHERE b.product_id = id) "
+            + "ELSE stock END")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Integer availableStock;
+
     @Column(name = "track_inventory", nullable = false)
     @Builder.Default
     private Boolean trackInventory = true;
@@ -69,18 +119,32 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /** Stock disponible, sumando los buckets si el producto lo tiene repartido. */
+    public Integer getStock() {
+        return availableStock != null ? availableStock : stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+        this.availableStock = stock;
+    }
+
+    public boolean isStockSharded() {
+        return stockBuckets != null && stockBuckets > 0;
+    }
+
     // Business logic
     public void decreaseStock(Integer quantity) {
         if (!isTrackingInventory()) {
             return;
         }
 
-        if (this.stock < quantity) {
+        if (getStock() < quantity) {
             throw new IllegalStateException(
-                "Stock insuficiente. Disponible: " + this.stock + ", Solicitado: " + quantity
+                "Stock insuficiente. Disponible: " + getStock() + ", Solicitado: " + quantity
             );
         }
-        this.stock -= quantity;
+        setStock(getStock() - quantity);
     }
 
     public void increaseStock(Integer quantity) {
@@ -88,19 +152,19 @@ public class Product {
             return;
         }
 
-        this.stock += quantity;
+        setStock(getStock() + quantity);
     }
 
     public boolean isLowStock() {
-        return isTrackingInventory() && this.stock <= 5;
+        return isTrackingInventory() && getStock() <= 5;
     }
 
     public boolean isOutOfStock() {
-        return isTrackingInventory() && this.stock <= 0;
+        return isTrackingInventory() && getStock() <= 0;
     }
 
     public boolean hasAvailableStock(Integer quantity) {
-        return !isTrackingInventory() || this.stock >= quantity;
+        return !isTrackingInventory() || getStock() >= quantity;
     }
 
     public boolean isTrackingInventory() {
@@ -116,14 +180,10 @@ public class Product {
     }
 
     public List<String> getImageUrls() {
-        if (imageUrl == null || imageUrl.isBlank()) {
-            return List.of();
+        if (imageUrlsSnapshot == null) {
+            imageUrlsSnapshot = images == null ? List.of() : List.copyOf(images);
         }
-
-        return Arrays.stream(imageUrl.split(Pattern.quote(IMAGE_URL_SEPARATOR)))
-                .map(String::trim)
-                .filter(value -> !value.isEmpty())
-                .toList();
+        return imageUrlsSnapshot;
     }
 
     public void setImageUrls(List<String> imageUrls) {
@@ -135,8 +195,13 @@ public class Product {
                         .filter(value -> !value.isEmpty())
                         .toList();
 
-        this.imageUrl = sanitizedImageUrls.isEmpty()
-                ? null
-                : sanitizedImageUrls.stream().collect(Collectors.joining(IMAGE_URL_SEPARATOR));
+        // Se modifica la coleccion existente en vez de reemplazarla: Hibernate la sigue y solo
+        // actualiza las filas que cambiaron.
+        if (images == null) {
+            images = new ArrayList<>();
+        }
+        images.clear();
+        images.addAll(sanitizedImageUrls);
+        imageUrlsSnapshot = sanitizedImageUrls;
     }
 }
@@ -0,0 +1,38 @@
+package com.novedadeslz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Una porcion del stock de un producto repartido (ver {@code Product.stockBuckets}). Se lee y se
+ * escribe con SQL directo desde {@code ProductStockOperations}; la entidad describe la tabla.
+ */
+@Entity
+@Table(name = "product_stock_buckets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockBucket {
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(nullable = false)
+    private Integer stock;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "product_id")
+        private Long productId;
+
+        @Column(name = "bucket_no")
+        private Integer bucketNo;
+    }
+}
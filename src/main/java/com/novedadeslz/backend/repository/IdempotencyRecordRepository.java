@@ -0,0 +1,54 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * INSERT directo y no {@code save}: con id asignado, {@code save} hace merge y pisaria la fila
+     * de otro request con la misma clave. Asi el segundo recibe la violacion de clave primaria.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (request_key, fingerprint, created_at, expires_at) "
+            + "VALUES (:requestKey, :fingerprint, :now, :expiresAt)", nativeQuery = true)
+    int claim(@Param("requestKey") String requestKey,
+              @Param("fingerprint") String fingerprint,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Retoma una clave vencida o una que quedo a medias (el proceso se cayo antes de guardar la
+     * respuesta). Condicional para que, si dos reintentos llegan a la vez, solo uno la obtenga.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE IdempotencyRecord r SET r.fingerprint = :fingerprint, r.responseBody = NULL, "
+            + "r.createdAt = :now, r.expiresAt = :expiresAt "
+            + "WHERE r.requestKey = :requestKey "
+            + "AND (r.expiresAt < :now OR (r.responseBody IS NULL AND r.createdAt < :staleBefore))")
+    int takeOver(@Param("requestKey") String requestKey,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("now") LocalDateTime now,
+                 @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseBody = :responseBody WHERE r.requestKey = :requestKey")
+    int complete(@Param("requestKey") String requestKey, @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.requestKey = :requestKey AND r.responseBody IS NULL")
+    int release(@Param("requestKey") String requestKey);
+
+    /** Usa idx_idem_keys_expires_at. */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,19 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.MediaDeletion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MediaDeletionRepository extends JpaRepository<MediaDeletion, Long> {
+
+    /** Usa idx_media_del_next_attempt; las abandonadas son pocas y se descartan al leer. */
+    List<MediaDeletion> findByAbandonedAtIsNullAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+            LocalDateTime now, Limit limit);
+
+    long countByAbandonedAtIsNull();
+}
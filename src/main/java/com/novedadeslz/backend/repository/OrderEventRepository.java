@@ -0,0 +1,21 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.OrderEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    /** Usa idx_order_events_order. El id desempata entradas del mismo instante. */
+    List<OrderEvent> findByOrderIdOrderByCreatedAtAscIdAsc(Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM OrderEvent e WHERE e.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+}
@@ -0,0 +1,20 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Listado de pedidos con cualquier combinacion de filtros (ver {@link OrderSpecifications}).
+ * Reemplaza un metodo {@code @Query} por combinacion: con cuatro filtros eran demasiados, y el
+ * servicio terminaba eligiendo uno solo e ignorando el resto.
+ */
+public interface OrderFilterQueries {
+
+    /**
+     * Ids de una pagina de pedidos, con el limite en el SQL. Solo ids por lo mismo que los demas
+     * listados (ver {@link OrderRepository#ITEMS_GRAPH}).
+     */
+    Page<Long> findIds(Specification<Order> filter, Pageable pageable);
+}
@@ -0,0 +1,65 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+/**
+ * Con Criteria y no con {@code JpaSpecificationExecutor} porque este devuelve entidades y aca solo
+ * hacen falta los ids.
+ */
+class OrderFilterQueriesImpl implements OrderFilterQueries {
+
+    private final EntityManager entityManager;
+
+    OrderFilterQueriesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<Long> findIds(Specification<Order> filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> idQuery = cb.createQuery(Long.class);
+        Root<Order> root = idQuery.from(Order.class);
+        idQuery.select(root.get("id"));
+        Predicate predicate = filter.toPredicate(root, idQuery, cb);
+        if (predicate != null) {
+            idQuery.where(predicate);
+        }
+        idQuery.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Long> query = entityManager.createQuery(idQuery);
+        if (pageable.isPaged()) {
+            query.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<Long> ids = query.getResultList();
+
+        // Si la pagina vino incompleta el total sale de ella y no hace falta contar.
+        return PageableExecutionUtils.getPage(ids, pageable, () -> count(filter));
+    }
+
+    private long count(Specification<Order> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Order> root = countQuery.from(Order.class);
+        countQuery.select(cb.count(root));
+        Predicate predicate = filter.toPredicate(root, countQuery, cb);
+        if (predicate != null) {
+            countQuery.where(predicate);
+        }
+        return entityManager.createQuery(countQuery).getSingleResult();
+    }
+}
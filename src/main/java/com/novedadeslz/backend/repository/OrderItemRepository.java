@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,6 +19,23 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id = :orderId")
     List<OrderItem> findAllByOrderId(@Param("orderId") Long orderId);
 
+    /** Items de los pedidos de una pagina del listado, en una sola consulta y sin entidades. */
+    @Query("SELECT oi.order.id AS orderId, oi.id AS id, oi.product.id AS productId, "
+            + "oi.productName AS productName, oi.quantity AS quantity, oi.unitPrice AS unitPrice, "
+            + "oi.subtotal AS subtotal FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemSummary> findSummariesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Unidades apartadas por producto entre todos los pedidos dados, ya sumadas: la limpieza de
+     * abandonados devuelve un UPDATE por producto y no uno por item. Solo cuentan los pedidos que
+     * efectivamente tomaron stock.
+     */
+    @Query("SELECT oi.product.id AS productId, oi.product.stockBuckets AS stockBuckets, "
+            + "SUM(oi.quantity) AS quantity FROM OrderItem oi "
+            + "WHERE oi.order.id IN :orderIds AND oi.order.stockReserved = true "
+            + "GROUP BY oi.product.id, oi.product.stockBuckets ORDER BY oi.product.id")
+    List<ReservedQuantity> sumReservedQuantitiesByProduct(@Param("orderIds") Collection<Long> orderIds);
+
     @Query("SELECT SUM(oi.quantity) FROM OrderItem oi WHERE oi.product.id = :productId")
     Integer getTotalQuantitySoldForProduct(@Param("productId") Long productId);
 }
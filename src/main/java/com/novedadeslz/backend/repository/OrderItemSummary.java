@@ -0,0 +1,21 @@
+package com.novedadeslz.backend.repository;
+
+import java.math.BigDecimal;
+
+/** Un item del listado de pedidos, con el id de su pedido para agruparlo sin cargar entidades. */
+public interface OrderItemSummary {
+
+    Long getOrderId();
+
+    Long getId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    Integer getQuantity();
+
+    BigDecimal getUnitPrice();
+
+    BigDecimal getSubtotal();
+}
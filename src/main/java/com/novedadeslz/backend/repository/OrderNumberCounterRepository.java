@@ -0,0 +1,37 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.OrderNumberCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OrderNumberCounterRepository extends JpaRepository<OrderNumberCounter, String> {
+
+    /**
+     * Avanza el correlativo del dia sin pasar del tope. Devuelve 0 si el dia todavia no tiene fila o
+     * si ya se llego al tope. El UPDATE bloquea la fila hasta el commit: dos checkouts simultaneos
+     * se turnan en vez de leer el mismo valor.
+     */
+    @Modifying
+    @Query(value = "UPDATE order_number_counters SET last_value = last_value + 1 "
+            + "WHERE counter_day = :day AND last_value < :max", nativeQuery = true)
+    int increment(@Param("day") String day, @Param("max") int max);
+
+    @Query(value = "SELECT last_value FROM order_number_counters WHERE counter_day = :day", nativeQuery = true)
+    Optional<Integer> findLastValue(@Param("day") String day);
+
+    /**
+     * Primera fila del dia. Arranca despues del mayor numero que ya exista para ese dia, asi que el
+     * primer pedido tras el despliegue no choca con los creados con el conteo anterior.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_number_counters (counter_day, last_value) "
+            + "SELECT :day, COALESCE(MAX(CAST(SUBSTR(o.order_number, 14) AS INTEGER)), 0) + 1 "
+            + "FROM orders o WHERE o.order_number LIKE :prefix", nativeQuery = true)
+    int createStartingAfterExistingOrders(@Param("day") String day, @Param("prefix") String prefix);
+}
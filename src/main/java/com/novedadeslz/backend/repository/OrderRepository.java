@@ -1,10 +1,14 @@
 package com.novedadeslz.backend.repository;
 
 import com.novedadeslz.backend.model.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,55 +20,46 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderFilterQueries {
 
     /**
-     * Los listados mapean los items de cada pedido, asi que sin este grafo Hibernate emite una
-     * consulta extra por pedido. Con 100 pedidos por pagina eso eran ~100 viajes de ida y vuelta a
-     * Oracle, que desde Render cruzan medio continente.
+     * El pedido y sus items en una sola consulta, para el detalle.
+     *
+     * <p>Nunca junto con un {@code Pageable}: Hibernate no puede poner OFFSET/FETCH a una consulta
+     * que trae una coleccion, asi que cargaba todos los pedidos del filtro con sus items y paginaba
+     * en memoria. Los listados van en dos pasos: primero los ids de la pagina ({@link #findIds}),
+     * con el limite en el SQL, y despues {@link #findSummariesByIdIn} y
+     * {@link OrderItemRepository#findSummariesByOrderIdIn} con esos ids.
      */
     String ITEMS_GRAPH = "Order.items";
 
-    Optional<Order> findByOrderNumber(String orderNumber);
-
-    Optional<Order> findByOrderNumberIgnoreCase(String orderNumber);
-
-    @EntityGraph(value = ITEMS_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
-    Page<Order> findByStatus(Order.OrderStatus status, Pageable pageable);
-
-    @EntityGraph(value = ITEMS_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
-    Page<Order> findByCustomerPhoneContaining(String phone, Pageable pageable);
-
     /**
-     * Busqueda del panel: numero de pedido, nombre o telefono.
-     *
-     * <p>Son dos metodos en vez de uno con ":status IS NULL OR ..." porque pasar un enum nulo como
-     * parametro es una fuente conocida de problemas de tipado en JPQL. Explicito y predecible.
+     * Comparacion exacta, servida por el indice unico de order_number. Los numeros se guardan en
+     * mayusculas y quien busca normaliza lo que escribio el cliente; con IgnoreCase la consulta era
+     * UPPER(order_number) = UPPER(?) y recorria la tabla. Trae los items para armar la respuesta
+     * fuera de una transaccion.
      */
     @EntityGraph(value = ITEMS_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
-    @Query("SELECT o FROM Order o WHERE "
-            + "LOWER(o.orderNumber) LIKE LOWER(CONCAT('%', :search, '%')) OR "
-            + "LOWER(o.customerName) LIKE LOWER(CONCAT('%', :search, '%')) OR "
-            + "o.customerPhone LIKE CONCAT('%', :search, '%')")
-    Page<Order> searchOrders(@Param("search") String search, Pageable pageable);
-
-    @EntityGraph(value = ITEMS_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
-    @Query("SELECT o FROM Order o WHERE o.status = :status AND ("
-            + "LOWER(o.orderNumber) LIKE LOWER(CONCAT('%', :search, '%')) OR "
-            + "LOWER(o.customerName) LIKE LOWER(CONCAT('%', :search, '%')) OR "
-            + "o.customerPhone LIKE CONCAT('%', :search, '%'))")
-    Page<Order> searchOrdersByStatus(
-            @Param("status") Order.OrderStatus status,
-            @Param("search") String search,
-            Pageable pageable
-    );
-
-    @EntityGraph(value = ITEMS_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
-    Page<Order> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end, Pageable pageable);
+    Optional<Order> findByOrderNumber(String orderNumber);
 
-    @Override
-    @EntityGraph(value = ITEMS_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
-    Page<Order> findAll(Pageable pageable);
+    /**
+     * Segundo paso de los listados: las columnas de la tabla del panel, sin las notas. Sin
+     * entidades: no pasan por el contexto de persistencia ni arrastran el CLOB por la red.
+     */
+    @Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.publicToken AS publicToken, "
+            + "o.customerName AS customerName, o.customerPhone AS customerPhone, "
+            + "o.customerEmail AS customerEmail, o.customerAddress AS customerAddress, "
+            + "o.customerCity AS customerCity, o.total AS total, o.status AS status, "
+            + "o.paymentMethod AS paymentMethod, o.paymentProof AS paymentProof, "
+            + "o.operationNumber AS operationNumber, o.whatsappSent AS whatsappSent, "
+            + "o.createdAt AS createdAt, o.updatedAt AS updatedAt "
+            + "FROM Order o WHERE o.id IN :ids")
+    List<OrderSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** Pedidos creados antes de que existiera el indice de busqueda, de a un lote. */
+    @Query("SELECT o.id FROM Order o WHERE NOT EXISTS "
+            + "(SELECT t.id FROM OrderSearchTerm t WHERE t.orderId = o.id) ORDER BY o.id")
+    List<Long> findIdsWithoutSearchTerms(Limit limit);
 
     @Override
     @EntityGraph(value = ITEMS_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
@@ -74,18 +69,50 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Optional<Order> findByOperationNumber(String operationNumber);
 
-    @Query(value = "SELECT COUNT(*) FROM orders o WHERE o.order_number LIKE :pattern", nativeQuery = true)
-    Long countByOrderNumberStartingWith(@Param("pattern") String pattern);
-
     long countByStatus(Order.OrderStatus status);
 
-    /** Pedidos en un estado dado creados antes del corte, para liberar el stock que retienen. */
-    @Query("SELECT o FROM Order o WHERE o.status = :status AND o.createdAt < :cutoff")
-    List<Order> findAbandonedOrders(
+    /**
+     * Ids de los pedidos en un estado dado creados antes del corte, de a un lote. Solo ids: la
+     * limpieza de abandonados no necesita las entidades ni sus items.
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.createdAt < :cutoff ORDER BY o.id")
+    List<Long> findAbandonedOrderIds(
+            @Param("status") Order.OrderStatus status,
+            @Param("cutoff") LocalDateTime cutoff,
+            Limit limit
+    );
+
+    /** Pedidos que retienen stock, para volver a agendar sus vencimientos al arrancar. */
+    @Query("SELECT o.id AS id, o.createdAt AS createdAt FROM Order o "
+            + "WHERE o.status = :status AND o.stockReserved = true")
+    List<PendingReservation> findPendingReservations(@Param("status") Order.OrderStatus status);
+
+    /**
+     * Bloquea los pedidos del lote que siguen en el estado dado desde antes del corte y devuelve
+     * sus ids. Un cliente que
+     * sube el comprobante justo ahora espera al commit y ya encuentra el pedido cancelado, en vez de
+     * que se le libere el stock a un pedido pagado. Va aparte de {@link #findAbandonedOrderIds}
+     * porque Oracle no admite FOR UPDATE junto con FETCH FIRST.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.status = :status AND o.createdAt < :cutoff "
+            + "ORDER BY o.id")
+    List<Long> lockAbandoned(
+            @Param("ids") Collection<Long> ids,
             @Param("status") Order.OrderStatus status,
             @Param("cutoff") LocalDateTime cutoff
     );
 
+    /** Cancela un lote ya bloqueado con un solo UPDATE. */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status, o.stockReserved = false, o.updatedAt = :now "
+            + "WHERE o.id IN :ids")
+    int markAll(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") Order.OrderStatus status,
+            @Param("now") LocalDateTime now
+    );
+
     /**
      * Los ingresos se calculan en la base, no sumando en el navegador los pedidos que quepan en
      * una pagina. COALESCE evita devolver null cuando todavia no hay ventas.
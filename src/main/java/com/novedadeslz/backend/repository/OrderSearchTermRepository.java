@@ -0,0 +1,17 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.OrderSearchTerm;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderSearchTermRepository extends JpaRepository<OrderSearchTerm, Long> {
+
+    /** Usa idx_order_search_order. */
+    @Modifying
+    @Query("DELETE FROM OrderSearchTerm t WHERE t.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+}
@@ -0,0 +1,75 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderSearchTerm;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros del listado de pedidos del panel, para combinar con {@link Specification#allOf}. Un
+ * filtro sin valor no restringe nada, asi el servicio los junta todos sin preguntar cual vino.
+ *
+ * <p>Todos son igualdades o rangos sobre columnas indexadas: estado y fecha usan
+ * idx_orders_status_created, medio de pago y fecha idx_orders_payment_created (V16), y la busqueda
+ * va por idx_order_search_term.
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> hasStatus(Order.OrderStatus status) {
+        return status == null
+                ? Specification.unrestricted()
+                : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    /** Cualquiera de los dos extremos puede faltar; ambos son inclusivos, como el BETWEEN anterior. */
+    public static Specification<Order> createdBetween(LocalDateTime start, LocalDateTime end) {
+        if (start != null && end != null) {
+            return (root, query, cb) -> cb.between(root.get("createdAt"), start, end);
+        }
+        if (start != null) {
+            return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), start);
+        }
+        if (end != null) {
+            return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("createdAt"), end);
+        }
+        return Specification.unrestricted();
+    }
+
+    /** Se compara tal cual: el pedido solo acepta "yape" o "cash", en minusculas. */
+    public static Specification<Order> paidWith(String paymentMethod) {
+        return paymentMethod == null
+                ? Specification.unrestricted()
+                : (root, query, cb) -> cb.equal(root.get("paymentMethod"), paymentMethod);
+    }
+
+    /**
+     * Pedidos con algun termino de busqueda que coincida (ver {@code OrderSearchIndex}). Los
+     * patrones ya terminan en '%', asi la subconsulta es un rango sobre el indice de terminos.
+     *
+     * @param phonePattern {@code null} si la busqueda no es un telefono: solo se miran los textos
+     */
+    public static Specification<Order> hasSearchTerm(String textPattern, String phonePattern) {
+        return (root, query, cb) -> {
+            Subquery<Long> matching = query.subquery(Long.class);
+            Root<OrderSearchTerm> term = matching.from(OrderSearchTerm.class);
+            Predicate text = cb.and(cb.equal(term.get("kind"), OrderSearchTerm.Kind.TEXT),
+                    cb.like(term.get("term"), textPattern));
+            matching.select(term.get("orderId")).where(phonePattern == null ? text : cb.or(text,
+                    cb.and(cb.equal(term.get("kind"), OrderSearchTerm.Kind.PHONE),
+                            cb.like(term.get("term"), phonePattern))));
+            return root.get("id").in(matching);
+        };
+    }
+
+    /** Para una busqueda que no deja nada que buscar. */
+    public static Specification<Order> none() {
+        return (root, query, cb) -> cb.disjunction();
+    }
+}
@@ -0,0 +1,45 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Las columnas de un pedido que muestra el listado del panel, sin entidad administrada. El
+ * historial del pedido vive aparte en {@code order_events} y solo se lee en el detalle.
+ */
+public interface OrderSummary {
+
+    Long getId();
+
+    String getOrderNumber();
+
+    String getPublicToken();
+
+    String getCustomerName();
+
+    String getCustomerPhone();
+
+    String getCustomerEmail();
+
+    String getCustomerAddress();
+
+    String getCustomerCity();
+
+    BigDecimal getTotal();
+
+    Order.OrderStatus getStatus();
+
+    String getPaymentMethod();
+
+    String getPaymentProof();
+
+    String getOperationNumber();
+
+    Boolean getWhatsappSent();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
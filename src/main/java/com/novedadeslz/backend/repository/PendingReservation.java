@@ -0,0 +1,13 @@
+package com.novedadeslz.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un pedido que retiene stock y desde cuando: lo justo para calcular el vencimiento de su reserva.
+ */
+public interface PendingReservation {
+
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+}
@@ -1,8 +1,12 @@
 package com.novedadeslz.backend.repository;
 
 import com.novedadeslz.backend.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,30 +14,44 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockOperations {
 
     Page<Product> findByActiveTrue(Pageable pageable);
 
     Page<Product> findByCategoryAndActiveTrue(String category, Pageable pageable);
 
+    // Paginacion por cursor: seek sobre (created_at, id) sin el COUNT de las versiones paginadas.
+
+    Window<Product> findByActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Product> findByCategoryAndActiveTrue(String category, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Product> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
     @Query("SELECT p FROM Product p WHERE p.active = true AND " +
            "(LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')))")
     Page<Product> searchProducts(@Param("search") String search, Pageable pageable);
 
-    List<Product> findByStockLessThanEqualAndActiveTrue(Integer threshold);
+    /** Carga inicial del indice de busqueda: solo lo que se indexa, nunca la galeria. */
+    List<SearchableProduct> findSearchableByActiveTrue();
+
+    Optional<SearchableProduct> findSearchableByIdAndActiveTrue(Long id);
+
+    List<Product> findByAvailableStockLessThanEqualAndActiveTrue(Integer threshold);
 
     @Query("SELECT COUNT(p) FROM Product p WHERE p.active = true")
     Long countActiveProducts();
 
     /** Productos activos que llevan control de inventario y ya estan por agotarse. */
     @Query("SELECT COUNT(p) FROM Product p "
-            + "WHERE p.active = true AND p.trackInventory = true AND p.stock <= :threshold")
+            + "WHERE p.active = true AND p.trackInventory = true AND p.availableStock <= :threshold")
     long countLowStockProducts(@Param("threshold") Integer threshold);
 
-    @Query("SELECT SUM(p.price * p.stock) FROM Product p WHERE p.active = true")
+    @Query("SELECT SUM(p.price * p.availableStock) FROM Product p WHERE p.active = true")
     Double getTotalInventoryValue();
 
     /**
@@ -43,6 +61,8 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * unidad disponible y ambos guardar 0, vendiendo dos veces la misma. Al poner la condicion
      * dentro del UPDATE, la base resuelve la carrera y devuelve 0 filas al que llego tarde.
      *
+     * <p>Solo para productos con el stock en su fila; los repartidos usan {@link #reserveFromBuckets}.
+     *
      * @return 1 si alcanzo el stock, 0 si no
      */
     @Modifying(clearAutomatically = true, flushAutomatically = true)
@@ -50,6 +70,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             + "WHERE p.id = :productId AND p.trackInventory = true AND p.stock >= :quantity")
     int reserveStock(@Param("productId") Long productId, @Param("quantity") int quantity);
 
+    /** Igual que {@link #reserveStock}: los productos repartidos usan {@link #releaseToBuckets}. */
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("UPDATE Product p SET p.stock = p.stock + :quantity "
             + "WHERE p.id = :productId AND p.trackInventory = true")
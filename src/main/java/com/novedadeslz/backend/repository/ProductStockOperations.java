@@ -0,0 +1,51 @@
+package com.novedadeslz.backend.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones de stock que no entran en un {@code @Query}: necesitan varias sentencias en un
+ * mismo viaje a la base.
+ */
+public interface ProductStockOperations {
+
+    /**
+     * Aparta las unidades de todos los productos de un carrito en un solo lote JDBC.
+     *
+     * <p>Cada UPDATE lleva la misma condicion que {@link ProductRepository#reserveStock}: solo
+     * descuenta si alcanza. Los productos se bloquean en orden de id, asi dos carritos que
+     * comparten productos los toman en el mismo orden y no pueden esperarse mutuamente.
+     *
+     * <p>Un rechazo no deshace a los demas: quien llama debe fallar para que la transaccion se
+     * revierta entera.
+     *
+     * @param quantitiesByProductId unidades por producto, ya sumadas si el carrito repite alguno
+     * @return ids, en orden, de los productos sin stock suficiente; vacia si se aparto todo
+     */
+    List<Long> reserveStockInIdOrder(Map<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Devuelve las unidades de varios productos en un solo lote JDBC, con la misma condicion que
+     * {@link ProductRepository#releaseStock}. Tambien en orden de id, por lo mismo que la reserva.
+     */
+    void releaseStockInIdOrder(Map<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Aparta unidades de un producto con stock repartido. Prueba primero un bucket al azar y, si
+     * no alcanza, los siguientes: cada intento toca una sola fila, asi los checkouts simultaneos
+     * del mismo producto casi nunca se esperan. Si ningun bucket alcanza solo pero la suma si,
+     * bloquea todos en orden y descuenta de varios.
+     *
+     * @return false si entre todos los buckets no alcanza; en ese caso no descuenta nada
+     */
+    boolean reserveFromBuckets(Long productId, int buckets, int quantity);
+
+    /** Devuelve unidades a un bucket al azar, para no concentrar las devoluciones en una fila. */
+    void releaseToBuckets(Long productId, int buckets, int quantity);
+
+    /**
+     * Reparte {@code total} en partes iguales entre {@code buckets} filas, reemplazando las que
+     * hubiera. Con 0 buckets solo borra las filas: el stock vuelve a la fila del producto.
+     */
+    void resetStockBuckets(Long productId, int buckets, int total);
+}
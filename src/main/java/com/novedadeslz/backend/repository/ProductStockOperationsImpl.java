@@ -0,0 +1,191 @@
+package com.novedadeslz.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Usa JDBC y no JPQL porque Hibernate no agrupa en lote los UPDATE masivos de {@code @Query}: cada
+ * producto seria un viaje a la base.
+ */
+class ProductStockOperationsImpl implements ProductStockOperations {
+
+    private static final String RESERVE_SQL = "UPDATE products SET stock = stock - ? "
+            + "WHERE id = ? AND track_inventory = ? AND stock >= ?";
+    private static final String RELEASE_SQL = "UPDATE products SET stock = stock + ? "
+            + "WHERE id = ? AND track_inventory = ?";
+
+    private static final String RESERVE_BUCKET_SQL = "UPDATE product_stock_buckets SET stock = stock - ? "
+            + "WHERE product_id = ? AND bucket_no = ? AND stock >= ?";
+    private static final String SUM_BUCKETS_SQL = "SELECT COALESCE(SUM(stock), 0) FROM product_stock_buckets "
+            + "WHERE product_id = ?";
+    private static final String LOCK_BUCKETS_SQL = "SELECT bucket_no, stock FROM product_stock_buckets "
+            + "WHERE product_id = ? ORDER BY bucket_no FOR UPDATE";
+    private static final String TAKE_FROM_BUCKET_SQL = "UPDATE product_stock_buckets SET stock = stock - ? "
+            + "WHERE product_id = ? AND bucket_no = ?";
+    private static final String RELEASE_TO_BUCKET_SQL = "UPDATE product_stock_buckets SET stock = stock + ? "
+            + "WHERE product_id = ? AND bucket_no = ?";
+    private static final String DELETE_BUCKETS_SQL = "DELETE FROM product_stock_buckets WHERE product_id = ?";
+    private static final String INSERT_BUCKET_SQL = "INSERT INTO product_stock_buckets (product_id, bucket_no, stock) "
+            + "VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    ProductStockOperationsImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Long> reserveStockInIdOrder(Map<Long, Integer> quantitiesByProductId) {
+        if (quantitiesByProductId.isEmpty()) {
+            return List.of();
+        }
+
+        List<Map.Entry<Long, Integer>> reservations = List.copyOf(new TreeMap<>(quantitiesByProductId).entrySet());
+
+        // El lote va por la misma conexion que la transaccion JPA, pero no ve lo que Hibernate
+        // todavia tiene sin escribir.
+        entityManager.flush();
+
+        int[] updatedRows = jdbcTemplate.batchUpdate(RESERVE_SQL, reservations, reservations.size(),
+                (statement, reservation) -> {
+                    statement.setInt(1, reservation.getValue());
+                    statement.setLong(2, reservation.getKey());
+                    statement.setBoolean(3, true);
+                    statement.setInt(4, reservation.getValue());
+                })[0];
+
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < reservations.size(); i++) {
+            if (updatedRows[i] == 0) {
+                rejected.add(reservations.get(i).getKey());
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public void releaseStockInIdOrder(Map<Long, Integer> quantitiesByProductId) {
+        if (quantitiesByProductId.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Long, Integer>> releases = List.copyOf(new TreeMap<>(quantitiesByProductId).entrySet());
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(RELEASE_SQL, releases, releases.size(), (statement, release) -> {
+            statement.setInt(1, release.getValue());
+            statement.setLong(2, release.getKey());
+            statement.setBoolean(3, true);
+        });
+    }
+
+    @Override
+    public boolean reserveFromBuckets(Long productId, int buckets, int quantity) {
+        entityManager.flush();
+
+        Boolean reserved = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                reserveFromSingleBucket(connection, productId, buckets, quantity));
+        return Boolean.TRUE.equals(reserved) || reserveAcrossBuckets(productId, quantity);
+    }
+
+    /**
+     * Prueba los buckets de a uno, empezando por uno al azar. Un UPDATE que no descuenta nada puede
+     * dejar igual la fila bloqueada (H2 la bloquea antes de volver a evaluar {@code stock >= ?}), y
+     * esas filas tomadas en cualquier orden se cruzarian con el bloqueo ordenado del camino lento.
+     * Por eso, si ninguno alcanza, se vuelve al savepoint y el camino lento arranca sin nada tomado.
+     */
+    private boolean reserveFromSingleBucket(Connection connection, Long productId, int buckets, int quantity)
+            throws SQLException {
+        Savepoint beforeAttempts = connection.getAutoCommit() ? null : connection.setSavepoint();
+
+        int first = ThreadLocalRandom.current().nextInt(buckets);
+        for (int i = 0; i < buckets; i++) {
+            int bucket = (first + i) % buckets;
+            if (jdbcTemplate.update(RESERVE_BUCKET_SQL, quantity, productId, bucket, quantity) == 1) {
+                return true;
+            }
+        }
+
+        if (beforeAttempts != null) {
+            connection.rollback(beforeAttempts);
+        }
+        return false;
+    }
+
+    /**
+     * Camino lento para una cantidad que ningun bucket cubre solo. Los bloquea todos en orden de
+     * bucket, sin ninguno tomado de antes: dos checkouts que llegan aca a la vez se turnan en vez de
+     * bloquearse mutuamente.
+     */
+    private boolean reserveAcrossBuckets(Long productId, int quantity) {
+        // Agotado sin bloquear nada: al final de una oferta casi todos los que llegan aca se van con
+        // las manos vacias, y bloquear todos los buckets para eso los haria turnarse entre si.
+        Integer available = jdbcTemplate.queryForObject(SUM_BUCKETS_SQL, Integer.class, productId);
+        if (available == null || available < quantity) {
+            return false;
+        }
+
+        List<int[]> locked = jdbcTemplate.query(LOCK_BUCKETS_SQL,
+                (row, rowNum) -> new int[]{row.getInt("bucket_no"), row.getInt("stock")}, productId);
+        if (locked.stream().mapToInt(bucket -> bucket[1]).sum() < quantity) {
+            return false;
+        }
+
+        List<int[]> takes = new ArrayList<>();
+        int missing = quantity;
+        for (int[] bucket : locked) {
+            int take = Math.min(bucket[1], missing);
+            if (take > 0) {
+                takes.add(new int[]{bucket[0], take});
+                missing -= take;
+            }
+            if (missing == 0) {
+                break;
+            }
+        }
+
+        jdbcTemplate.batchUpdate(TAKE_FROM_BUCKET_SQL, takes, takes.size(), (statement, take) -> {
+            statement.setInt(1, take[1]);
+            statement.setLong(2, productId);
+            statement.setInt(3, take[0]);
+        });
+        return true;
+    }
+
+    @Override
+    public void releaseToBuckets(Long productId, int buckets, int quantity) {
+        entityManager.flush();
+        int bucket = ThreadLocalRandom.current().nextInt(buckets);
+        jdbcTemplate.update(RELEASE_TO_BUCKET_SQL, quantity, productId, bucket);
+    }
+
+    @Override
+    public void resetStockBuckets(Long productId, int buckets, int total) {
+        // El producto recien creado tiene que estar escrito antes que sus buckets.
+        entityManager.flush();
+        jdbcTemplate.update(DELETE_BUCKETS_SQL, productId);
+        if (buckets <= 0) {
+            return;
+        }
+
+        List<Integer> bucketNumbers = IntStream.range(0, buckets).boxed().toList();
+        jdbcTemplate.batchUpdate(INSERT_BUCKET_SQL, bucketNumbers, buckets, (statement, bucket) -> {
+            statement.setLong(1, productId);
+            statement.setInt(2, bucket);
+            // El resto de la division va a los primeros buckets: 10 en 4 queda 3, 3, 2, 2.
+            statement.setInt(3, total / buckets + (bucket < total % buckets ? 1 : 0));
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.novedadeslz.backend.repository;
+
+/**
+ * Unidades apartadas de un producto, sumadas entre varios pedidos. Trae {@code stockBuckets} para
+ * saber a donde devolverlas sin cargar el producto.
+ */
+public interface ReservedQuantity {
+
+    Long getProductId();
+
+    Integer getStockBuckets();
+
+    Long getQuantity();
+}
@@ -0,0 +1,17 @@
+package com.novedadeslz.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lo minimo para indexar un producto en la busqueda, sin cargar la entidad ni su galeria.
+ */
+public interface SearchableProduct {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    LocalDateTime getCreatedAt();
+}
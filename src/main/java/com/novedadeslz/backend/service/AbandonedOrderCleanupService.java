@@ -1,16 +1,36 @@
 package com.novedadeslz.backend.service;
 
+import com.novedadeslz.backend.event.OrderActivityEvent;
+import com.novedadeslz.backend.event.OrderChangedEvent;
+import com.novedadeslz.backend.event.ProductStockChangedEvent;
 import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderEvent;
+import com.novedadeslz.backend.repository.OrderEventRepository;
+import com.novedadeslz.backend.repository.OrderItemRepository;
 import com.novedadeslz.backend.repository.OrderRepository;
-import lombok.RequiredArgsConstructor;
+import com.novedadeslz.backend.repository.ProductRepository;
+import com.novedadeslz.backend.repository.ReservedQuantity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * Cancela pedidos que quedaron a medias y devuelve su stock.
@@ -21,38 +41,189 @@ import java.util.List;
  *
  * <p>Solo se tocan los pedidos en PENDING, que son los que no llegaron a enviar comprobante. Un
  * pedido en revision o rechazado tiene a alguien detras y lo resuelve el admin.
+ *
+ * <p>Antes se cargaban todos los pedidos vencidos con sus items en una sola transaccion y se
+ * cancelaban de a uno, con un UPDATE de stock por item. Tras una ola de pedidos basura eso retenia
+ * una conexion varios minutos. Ahora se trabaja por lotes de ids, cada uno en su propia transaccion
+ * corta: se bloquean los que siguen en PENDING, se cancelan con un solo UPDATE, cada uno suma una
+ * entrada a su historial y el stock vuelve con un UPDATE por producto, ya sumado entre todos los
+ * pedidos del lote.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AbandonedOrderCleanupService {
 
+    /** Tope de la lista IN de Oracle. */
+    static final int MAX_BATCH_SIZE = 1000;
+    static final String CANCEL_NOTE = "Cancelado automaticamente: quedo sin comprobante y se libero el stock.";
+
     private final OrderRepository orderRepository;
-    private final OrderService orderService;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderEventRepository orderEventRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate ownTransaction;
+    private final long abandonAfterHours;
+    private final int batchSize;
+
+    private final Counter cancelledCounter;
+    private final Counter releasedUnitsCounter;
+    private final Timer batchTimer;
+
+    public AbandonedOrderCleanupService(
+            OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository,
+            OrderEventRepository orderEventRepository,
+            ProductRepository productRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.orders.abandon-after-hours:48}") long abandonAfterHours,
+            @Value("${app.orders.cleanup-batch-size:200}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.orderEventRepository = orderEventRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.abandonAfterHours = abandonAfterHours;
+        this.batchSize = Math.min(Math.max(batchSize, 1), MAX_BATCH_SIZE);
 
-    @Value("${app.orders.abandon-after-hours:48}")
-    private long abandonAfterHours;
+        this.cancelledCounter = Counter.builder("orders.abandoned.cancelled")
+                .description("Pedidos sin comprobante cancelados automaticamente")
+                .register(meterRegistry);
+        this.releasedUnitsCounter = Counter.builder("orders.abandoned.released.units")
+                .description("Unidades devueltas al stock por pedidos abandonados")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("orders.abandoned.batch")
+                .description("Duracion de cada lote de la limpieza de abandonados")
+                .register(meterRegistry);
+    }
 
-    /** Una vez por hora alcanza: el margen es de dias, no de minutos. */
+    /**
+     * Red de seguridad de {@link ReservationExpiryScheduler}, que libera cada reserva a los pocos
+     * segundos de vencer: esta pasada recoge lo que se le haya escapado (un reinicio entre la
+     * reconstruccion y el primer tick, un lote que fallo). Para eso alcanza con una vez por hora.
+     *
+     * <p>Sin transaccion a proposito: cada lote abre y confirma la suya, asi una limpieza grande
+     * nunca retiene una conexion mas que lo que tarda un lote.
+     */
     @Scheduled(fixedDelayString = "${app.orders.cleanup-interval-ms:3600000}", initialDelay = 120_000)
-    @Transactional
     public void cancelAbandonedOrders() {
         LocalDateTime cutoff = LocalDateTime.now().minusHours(abandonAfterHours);
-        List<Order> abandoned = orderRepository.findAbandonedOrders(Order.OrderStatus.PENDING, cutoff);
+        long startedAt = System.nanoTime();
+        long cancelled = 0;
+        int batches = 0;
 
-        if (abandoned.isEmpty()) {
-            return;
+        List<Long> candidates;
+        do {
+            candidates = orderRepository.findAbandonedOrderIds(Order.OrderStatus.PENDING, cutoff, Limit.of(batchSize));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            try {
+                cancelled += runBatch(candidates, cutoff);
+                batches++;
+            } catch (RuntimeException e) {
+                // Se reintenta en la proxima pasada; seguir ahora volveria a tomar el mismo lote.
+                log.error("No se pudo cancelar un lote de {} pedido(s) abandonados", candidates.size(), e);
+                break;
+            }
+            // Si el lote vino lleno puede haber mas; los ya cancelados dejaron de estar en PENDING.
+        } while (candidates.size() == batchSize);
+
+        if (cancelled > 0) {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+            log.info("Se cancelaron {} pedido(s) sin comprobante con mas de {} horas en {} lote(s), {} ms ({} pedidos/s)",
+                    cancelled, abandonAfterHours, batches, elapsed.toMillis(),
+                    cancelled * 1000 / Math.max(elapsed.toMillis(), 1));
         }
+    }
 
-        log.info("Cancelando {} pedido(s) sin comprobante con mas de {} horas", abandoned.size(), abandonAfterHours);
+    /**
+     * Cancela los pedidos indicados cuya reserva ya vencio, en lotes como la pasada horaria. Los que
+     * todavia estan a tiempo o ya no estan en PENDING se saltan.
+     *
+     * @return cuantos se cancelaron
+     */
+    public int cancelExpiredOrders(List<Long> orderIds) {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(abandonAfterHours);
+        int cancelled = 0;
+        for (int from = 0; from < orderIds.size(); from += batchSize) {
+            cancelled += runBatch(orderIds.subList(from, Math.min(from + batchSize, orderIds.size())), cutoff);
+        }
+        return cancelled;
+    }
 
-        for (Order order : abandoned) {
-            try {
-                orderService.cancelAbandonedOrder(order.getId());
-            } catch (Exception ex) {
-                // Que uno falle no debe impedir liberar el stock de los demas.
-                log.error("No se pudo cancelar el pedido abandonado {}", order.getOrderNumber(), ex);
+    private int runBatch(List<Long> candidateIds, LocalDateTime cutoff) {
+        BatchResult result = batchTimer.record(() -> ownTransaction.execute(status -> cancelBatch(candidateIds, cutoff)));
+        // Se cuenta despues del commit: un lote revertido no cancelo nada.
+        cancelledCounter.increment(result.cancelledOrders());
+        releasedUnitsCounter.increment(result.releasedUnits());
+        return result.cancelledOrders();
+    }
+
+    /**
+     * Se revalida todo con el pedido bloqueado: si el cliente pago entre medias ya no esta en
+     * PENDING y se salta.
+     */
+    private BatchResult cancelBatch(List<Long> candidateIds, LocalDateTime cutoff) {
+        List<Long> orderIds = orderRepository.lockAbandoned(candidateIds, Order.OrderStatus.PENDING, cutoff);
+        if (orderIds.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+
+        // Se suma antes del UPDATE, que apaga stock_reserved.
+        List<ReservedQuantity> reserved = orderItemRepository.sumReservedQuantitiesByProduct(orderIds);
+
+        orderRepository.markAll(orderIds, Order.OrderStatus.CANCELLED, LocalDateTime.now());
+        // Una entrada de historial por pedido, insertadas en lote por Hibernate (jdbc.batch_size).
+        orderEventRepository.saveAll(orderIds.stream()
+                .map(orderId -> OrderEvent.of(orderId, OrderEvent.Type.CANCELLED, OrderEvent.Actor.SYSTEM, CANCEL_NOTE))
+                .toList());
+        eventPublisher.publishEvent(new OrderChangedEvent(Set.copyOf(orderIds)));
+        for (Long orderId : orderIds) {
+            eventPublisher.publishEvent(new OrderActivityEvent(
+                    OrderActivityEvent.Type.CANCELLED, orderId, null, Order.OrderStatus.CANCELLED));
+        }
+
+        return new BatchResult(orderIds.size(), releaseStock(reserved));
+    }
+
+    /**
+     * Mismo orden que la reserva: primero el lote de las filas de producto, despues los buckets.
+     *
+     * @return unidades devueltas
+     */
+    private long releaseStock(List<ReservedQuantity> reserved) {
+        Map<Long, Integer> rowStock = new TreeMap<>();
+        List<ReservedQuantity> sharded = new ArrayList<>();
+        long releasedUnits = 0;
+
+        for (ReservedQuantity quantity : reserved) {
+            if (quantity.getStockBuckets() != null && quantity.getStockBuckets() > 0) {
+                sharded.add(quantity);
+            } else {
+                rowStock.put(quantity.getProductId(), Math.toIntExact(quantity.getQuantity()));
             }
+            releasedUnits += quantity.getQuantity();
+        }
+
+        productRepository.releaseStockInIdOrder(rowStock);
+        for (ReservedQuantity quantity : sharded) {
+            productRepository.releaseToBuckets(
+                    quantity.getProductId(), quantity.getStockBuckets(), Math.toIntExact(quantity.getQuantity()));
         }
+
+        if (!reserved.isEmpty()) {
+            // El catalogo cacheado muestra stock: se invalida tras el commit (ver ProductCatalogCache).
+            eventPublisher.publishEvent(new ProductStockChangedEvent(
+                    reserved.stream().map(ReservedQuantity::getProductId).collect(Collectors.toSet())));
+        }
+        return releasedUnits;
+    }
+
+    private record BatchResult(int cancelledOrders, long releasedUnits) {
     }
 }
@@ -0,0 +1,265 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.event.OrderActivityEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Actividad de pedidos empujada al panel admin por Server-Sent Events.
+ *
+ * <p>El panel consultaba el listado en revision y las cifras cada pocos segundos: el listado y
+ * siete conteos contra Oracle por vuelta, aunque no hubiera pasado nada. Ahora recibe un evento
+ * cuando algo cambia y recien ahi vuelve a pedir lo que muestra.
+ *
+ * <p>Los ultimos eventos quedan en un buffer circular. Al reconectar, el cliente manda
+ * {@code Last-Event-ID} y se le reenvia lo que se perdio. Si eso ya salio del buffer, o el id es de
+ * un arranque anterior, recibe un {@value #RESET_EVENT} y recarga todo. Deliberadamente en memoria,
+ * como la cache del catalogo: corre un unico contenedor.
+ *
+ * <p>El endpoint pide el JWT en {@code Authorization}, y el {@code EventSource} nativo del navegador
+ * no puede mandar headers: el panel tiene que usar un cliente SSE sobre {@code fetch} (por ejemplo
+ * {@code @microsoft/fetch-event-source}), que manda el token y tambien {@code Last-Event-ID} al
+ * reconectar.
+ *
+ * <p>Cada conexion tiene su propio hilo de envios, asi recibe los eventos en orden y un cliente lento
+ * no frena a los demas. Si se atrasa mas de lo que entra en el buffer, o una escritura se queda
+ * trabada, se lo desconecta: al volver se pone al dia con {@code Last-Event-ID} o recarga todo.
+ */
+@Component
+@Slf4j
+public class AdminEventStream {
+
+    /** Se perdieron eventos que ya no estan en el buffer: el panel tiene que recargar todo. */
+    static final String RESET_EVENT = "reset";
+
+    /** Una escritura que tarda mas que esto es un cliente que dejo de leer. */
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(10);
+
+    private final int maxConnections;
+    private final long connectionTimeoutMs;
+
+    /** Mismo criterio que ProductCatalogCache: los ids de un arranque no se confunden con los del anterior. */
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+
+    /** Protegidos por {@code this}. */
+    private final Entry[] buffer;
+    private long lastSequence;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    /** Se agregan bajo {@code this}, para que ningun evento quede entre la repeticion y el vivo. */
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public AdminEventStream(
+            @Value("${app.admin-events.max-connections:5}") int maxConnections,
+            @Value("${app.admin-events.replay-size:500}") int replaySize,
+            @Value("${app.admin-events.connection-timeout-ms:1800000}") long connectionTimeoutMs) {
+        this.maxConnections = maxConnections;
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.buffer = new Entry[replaySize];
+    }
+
+    /**
+     * Abre una conexion y le reenvia lo que se perdio desde {@code lastEventId}.
+     *
+     * @return {@code null} si ya se alcanzo el limite de conexiones
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(connectionTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> release(subscriber));
+        emitter.onTimeout(() -> release(subscriber));
+        emitter.onError(error -> release(subscriber));
+
+        // La ventana a repetir se fija aca, bajo el mismo candado con el que se numeran los eventos:
+        // lo que se publique despues ya encuentra al cliente en la lista y se encola detras.
+        synchronized (this) {
+            missedSince(lastEventId).forEach(event -> enqueue(subscriber, event));
+            if (!subscriber.closed.get()) {
+                subscribers.add(subscriber);
+            }
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderActivity(OrderActivityEvent event) {
+        synchronized (this) {
+            Entry entry = new Entry(++lastSequence, event);
+            buffer[(int) (entry.sequence() % buffer.length)] = entry;
+            subscribers.forEach(subscriber -> enqueue(subscriber, toSse(entry)));
+        }
+    }
+
+    /** Un comentario cada tanto para que Render y los proxies no corten la conexion por inactividad. */
+    @Scheduled(fixedDelayString = "${app.admin-events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendingSince = subscriber.sendingSince;
+            if (sendingSince != 0 && now - sendingSince > SEND_TIMEOUT.toNanos()) {
+                drop(subscriber, "la escritura no avanza");
+            } else {
+                enqueue(subscriber, SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.sender.execute(subscriber.emitter::complete);
+            } catch (RejectedExecutionException ex) {
+                // Ya se estaba cerrando.
+            }
+            subscriber.sender.shutdown();
+        }
+    }
+
+    String eventId(long sequence) {
+        return instanceId + "-" + sequence;
+    }
+
+    /** Lo que se perdio desde {@code lastEventId}, o un {@value #RESET_EVENT}. Se llama con {@code this} tomado. */
+    private List<SseEmitter.SseEventBuilder> missedSince(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            // Conexion nueva: el panel acaba de cargar todo, no hay nada que reenviar.
+            return List.of();
+        }
+        long after = sequenceOf(lastEventId);
+        long oldestKept = Math.max(1, lastSequence - buffer.length + 1);
+        if (after < oldestKept - 1 || after > lastSequence) {
+            return List.of(SseEmitter.event()
+                    .id(eventId(lastSequence))
+                    .name(RESET_EVENT)
+                    .data(Map.of(), MediaType.APPLICATION_JSON));
+        }
+        List<SseEmitter.SseEventBuilder> missed = new ArrayList<>();
+        for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+            missed.add(toSse(buffer[(int) (sequence % buffer.length)]));
+        }
+        return missed;
+    }
+
+    /**
+     * Un cliente que acumula una repeticion completa mas otro buffer de eventos en vivo sin enviar no
+     * se va a poner al dia.
+     */
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.pending.incrementAndGet() > 2 * buffer.length) {
+            drop(subscriber, "demasiados eventos pendientes");
+            return;
+        }
+        try {
+            subscriber.sender.execute(() -> {
+                subscriber.pending.decrementAndGet();
+                send(subscriber, event);
+            });
+        } catch (RejectedExecutionException ex) {
+            // Se cerro mientras tanto; ya no hay a quien mandarle nada.
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        subscriber.sendingSince = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } catch (IOException | IllegalStateException ex) {
+            // El panel se fue; su cliente vuelve a conectar solo con Last-Event-ID.
+            log.debug("Se descarta una conexion del panel: {}", ex.getMessage());
+            subscriber.emitter.completeWithError(ex);
+            release(subscriber);
+        } finally {
+            subscriber.sendingSince = 0;
+        }
+    }
+
+    private void drop(Subscriber subscriber, String reason) {
+        log.info("Se corta una conexion lenta del panel: {}", reason);
+        if (release(subscriber)) {
+            // Interrumpe la escritura trabada, si la hay. El cierre va en otro hilo porque espera a
+            // que esa escritura suelte el emitter, y aca puede estar tomado el candado de los eventos.
+            subscriber.sender.shutdownNow();
+            Thread.ofVirtual().name("admin-events-drop").start(() ->
+                    subscriber.emitter.completeWithError(new IOException("Cliente lento: " + reason)));
+        }
+    }
+
+    /** @return {@code true} solo la primera vez: cada conexion se descuenta una sola vez. */
+    private boolean release(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        connections.decrementAndGet();
+        synchronized (this) {
+            subscribers.remove(subscriber);
+        }
+        subscriber.sender.shutdown();
+        return true;
+    }
+
+    private SseEmitter.SseEventBuilder toSse(Entry entry) {
+        return SseEmitter.event()
+                .id(eventId(entry.sequence()))
+                .name(entry.event().type().eventName())
+                .data(entry.event(), MediaType.APPLICATION_JSON);
+    }
+
+    /** Un id de otro arranque o ilegible se trata como perdido: -1 fuerza el reset. */
+    private long sequenceOf(String lastEventId) {
+        String prefix = instanceId + "-";
+        if (!lastEventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private record Entry(long sequence, OrderActivityEvent event) {
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ExecutorService sender =
+                Executors.newSingleThreadExecutor(Thread.ofVirtual().name("admin-events").factory());
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicInteger pending = new AtomicInteger();
+        /** Cuando empezo la escritura en curso, o 0 si no hay ninguna. */
+        private volatile long sendingSince;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.novedadeslz.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.novedadeslz.backend.dto.response.ApiResponse;
+import com.novedadeslz.backend.dto.response.PageResponse;
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.event.ProductChangedEvent;
+import com.novedadeslz.backend.event.ProductStockChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Primeras paginas del catalogo ya serializadas a JSON, listas para escribirse tal cual.
+ *
+ * <p>La portada de la tienda y la de cada categoria son identicas para todos los visitantes, pero
+ * cada request las volvia a pasar por Jackson. Aca se serializan una vez, se guarda tambien la
+ * version gzip y el controller copia los bytes a la respuesta. Solo cubre la consulta por defecto
+ * (activos, 20 por pagina, mas nuevos primero); cualquier otra combinacion sigue el camino normal.
+ *
+ * <p>Cada pagina se rehace cuando la pide el siguiente visitante despues de descartarse. Se descarta
+ * con los mismos criterios que {@link ProductCatalogCache} y justo despues de ella, para que la
+ * nueva version no se arme con datos que la cache todavia no invalido.
+ *
+ * <p>La categoria llega de la URL, asi que las copias viven en una cache acotada: pedir categorias
+ * inventadas no hace crecer la memoria. Tampoco se guardan paginas vacias, que es lo que devuelve
+ * una categoria que no existe.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+
+    public static final int PAGE_SIZE = 20;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+    /** Clave del catalogo general, que no filtra por categoria. */
+    private static final String ALL_CATEGORIES = "";
+
+    private final ProductService productService;
+    private final JsonMapper jsonMapper;
+    private final int snapshotPages;
+
+    private final Cache<SnapshotKey, Snapshot> snapshots;
+    /** Mismo resguardo que en ProductCatalogCache: no guardar lo que se armo durante una invalidacion. */
+    private final AtomicLong generation = new AtomicLong();
+
+    public CatalogSnapshotService(
+            ProductService productService,
+            JsonMapper jsonMapper,
+            @Value("${app.catalog-snapshot.pages:3}") int snapshotPages,
+            @Value("${app.catalog-snapshot.max-entries:100}") long maxEntries,
+            @Value("${app.catalog-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.jsonMapper = jsonMapper;
+        this.snapshotPages = snapshotPages;
+
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "catalog.snapshots");
+    }
+
+    /** Si la consulta es una de las que se sirven desde una copia serializada. */
+    public boolean covers(String search, Boolean active, int page, int size, String sortBy, String direction) {
+        return (search == null || search.isEmpty())
+                && Boolean.TRUE.equals(active)
+                && page >= 0 && page < snapshotPages
+                && size == PAGE_SIZE
+                && "createdAt".equals(sortBy)
+                && "DESC".equalsIgnoreCase(direction);
+    }
+
+    public Snapshot getSnapshot(String category, int page) {
+        SnapshotKey key = new SnapshotKey(category == null ? ALL_CATEGORIES : category, page);
+        Snapshot snapshot = snapshots.getIfPresent(key);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        long startedAt = generation.get();
+        snapshot = build(key);
+        if (!snapshot.productIds().isEmpty() && generation.get() == startedAt) {
+            snapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    @Order(ProductCatalogCache.EVICTION_ORDER + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        snapshots.asMap().keySet().removeIf(key -> key.category().equals(ALL_CATEGORIES)
+                || event.categories() == null
+                || event.categories().contains(key.category()));
+    }
+
+    @Order(ProductCatalogCache.EVICTION_ORDER + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        generation.incrementAndGet();
+        snapshots.asMap().values().removeIf(snapshot -> event.productIds().stream()
+                .anyMatch(snapshot.productIds()::contains));
+    }
+
+    private Snapshot build(SnapshotKey key) {
+        // La version se lee antes de consultar, como en el ETag de los listados.
+        String version = productService.getCatalogVersion();
+        String category = key.category().equals(ALL_CATEGORIES) ? null : key.category();
+        Page<ProductResponse> page = productService.getAllProducts(
+                category, null, true, PageRequest.of(key.page(), PAGE_SIZE, NEWEST_FIRST));
+
+        byte[] json = jsonMapper.writeValueAsBytes(ApiResponse.success(PageResponse.from(page)));
+        Set<Long> productIds = page.getContent().stream()
+                .map(ProductResponse::getId)
+                .collect(Collectors.toUnmodifiableSet());
+
+        byte[] compressed = gzip(json);
+        log.debug("Catalogo serializado: categoria='{}' pagina={} ({} bytes, {} gzip)",
+                key.category(), key.page(), json.length, compressed.length);
+        return new Snapshot("s-" + version, json, compressed, productIds);
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private record SnapshotKey(String category, int page) {
+    }
+
+    /**
+     * Una pagina lista para enviar.
+     *
+     * @param etag cambia solo cuando se rehace esta pagina, no con cualquier cambio del catalogo:
+     *             la portada de una categoria sigue respondiendo 304 aunque se edite otra.
+     */
+    public record Snapshot(String etag, byte[] json, byte[] gzip, Set<Long> productIds) {
+    }
+}
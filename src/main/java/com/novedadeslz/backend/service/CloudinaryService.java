@@ -10,18 +10,37 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Sube la media de productos y comprobantes a Cloudinary, o al disco local si no hay credenciales.
+ *
+ * <p>Nada de lo subido pasa entero por el heap. Un guardado del admin puede traer 20 imagenes de
+ * 5MB y un video de 50MB, y con {@code getBytes()} todo eso terminaba en memoria a la vez en un
+ * contenedor de 512MB. Las imagenes se copian del multipart a un archivo temporal que el cliente de
+ * Cloudinary envia en streaming; el video va por la subida en partes, que nunca tiene en memoria
+ * mas de {@link #VIDEO_CHUNK_SIZE_BYTES}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CloudinaryService {
     private static final long MAX_VIDEO_SIZE_BYTES = 50L * 1024 * 1024;
+    /** Cloudinary exige al menos 5MB por parte (salvo la ultima). */
+    static final int VIDEO_CHUNK_SIZE_BYTES = 6 * 1024 * 1024;
+    /** Tope de la Admin API para delete_resources. */
+    static final int MAX_PUBLIC_IDS_PER_DELETE = 100;
 
     private final Cloudinary cloudinary;
 
@@ -57,7 +76,7 @@ public class CloudinaryService {
                     "overwrite", false
             );
 
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadOptions);
+            Map uploadResult = uploadFromTempFile(file, uploadOptions);
             String imageUrl = (String) uploadResult.get("secure_url");
 
             log.info("Imagen subida exitosamente a Cloudinary: {}", imageUrl);
@@ -85,7 +104,10 @@ public class CloudinaryService {
                     "overwrite", false
             );
 
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadOptions);
+            Map uploadResult;
+            try (InputStream content = file.getInputStream()) {
+                uploadResult = cloudinary.uploader().uploadLarge(content, uploadOptions, VIDEO_CHUNK_SIZE_BYTES);
+            }
             String videoUrl = (String) uploadResult.get("secure_url");
 
             log.info("Video subido exitosamente a Cloudinary: {}", videoUrl);
@@ -96,6 +118,23 @@ public class CloudinaryService {
         }
     }
 
+    /**
+     * La subida simple de Cloudinary solo envia en streaming desde un {@code File} (no acepta
+     * streams). El multipart ya esta en disco (ver file-size-threshold), pero su ruta no se expone,
+     * asi que se copia con un buffer chico.
+     */
+    private Map uploadFromTempFile(MultipartFile file, Map<String, Object> uploadOptions) throws IOException {
+        Path tempFile = Files.createTempFile("novedadeslz-upload-", getFileExtension(file));
+        try {
+            try (InputStream content = file.getInputStream()) {
+                Files.copy(content, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return cloudinary.uploader().upload(tempFile.toFile(), uploadOptions);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
     public boolean deleteImage(String imageUrl) {
         return deleteMedia(imageUrl);
     }
@@ -138,6 +177,82 @@ public class CloudinaryService {
         }
     }
 
+    /**
+     * Borra varios archivos con una llamada a la Admin API por tipo (hasta 100 por llamada) en vez
+     * de un destroy por archivo. Un archivo que ya no existe cuenta como borrado, igual que una URL
+     * de la que no se puede sacar el public_id: reintentarla no cambiaria nada.
+     *
+     * @return los que no se pudieron borrar, con el motivo; el resto ya no existe
+     */
+    public Map<String, String> deleteMediaBatch(Collection<String> mediaUrls) {
+        Map<String, String> failures = new HashMap<>();
+        Map<String, Map<String, String>> urlsByPublicIdByType = new HashMap<>();
+
+        for (String mediaUrl : mediaUrls) {
+            if (!StringUtils.hasText(mediaUrl)) {
+                continue;
+            }
+
+            if (isLocalUploadUrl(mediaUrl)) {
+                // deleteLocalImage tambien devuelve false si el archivo ya no estaba.
+                if (!deleteLocalImage(mediaUrl) && isExistingLocalUpload(mediaUrl)) {
+                    failures.put(mediaUrl, "No se pudo borrar el archivo local");
+                }
+                continue;
+            }
+
+            String publicId = extractPublicIdFromUrl(mediaUrl);
+            if (publicId == null) {
+                log.warn("No se pudo extraer public_id de la URL, se descarta: {}", mediaUrl);
+                continue;
+            }
+            urlsByPublicIdByType.computeIfAbsent(detectResourceType(mediaUrl), type -> new LinkedHashMap<>())
+                    .put(publicId, mediaUrl);
+        }
+
+        urlsByPublicIdByType.forEach((resourceType, urlsByPublicId) -> {
+            List<String> publicIds = new ArrayList<>(urlsByPublicId.keySet());
+            for (int from = 0; from < publicIds.size(); from += MAX_PUBLIC_IDS_PER_DELETE) {
+                List<String> chunk = publicIds.subList(from, Math.min(from + MAX_PUBLIC_IDS_PER_DELETE, publicIds.size()));
+                deleteResources(resourceType, chunk, urlsByPublicId, failures);
+            }
+        });
+
+        return failures;
+    }
+
+    private void deleteResources(
+            String resourceType,
+            List<String> publicIds,
+            Map<String, String> urlsByPublicId,
+            Map<String, String> failures) {
+
+        Map<?, ?> statuses;
+        try {
+            Map<?, ?> result = cloudinary.api().deleteResources(publicIds, ObjectUtils.asMap("resource_type", resourceType));
+            statuses = result.get("deleted") instanceof Map<?, ?> deleted ? deleted : Map.of();
+        } catch (Exception e) {
+            log.warn("Error al borrar {} archivo(s) de Cloudinary: {}", publicIds.size(), e.getMessage());
+            String reason = truncate(e.getMessage());
+            publicIds.forEach(publicId -> failures.put(urlsByPublicId.get(publicId), reason));
+            return;
+        }
+
+        for (String publicId : publicIds) {
+            Object status = statuses.get(publicId);
+            if (!"deleted".equals(status) && !"not_found".equals(status)) {
+                failures.put(urlsByPublicId.get(publicId), "Cloudinary respondio: " + status);
+            }
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "Error desconocido";
+        }
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
     private String detectResourceType(String mediaUrl) {
         return mediaUrl != null && mediaUrl.contains("/video/upload/") ? "video" : "image";
     }
@@ -219,15 +334,12 @@ public class CloudinaryService {
 
     private boolean deleteLocalImage(String imageUrl) {
         try {
-            int uploadsIndex = imageUrl.indexOf("/uploads/");
-            if (uploadsIndex == -1) {
+            Path filePath = resolveLocalPath(imageUrl);
+            if (filePath == null) {
                 return false;
             }
 
-            String relativePath = imageUrl.substring(uploadsIndex + "/uploads/".length());
             Path uploadRoot = Paths.get(localUploadDir).toAbsolutePath().normalize();
-            Path filePath = uploadRoot.resolve(relativePath).normalize();
-
             if (!filePath.startsWith(uploadRoot)) {
                 log.warn("Se intento eliminar una ruta fuera del directorio de uploads: {}", filePath);
                 return false;
@@ -245,6 +357,23 @@ public class CloudinaryService {
         }
     }
 
+    private Path resolveLocalPath(String imageUrl) {
+        int uploadsIndex = imageUrl.indexOf("/uploads/");
+        if (uploadsIndex == -1) {
+            return null;
+        }
+
+        String relativePath = imageUrl.substring(uploadsIndex + "/uploads/".length());
+        return Paths.get(localUploadDir).toAbsolutePath().normalize().resolve(relativePath).normalize();
+    }
+
+    private boolean isExistingLocalUpload(String imageUrl) {
+        Path filePath = resolveLocalPath(imageUrl);
+        return filePath != null
+                && filePath.startsWith(Paths.get(localUploadDir).toAbsolutePath().normalize())
+                && Files.exists(filePath);
+    }
+
     private boolean isLocalUploadUrl(String imageUrl) {
         return imageUrl.contains("/uploads/");
     }
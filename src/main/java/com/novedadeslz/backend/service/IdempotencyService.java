@@ -0,0 +1,252 @@
+package com.novedadeslz.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.exception.DuplicateResourceException;
+import com.novedadeslz.backend.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Soporte del header {@code Idempotency-Key} en los POST publicos que el cliente reintenta.
+ *
+ * <p>En redes moviles malas la app reintenta el checkout sin saber si el primero llego. Cada
+ * reintento apartaba stock de nuevo y dejaba otro pedido PENDING bloqueando inventario hasta que
+ * lo liberaba la limpieza de abandonados; en el comprobante, cada reintento volvia a pagar OCR y
+ * Cloudinary. Con la clave, el primer request la reserva, guarda su respuesta al terminar y los
+ * reintentos reciben esa misma respuesta sin volver a ejecutar nada.
+ *
+ * <p>La tabla {@code idempotency_keys} es la fuente de verdad y resuelve la carrera entre dos
+ * reintentos simultaneos por su clave primaria. Delante hay una cache en memoria con las
+ * respuestas ya terminadas, asi el reintento tipico ni siquiera consulta Oracle. Sin header todo
+ * sigue como antes.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository repository;
+    private final JsonMapper jsonMapper;
+    private final TransactionTemplate ownTransaction;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final Cache<String, Completed> completed;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository repository,
+            JsonMapper jsonMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${app.idempotency.in-progress-timeout-seconds:120}") long inProgressTimeoutSeconds,
+            @Value("${app.idempotency.cache-size:2000}") long cacheSize) {
+        this.repository = repository;
+        this.jsonMapper = jsonMapper;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.inProgressTimeout = Duration.ofSeconds(inProgressTimeoutSeconds);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency.responses");
+    }
+
+    /**
+     * Ejecuta {@code action} una sola vez por clave. Un reintento con la misma clave y el mismo
+     * contenido recibe la respuesta original; con otro contenido se rechaza, y mientras el primero
+     * sigue en curso recibe un 409 para que vuelva a intentar en unos segundos.
+     *
+     * <p>Si {@code action} falla la clave se libera: el error no se guarda y el reintento vuelve a
+     * ejecutar, igual que si no hubiera clave.
+     *
+     * @param scope operacion, para que la misma clave en dos endpoints no se mezcle
+     * @param idempotencyKey valor del header, o null si el cliente no lo envio
+     */
+    public <T> T execute(
+            String scope,
+            String idempotencyKey,
+            Supplier<String> fingerprint,
+            Class<T> responseType,
+            Supplier<T> action) {
+
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+
+        String requestKey = requestKey(scope, idempotencyKey);
+        String requestFingerprint = fingerprint.get();
+
+        Completed cached = completed.getIfPresent(requestKey);
+        if (cached != null) {
+            return replay(cached, requestFingerprint, responseType);
+        }
+
+        Claim claim = claim(requestKey, requestFingerprint);
+        if (!claim.acquired()) {
+            return replay(claim.existing(), requestFingerprint, responseType);
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(requestKey);
+            throw e;
+        }
+
+        store(requestKey, requestFingerprint, response);
+        return response;
+    }
+
+    /** Huella de un cuerpo JSON: la misma clave con otro carrito no debe devolver el pedido anterior. */
+    public String fingerprintOf(Object requestBody) {
+        return HexFormat.of().formatHex(sha256().digest(jsonMapper.writeValueAsBytes(requestBody)));
+    }
+
+    /**
+     * Huella de una subida. Se lee el archivo como stream (ya esta en disco), sin cargarlo entero
+     * en memoria. {@code extra} distingue, por ejemplo, el token con que se hizo la subida.
+     */
+    public String fingerprintOf(MultipartFile file, String... extra) {
+        MessageDigest digest = sha256();
+        for (String value : extra) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        try (InputStream content = file.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("No pudimos leer el archivo enviado. Intenta nuevamente.");
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** Las filas vencidas ya no protegen nada; se borran para que la tabla no crezca sin tope. */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}", initialDelay = 300_000)
+    @Transactional
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Se borraron {} claves de idempotencia vencidas", deleted);
+        }
+    }
+
+    private String requestKey(String scope, String idempotencyKey) {
+        String key = idempotencyKey.trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH || !key.chars().allMatch(c -> c > 0x20 && c < 0x7f)) {
+            throw new BadRequestException(
+                    "El header " + HEADER + " debe tener entre 1 y " + MAX_KEY_LENGTH
+                            + " caracteres visibles, por ejemplo un UUID.");
+        }
+        return scope + ":" + key;
+    }
+
+    private Claim claim(String requestKey, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            ownTransaction.executeWithoutResult(status ->
+                    repository.claim(requestKey, fingerprint, now, now.plus(ttl)));
+            return Claim.ACQUIRED;
+        } catch (DataIntegrityViolationException e) {
+            // Ya hay una fila con esta clave: un intento previo, terminado o en curso.
+        }
+
+        return ownTransaction.execute(status -> {
+            if (repository.takeOver(requestKey, fingerprint, now, now.plus(ttl), now.minus(inProgressTimeout)) == 1) {
+                return Claim.ACQUIRED;
+            }
+            return repository.findById(requestKey)
+                    .map(record -> new Claim(new Completed(record.getFingerprint(), record.getResponseBody())))
+                    // El intento previo fallo y libero la clave justo ahora: que el cliente reintente.
+                    .orElseGet(() -> new Claim(new Completed(fingerprint, null)));
+        });
+    }
+
+    private <T> T replay(Completed previous, String fingerprint, Class<T> responseType) {
+        if (!previous.fingerprint().equals(fingerprint)) {
+            throw new BadRequestException(
+                    "Esta " + HEADER + " ya se uso con otra solicitud. Genera una clave nueva para cada operacion.");
+        }
+        if (previous.responseBody() == null) {
+            throw new DuplicateResourceException(
+                    "Tu solicitud anterior todavia se esta procesando. Espera unos segundos y vuelve a intentar.");
+        }
+        return jsonMapper.readValue(previous.responseBody(), responseType);
+    }
+
+    /**
+     * La respuesta se guarda primero en memoria: si Oracle falla justo aca, los reintentos a esta
+     * instancia igual reciben la respuesta, y en la tabla la clave queda a medias hasta vencer el
+     * plazo de {@code in-progress-timeout-seconds}.
+     */
+    private void store(String requestKey, String fingerprint, Object response) {
+        String body = jsonMapper.writeValueAsString(response);
+        completed.put(requestKey, new Completed(fingerprint, body));
+        try {
+            ownTransaction.executeWithoutResult(status -> repository.complete(requestKey, body));
+        } catch (RuntimeException e) {
+            log.error("No se pudo guardar la respuesta de la clave de idempotencia {}", requestKey, e);
+        }
+    }
+
+    private void release(String requestKey) {
+        try {
+            ownTransaction.executeWithoutResult(status -> repository.release(requestKey));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo liberar la clave de idempotencia {}; se liberara al vencer", requestKey, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record Completed(String fingerprint, String responseBody) {
+    }
+
+    /** {@code existing} es el intento previo cuando la clave ya estaba tomada. */
+    private record Claim(Completed existing) {
+
+        static final Claim ACQUIRED = new Claim(null);
+
+        boolean acquired() {
+            return existing == null;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.model.MediaDeletion;
+import com.novedadeslz.backend.repository.MediaDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola persistida de archivos por borrar del almacenamiento de media.
+ *
+ * <p>Antes cada edicion o baja de producto llamaba a Cloudinary dentro del request, un archivo a
+ * la vez: el admin esperaba esas llamadas y, si alguna fallaba, el archivo quedaba huerfano con un
+ * warning en el log. Ahora el request solo anota las URLs en {@code media_deletions} y un proceso
+ * en segundo plano las borra por lotes, reintentando con espera creciente hasta que Cloudinary
+ * confirme. Un archivo que sigue fallando despues de {@code max-attempts} intentos (un public id que
+ * Cloudinary nunca va a aceptar, por ejemplo) se marca como abandonado y queda en la tabla para
+ * revisarlo a mano, en vez de reintentarse para siempre.
+ *
+ * <p>Hay dos formas de anotar, segun si el archivo todavia puede volver a usarse:
+ * <ul>
+ *   <li>{@link #deleteAfterCommit}: el archivo deja de estar referenciado por la escritura en
+ *       curso. Se anota en la misma transaccion; si esta se revierte, el archivo sigue en uso y no
+ *       debe borrarse.</li>
+ *   <li>{@link #deleteOrphans}: archivos recien subidos cuyo guardado fallo. Nunca van a quedar
+ *       referenciados, asi que se anotan en una transaccion propia que no depende de la que falla.</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class MediaDeletionService {
+
+    private final MediaDeletionRepository mediaDeletionRepository;
+    private final CloudinaryService cloudinaryService;
+    private final TransactionTemplate ownTransaction;
+    private final int batchSize;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+
+    private final Counter deletedCounter;
+    private final Counter failedCounter;
+    private final Counter abandonedCounter;
+    private final AtomicLong pending = new AtomicLong();
+
+    public MediaDeletionService(
+            MediaDeletionRepository mediaDeletionRepository,
+            CloudinaryService cloudinaryService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.media-deletion.batch-size:50}") int batchSize,
+            @Value("${app.media-deletion.initial-backoff-seconds:60}") long initialBackoffSeconds,
+            @Value("${app.media-deletion.max-backoff-hours:6}") long maxBackoffHours,
+            @Value("${app.media-deletion.max-attempts:12}") int maxAttempts) {
+        this.mediaDeletionRepository = mediaDeletionRepository;
+        this.cloudinaryService = cloudinaryService;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = Math.min(Math.max(batchSize, 1), CloudinaryService.MAX_PUBLIC_IDS_PER_DELETE);
+        this.initialBackoff = Duration.ofSeconds(initialBackoffSeconds);
+        this.maxBackoff = Duration.ofHours(maxBackoffHours);
+        this.maxAttempts = maxAttempts;
+
+        this.deletedCounter = Counter.builder("media.deletions")
+                .description("Archivos borrados del almacenamiento de media")
+                .tag("result", "deleted")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("media.deletions")
+                .description("Intentos de borrado que fallaron y se reintentaran")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.abandonedCounter = Counter.builder("media.deletions")
+                .description("Archivos que agotaron los intentos y ya no se reintentan")
+                .tag("result", "abandoned")
+                .register(meterRegistry);
+        Gauge.builder("media.deletions.pending", pending, AtomicLong::get)
+                .description("Archivos en cola al terminar la ultima pasada")
+                .register(meterRegistry);
+    }
+
+    /** Exige una transaccion en curso: sin ella no hay commit del que depender. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteAfterCommit(Collection<String> mediaUrls) {
+        enqueue(mediaUrls);
+    }
+
+    /**
+     * Si ni siquiera se puede anotar (la base es justamente lo que fallo), se intenta borrar en el
+     * momento como se hacia antes: mejor eso que dejar el archivo sin rastro.
+     *
+     * <p>La transaccion propia va con {@link TransactionTemplate} y no con {@code REQUIRES_NEW} en
+     * la anotacion: si el guardado falla, la anotacion igual intentaria el commit al salir y
+     * terminaria en UnexpectedRollbackException para quien llama.
+     */
+    public void deleteOrphans(Collection<String> mediaUrls) {
+        try {
+            ownTransaction.executeWithoutResult(status -> enqueue(mediaUrls));
+        } catch (RuntimeException e) {
+            log.error("No se pudo encolar el borrado de {} archivo(s) huerfano(s); se borran ahora",
+                    mediaUrls.size(), e);
+            cloudinaryService.deleteMediaBatch(mediaUrls).forEach((url, reason) ->
+                    log.warn("Archivo huerfano sin borrar: {} ({})", url, reason));
+        }
+    }
+
+    private void enqueue(Collection<String> mediaUrls) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MediaDeletion> deletions = mediaUrls.stream()
+                .filter(StringUtils::hasText)
+                .distinct()
+                .map(url -> MediaDeletion.builder().url(url).nextAttemptAt(now).build())
+                .toList();
+        if (!deletions.isEmpty()) {
+            mediaDeletionRepository.saveAll(deletions);
+        }
+    }
+
+    /**
+     * Sin transaccion a proposito: las llamadas a Cloudinary no deben retener una conexion del pool.
+     * Cada lectura y escritura de la cola abre la suya, corta.
+     *
+     * <p>Corre en un solo contenedor, asi que no hace falta bloquear filas entre instancias.
+     */
+    @Scheduled(fixedDelayString = "${app.media-deletion.poll-delay-ms:30000}", initialDelay = 60_000)
+    public void processDue() {
+        List<MediaDeletion> due;
+        do {
+            due = mediaDeletionRepository.findByAbandonedAtIsNullAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                    LocalDateTime.now(), Limit.of(batchSize));
+            if (!due.isEmpty()) {
+                process(due);
+            }
+            // Si el lote vino lleno puede haber mas pendientes; los fallidos ya se corrieron al futuro
+            // o quedaron abandonados.
+        } while (due.size() == batchSize);
+
+        pending.set(mediaDeletionRepository.countByAbandonedAtIsNull());
+    }
+
+    private void process(List<MediaDeletion> due) {
+        Map<String, String> failures = cloudinaryService.deleteMediaBatch(
+                due.stream().map(MediaDeletion::getUrl).toList());
+
+        List<MediaDeletion> done = due.stream()
+                .filter(deletion -> !failures.containsKey(deletion.getUrl()))
+                .toList();
+        List<MediaDeletion> retry = due.stream()
+                .filter(deletion -> failures.containsKey(deletion.getUrl()))
+                .toList();
+
+        LocalDateTime now = LocalDateTime.now();
+        int abandoned = 0;
+        for (MediaDeletion deletion : retry) {
+            deletion.setAttempts(deletion.getAttempts() + 1);
+            deletion.setLastError(failures.get(deletion.getUrl()));
+            deletion.setNextAttemptAt(now.plus(backoff(deletion.getAttempts())));
+            if (deletion.getAttempts() >= maxAttempts) {
+                deletion.setAbandonedAt(now);
+                abandoned++;
+                log.error("Se deja de reintentar el borrado de {} tras {} intentos: {}",
+                        deletion.getUrl(), deletion.getAttempts(), deletion.getLastError());
+            }
+        }
+
+        if (!done.isEmpty()) {
+            mediaDeletionRepository.deleteAllInBatch(done);
+        }
+        if (!retry.isEmpty()) {
+            mediaDeletionRepository.saveAll(retry);
+        }
+        if (retry.size() > abandoned) {
+            log.warn("{} archivo(s) no se pudieron borrar y se reintentaran", retry.size() - abandoned);
+        }
+
+        deletedCounter.increment(done.size());
+        failedCounter.increment(retry.size() - abandoned);
+        abandonedCounter.increment(abandoned);
+    }
+
+    /** 1 min, 2 min, 4 min... hasta el tope: un Cloudinary caido no se consulta cada 30 segundos. */
+    Duration backoff(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration delay = initialBackoff.multipliedBy(1L << exponent);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
@@ -15,7 +15,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.Base64;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -77,24 +76,24 @@ public class OcrService {
             throw new IOException("OCR no configurado. Falta OCR_SPACE_API_KEY");
         }
 
-        // Convertir imagen a Base64
-        String base64Image = Base64.getEncoder().encodeToString(imageFile.getBytes());
-        String base64WithPrefix = "data:image/" + getImageFormat(imageFile.getOriginalFilename()) + ";base64," + base64Image;
-
-        // Preparar request para OCR.space
+        // Se envia el archivo como parte multipart en vez de base64 en un formulario: el base64
+        // obligaba a tener la imagen en memoria tres veces (bytes, texto y cuerpo codificado). Asi
+        // RestTemplate la copia del multipart al socket sin cargarla entera.
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
         headers.set("apikey", ocrApiKey);
 
-        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-        body.add("base64Image", base64WithPrefix);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", imageFile.getResource());
+        // OCR.space detecta el tipo por la extension; el nombre que manda el celular no siempre la trae.
+        body.add("filetype", getImageFormat(imageFile.getOriginalFilename()));
         body.add("language", "spa"); // Español
         body.add("isOverlayRequired", "false");
         body.add("detectOrientation", "true");
         body.add("scale", "true");
         body.add("OCREngine", "2"); // Engine 2 es mejor para capturas de pantalla
 
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
+        HttpEntity<MultiValueMap<String, Object>> request = new HttpEntity<>(body, headers);
 
         try {
             // Llamar a OCR.space API
@@ -358,20 +357,21 @@ public class OcrService {
     }
 
     /**
-     * Obtiene el formato de imagen desde el nombre del archivo
+     * Obtiene el formato de imagen desde el nombre del archivo, con los valores que acepta el
+     * parametro filetype de OCR.space
      */
     private String getImageFormat(String filename) {
         if (filename == null) {
-            return "jpeg";
+            return "JPG";
         }
 
         String extension = filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
         return switch (extension) {
-            case "png" -> "png";
-            case "gif" -> "gif";
-            case "bmp" -> "bmp";
-            case "tiff", "tif" -> "tiff";
-            default -> "jpeg";
+            case "png" -> "PNG";
+            case "gif" -> "GIF";
+            case "bmp" -> "BMP";
+            case "tiff", "tif" -> "TIF";
+            default -> "JPG";
         };
     }
 
@@ -0,0 +1,384 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.model.Order;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Exportacion de pedidos con sus items para contabilidad, escrita directo a la respuesta.
+ *
+ * <p>Hasta ahora la unica forma de sacar el historial era pedir {@code GET /api/orders} con paginas
+ * enormes: entidades, DTOs y la pagina entera en memoria, en un contenedor de 512MB. Aca se recorre
+ * un cursor JDBC de solo avance sobre pedidos unidos a sus items y cada fila se escribe apenas se
+ * lee; en memoria solo queda el pedido en curso, sea cual sea el rango.
+ *
+ * <p>La consulta mantiene una conexion del pool mientras dura la descarga. Con rangos grandes
+ * Hikari puede avisar de una posible fuga (leak-detection-threshold); es esperable y se libera al
+ * terminar.
+ */
+@Service
+public class OrderExportService {
+
+    /** Filas por viaje a Oracle. El driver trae 10 por defecto: una exportacion eran miles de viajes. */
+    static final int FETCH_SIZE = 500;
+
+    private static final String SELECT_SQL = "SELECT o.id, o.order_number, o.created_at, o.status, "
+            + "o.customer_name, o.customer_phone, o.customer_email, o.payment_method, o.operation_number, o.total, "
+            + "i.product_id, i.product_name, i.quantity, i.unit_price, i.subtotal "
+            + "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id";
+    /** El id desempata pedidos del mismo instante y mantiene juntos los items de cada uno. */
+    private static final String ORDER_BY_SQL = " ORDER BY o.created_at, o.id, i.id";
+
+    private static final String[] CSV_HEADER = {
+            "pedido", "fecha", "estado", "cliente", "telefono", "email", "metodo_pago", "numero_operacion",
+            "total_pedido", "producto_id", "producto", "cantidad", "precio_unitario", "subtotal"
+    };
+    /** Excel interpreta como formula lo que empieza asi; un nombre como "=HYPERLINK(...)" se ejecutaria. */
+    private static final Pattern FORMULA_START = Pattern.compile("^[=+\\-@\\t\\r].*", Pattern.DOTALL);
+    /** Telefonos y montos negativos empiezan con + o - y no son formulas. */
+    private static final Pattern PLAIN_NUMBER = Pattern.compile("[+-]?[\\d\\s().]+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+
+    public OrderExportService(DataSource dataSource, JsonMapper jsonMapper) {
+        // Propio y no el compartido: el fetch size solo tiene sentido para esta consulta.
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.jsonMapper = jsonMapper;
+    }
+
+    public enum Format {
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            if (!StringUtils.hasText(value)) {
+                return CSV;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("Formato de exportacion no valido: " + value);
+            }
+        }
+    }
+
+    /**
+     * Escribe los pedidos del rango en {@code output}, del mas antiguo al mas nuevo. No cierra el
+     * stream: es la respuesta HTTP y la cierra el contenedor.
+     */
+    public void export(
+            Format format,
+            Order.OrderStatus status,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            OutputStream output) throws IOException {
+
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        // Mismos limites inclusivos que el listado (OrderSpecifications.createdBetween).
+        if (status != null) {
+            conditions.add("o.status = ?");
+            args.add(status.name());
+        }
+        if (startDate != null) {
+            conditions.add("o.created_at >= ?");
+            args.add(startDate);
+        }
+        if (endDate != null) {
+            conditions.add("o.created_at <= ?");
+            args.add(endDate);
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(ORDER_BY_SQL);
+
+        RowWriter writer = format == Format.NDJSON ? new NdjsonRowWriter(output) : new CsvRowWriter(output);
+        OrderRowHandler rows = new OrderRowHandler(writer);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                for (int i = 0; i < args.size(); i++) {
+                    statement.setObject(i + 1, args.get(i));
+                }
+                return statement;
+            }, rows::processRow);
+            rows.close();
+            writer.finish();
+        } catch (UncheckedIOException ex) {
+            // Tipicamente el cliente cancelo la descarga; el cursor ya se cerro al salir de query().
+            throw ex.getCause();
+        }
+    }
+
+    record ExportedOrder(
+            Long id,
+            String orderNumber,
+            LocalDateTime createdAt,
+            String status,
+            String customerName,
+            String customerPhone,
+            String customerEmail,
+            String paymentMethod,
+            String operationNumber,
+            BigDecimal total) {
+    }
+
+    record ExportedItem(Long productId, String productName, Integer quantity, BigDecimal unitPrice, BigDecimal subtotal) {
+    }
+
+    /** Cada formato recibe el pedido y despues sus items, en el orden en que salen del cursor. */
+    private interface RowWriter {
+
+        void startOrder(ExportedOrder order) throws IOException;
+
+        void item(ExportedOrder order, ExportedItem item) throws IOException;
+
+        void endOrder(ExportedOrder order, boolean hadItems) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /** Detecta donde empieza cada pedido: las filas llegan agrupadas por el ORDER BY. */
+    private static final class OrderRowHandler {
+
+        private final RowWriter writer;
+        private ExportedOrder current;
+        private boolean currentHasItems;
+
+        private OrderRowHandler(RowWriter writer) {
+            this.writer = writer;
+        }
+
+        void processRow(ResultSet rs) throws SQLException {
+            try {
+                long orderId = rs.getLong("id");
+                if (current == null || current.id() != orderId) {
+                    if (current != null) {
+                        writer.endOrder(current, currentHasItems);
+                    }
+                    current = readOrder(rs);
+                    currentHasItems = false;
+                    writer.startOrder(current);
+                }
+                long productId = rs.getLong("product_id");
+                if (!rs.wasNull()) {
+                    currentHasItems = true;
+                    writer.item(current, new ExportedItem(
+                            productId,
+                            rs.getString("product_name"),
+                            rs.getInt("quantity"),
+                            rs.getBigDecimal("unit_price"),
+                            rs.getBigDecimal("subtotal")));
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private static ExportedOrder readOrder(ResultSet rs) throws SQLException {
+            return new ExportedOrder(
+                    rs.getLong("id"),
+                    rs.getString("order_number"),
+                    rs.getObject("created_at", LocalDateTime.class),
+                    rs.getString("status"),
+                    rs.getString("customer_name"),
+                    rs.getString("customer_phone"),
+                    rs.getString("customer_email"),
+                    rs.getString("payment_method"),
+                    rs.getString("operation_number"),
+                    rs.getBigDecimal("total"));
+        }
+
+        /** El ultimo pedido no tiene una fila siguiente que lo cierre. */
+        void close() throws IOException {
+            if (current != null) {
+                writer.endOrder(current, currentHasItems);
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Una linea por item con los datos del pedido repetidos, que es lo que una planilla sabe
+     * filtrar y sumar. Un pedido sin items sale igual, con las columnas del item vacias.
+     */
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer out;
+
+        private CsvRowWriter(OutputStream output) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            // BOM: sin el, Excel abre el archivo como Latin-1 y rompe las tildes de los nombres.
+            out.write('\uFEFF');
+            writeLine(CSV_HEADER);
+        }
+
+        @Override
+        public void startOrder(ExportedOrder order) {
+        }
+
+        @Override
+        public void item(ExportedOrder order, ExportedItem item) throws IOException {
+            writeLine(order, item);
+        }
+
+        @Override
+        public void endOrder(ExportedOrder order, boolean hadItems) throws IOException {
+            if (!hadItems) {
+                writeLine(order, null);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        private void writeLine(ExportedOrder order, ExportedItem item) throws IOException {
+            writeLine(
+                    order.orderNumber(),
+                    text(order.createdAt()),
+                    order.status(),
+                    order.customerName(),
+                    order.customerPhone(),
+                    order.customerEmail(),
+                    order.paymentMethod(),
+                    order.operationNumber(),
+                    text(order.total()),
+                    item == null ? null : text(item.productId()),
+                    item == null ? null : item.productName(),
+                    item == null ? null : text(item.quantity()),
+                    item == null ? null : text(item.unitPrice()),
+                    item == null ? null : text(item.subtotal()));
+        }
+
+        private void writeLine(String... cells) throws IOException {
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(csvCell(cells[i]));
+            }
+            out.write("\r\n");
+        }
+
+        private static String text(Object value) {
+            if (value instanceof BigDecimal decimal) {
+                return decimal.toPlainString();
+            }
+            return value == null ? null : value.toString();
+        }
+    }
+
+    /** Un objeto por pedido y por linea; los items se escriben dentro a medida que llegan. */
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator json;
+
+        private NdjsonRowWriter(OutputStream output) {
+            this.json = jsonMapper.writer()
+                    .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                    // Cada objeto termina con su propio salto de linea.
+                    .withRootValueSeparator("")
+                    .createGenerator(output);
+        }
+
+        @Override
+        public void startOrder(ExportedOrder order) {
+            json.writeStartObject();
+            json.writeNumberProperty("id", order.id());
+            json.writeStringProperty("orderNumber", order.orderNumber());
+            json.writeStringProperty("createdAt", order.createdAt() == null ? null : order.createdAt().toString());
+            json.writeStringProperty("status", order.status());
+            json.writeStringProperty("customerName", order.customerName());
+            json.writeStringProperty("customerPhone", order.customerPhone());
+            json.writeStringProperty("customerEmail", order.customerEmail());
+            json.writeStringProperty("paymentMethod", order.paymentMethod());
+            json.writeStringProperty("operationNumber", order.operationNumber());
+            json.writeNumberProperty("total", order.total());
+            json.writeName("items");
+            json.writeStartArray();
+        }
+
+        @Override
+        public void item(ExportedOrder order, ExportedItem item) {
+            json.writeStartObject();
+            json.writeNumberProperty("productId", item.productId());
+            json.writeStringProperty("productName", item.productName());
+            json.writeNumberProperty("quantity", item.quantity());
+            json.writeNumberProperty("unitPrice", item.unitPrice());
+            json.writeNumberProperty("subtotal", item.subtotal());
+            json.writeEndObject();
+        }
+
+        @Override
+        public void endOrder(ExportedOrder order, boolean hadItems) {
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() {
+            json.close();
+        }
+    }
+
+    static String csvCell(String value) {
+        if (value == null) {
+            return "";
+        }
+        String cell = FORMULA_START.matcher(value).matches() && !PLAIN_NUMBER.matcher(value).matches()
+                ? "'" + value
+                : value;
+        if (cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0 || cell.indexOf('\r') >= 0) {
+            return '"' + cell.replace("\"", "\"\"") + '"';
+        }
+        return cell;
+    }
+}
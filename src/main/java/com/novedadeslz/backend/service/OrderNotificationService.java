@@ -1,12 +1,15 @@
 package com.novedadeslz.backend.service;
 
+import com.novedadeslz.backend.event.OrderChangedEvent;
 import com.novedadeslz.backend.model.Order;
 import com.novedadeslz.backend.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Aisla el envio de notificaciones de pedidos del resto de la logica.
@@ -27,6 +30,7 @@ public class OrderNotificationService {
 
     private final OrderRepository orderRepository;
     private final WhatsAppNotificationService whatsAppNotificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * @return true si el proveedor acepto el mensaje
@@ -48,11 +52,13 @@ public class OrderNotificationService {
         return sent;
     }
 
+    /** El rastreo muestra {@code whatsappSent}: su copia se descarta una vez que el save ya commiteo. */
     private void recordNotificationResult(Long orderId, boolean sent) {
         orderRepository.findById(orderId).ifPresent(order -> {
             if (!Boolean.valueOf(sent).equals(order.getWhatsappSent())) {
                 order.setWhatsappSent(sent);
                 orderRepository.save(order);
+                eventPublisher.publishEvent(new OrderChangedEvent(Set.of(orderId)));
             }
         });
     }
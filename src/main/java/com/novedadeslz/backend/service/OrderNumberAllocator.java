@@ -0,0 +1,95 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.repository.OrderNumberCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * Entrega los numeros de pedido {@code ORD-yyyyMMdd-NNNN}, correlativos por dia.
+ *
+ * <p>Antes el numero salia de un {@code COUNT(*) + 1} con LIKE sobre los pedidos del dia: recorria
+ * todo el dia en cada checkout y dos checkouts simultaneos obtenian el mismo numero, asi que el
+ * pedido se reintentaba entero. Ahora cada dia tiene una fila en {@code order_number_counters} que
+ * se incrementa con un UPDATE por clave primaria: la base serializa a los que llegan a la vez y
+ * nadie repite numero.
+ *
+ * <p>Se asigna en una transaccion propia, corta, antes de la del pedido. Si el pedido luego falla
+ * su numero queda sin usar; un hueco en la secuencia es preferible a retener el bloqueo de la fila
+ * mientras se reserva stock.
+ *
+ * <p>El formato tiene cuatro digitos y el cliente lo escribe en el rastreo, asi que no se pasa de
+ * {@value #MAX_ORDERS_PER_DAY} por dia en vez de agregar un quinto digito o volver a empezar.
+ */
+@Service
+@Slf4j
+public class OrderNumberAllocator {
+
+    static final int MAX_ORDERS_PER_DAY = 9999;
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final OrderNumberCounterRepository counterRepository;
+    private final TransactionTemplate ownTransaction;
+
+    public OrderNumberAllocator(
+            OrderNumberCounterRepository counterRepository,
+            PlatformTransactionManager transactionManager) {
+        this.counterRepository = counterRepository;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public String next() {
+        return next(LocalDate.now());
+    }
+
+    String next(LocalDate date) {
+        String day = date.format(DAY_FORMAT);
+        Integer value;
+        try {
+            value = ownTransaction.execute(status -> allocate(day));
+        } catch (DataIntegrityViolationException e) {
+            // Otro checkout creo la fila del dia entre nuestro UPDATE y nuestro INSERT. Ya existe,
+            // asi que el segundo intento la incrementa.
+            value = ownTransaction.execute(status -> allocate(day));
+        }
+        return String.format("ORD-%s-%04d", day, value);
+    }
+
+    private int allocate(String day) {
+        if (counterRepository.increment(day, MAX_ORDERS_PER_DAY) == 1) {
+            return currentValue(day);
+        }
+
+        Optional<Integer> lastValue = counterRepository.findLastValue(day);
+        if (lastValue.isEmpty()) {
+            counterRepository.createStartingAfterExistingOrders(day, "ORD-" + day + "-%");
+            int first = currentValue(day);
+            if (first <= MAX_ORDERS_PER_DAY) {
+                return first;
+            }
+        } else if (lastValue.get() < MAX_ORDERS_PER_DAY
+                && counterRepository.increment(day, MAX_ORDERS_PER_DAY) == 1) {
+            // Otro checkout creo la fila del dia justo despues de nuestro primer UPDATE.
+            return currentValue(day);
+        }
+
+        log.error("Se alcanzo el maximo de {} pedidos para el dia {}", MAX_ORDERS_PER_DAY, day);
+        throw new BadRequestException(
+                "Hoy ya no podemos registrar mas pedidos por la web. Escribenos por WhatsApp para completar tu compra."
+        );
+    }
+
+    private int currentValue(String day) {
+        return counterRepository.findLastValue(day)
+                .orElseThrow(() -> new IllegalStateException("Falta el contador de pedidos del dia " + day));
+    }
+}
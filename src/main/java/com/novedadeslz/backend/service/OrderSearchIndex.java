@@ -0,0 +1,196 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderSearchTerm;
+import com.novedadeslz.backend.repository.OrderRepository;
+import com.novedadeslz.backend.repository.OrderSearchTermRepository;
+import com.novedadeslz.backend.repository.OrderSpecifications;
+import com.novedadeslz.backend.repository.OrderSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Busqueda de pedidos del panel sobre terminos persistidos en {@code order_search_terms}.
+ *
+ * <p>La busqueda anterior era {@code LIKE '%x%'} sobre numero, nombre y telefono. Ningun indice
+ * sirve para un comodin al inicio, asi que cada busqueda recorria la tabla de pedidos entera. A
+ * diferencia del catalogo ({@link ProductSearchIndex}), los pedidos crecen sin tope y no conviene
+ * tenerlos en memoria: cada pedido guarda al crearse los terminos por los que se lo puede
+ * encontrar, y buscar es un {@code LIKE 'x%'}, un rango sobre el indice de terminos. La busqueda es
+ * un filtro mas del listado y se combina con el resto (ver {@code OrderSpecifications}).
+ *
+ * <p>Para que un prefijo alcance se guarda cada sufijo que empieza en una palabra: "Maria del
+ * Carmen" guarda "maria del carmen", "del carmen" y "carmen"; ORD-20260725-0002 guarda tambien
+ * "20260725-0002" y "0002". El telefono va ademas con los digitos al reves, asi buscar por los
+ * ultimos digitos tambien es un prefijo. Frente al LIKE anterior solo se pierde encontrar un
+ * pedazo del medio de una palabra ("ria" ya no encuentra "Maria").
+ */
+@Component
+@Slf4j
+public class OrderSearchIndex {
+
+    static final int BACKFILL_BATCH_SIZE = 500;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    /** El guion se conserva: separa las partes del numero de pedido. */
+    private static final Pattern NON_TERM = Pattern.compile("[^a-z0-9-]+");
+    private static final Pattern NON_DIGIT = Pattern.compile("\\D+");
+    /** Sin guion: "20260725-0002" es un numero de pedido, no un telefono. */
+    private static final Pattern PHONE_QUERY = Pattern.compile("[\\d\\s+()]+");
+    /** Numero local peruano, sin el codigo de pais. */
+    private static final int LOCAL_PHONE_DIGITS = 9;
+
+    private final OrderRepository orderRepository;
+    private final OrderSearchTermRepository termRepository;
+    private final TransactionTemplate ownTransaction;
+
+    public OrderSearchIndex(
+            OrderRepository orderRepository,
+            OrderSearchTermRepository termRepository,
+            PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.termRepository = termRepository;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Se llama dentro de la transaccion que crea el pedido: o quedan ambos o ninguno. */
+    public void index(Order order) {
+        termRepository.saveAll(termsOf(order.getId(), order.getOrderNumber(),
+                order.getCustomerName(), order.getCustomerPhone()));
+    }
+
+    public void remove(Long orderId) {
+        termRepository.deleteByOrderId(orderId);
+    }
+
+    /** Filtro de los pedidos que coinciden con la busqueda, para combinar con los demas del listado. */
+    public Specification<Order> matching(String query) {
+        String text = normalize(query);
+        if (text.isEmpty()) {
+            return OrderSpecifications.none();
+        }
+
+        String digits = NON_DIGIT.matcher(query).replaceAll("");
+        if (digits.isEmpty() || !PHONE_QUERY.matcher(query).matches()) {
+            // "maria 2" u "ORD-2026" no son telefonos: sus digitos no se buscan al final de uno.
+            return OrderSpecifications.hasSearchTerm(text + "%", null);
+        }
+        // "+51 987 333" se busca como se guardo el telefono, sin espacios ni signos.
+        return OrderSpecifications.hasSearchTerm(digits + "%", reverse(digits) + "%");
+    }
+
+    /**
+     * Indexa los pedidos anteriores a la tabla de terminos, de a lotes y cada uno en su propia
+     * transaccion. Despues del primer arranque no encuentra nada y termina con una sola consulta.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexMissing() {
+        long indexed = 0;
+        List<Long> orderIds;
+        do {
+            orderIds = orderRepository.findIdsWithoutSearchTerms(Limit.of(BACKFILL_BATCH_SIZE));
+            if (orderIds.isEmpty()) {
+                break;
+            }
+            List<Long> batch = orderIds;
+            try {
+                ownTransaction.executeWithoutResult(status -> {
+                    List<OrderSearchTerm> terms = new ArrayList<>();
+                    for (OrderSummary order : orderRepository.findSummariesByIdIn(batch)) {
+                        terms.addAll(termsOf(order.getId(), order.getOrderNumber(),
+                                order.getCustomerName(), order.getCustomerPhone()));
+                    }
+                    termRepository.saveAll(terms);
+                });
+            } catch (RuntimeException e) {
+                // Esos pedidos no aparecen en la busqueda hasta el proximo arranque.
+                log.error("No se pudo indexar un lote de {} pedido(s) para la busqueda", batch.size(), e);
+                break;
+            }
+            indexed += batch.size();
+        } while (orderIds.size() == BACKFILL_BATCH_SIZE);
+
+        if (indexed > 0) {
+            log.info("Se indexaron {} pedido(s) anteriores para la busqueda", indexed);
+        }
+    }
+
+    static List<OrderSearchTerm> termsOf(Long orderId, String orderNumber, String customerName, String customerPhone) {
+        Set<String> text = new LinkedHashSet<>();
+        text.addAll(wordSuffixes(normalize(customerName), ' '));
+        text.addAll(wordSuffixes(normalize(orderNumber), '-'));
+
+        String digits = customerPhone == null ? "" : NON_DIGIT.matcher(customerPhone).replaceAll("");
+        if (!digits.isEmpty()) {
+            text.add(digits);
+            // Con o sin +51: el admin suele escribir solo el numero local.
+            text.add(digits.length() > LOCAL_PHONE_DIGITS ? digits.substring(digits.length() - LOCAL_PHONE_DIGITS) : digits);
+        }
+
+        List<OrderSearchTerm> terms = new ArrayList<>();
+        for (String term : text) {
+            terms.add(term(orderId, OrderSearchTerm.Kind.TEXT, term));
+        }
+        if (!digits.isEmpty()) {
+            terms.add(term(orderId, OrderSearchTerm.Kind.PHONE, reverse(digits)));
+        }
+        return terms;
+    }
+
+    /** Minusculas, sin tildes y con un solo espacio entre palabras. Sin '%' ni '_' para el LIKE. */
+    static String normalize(String value) {
+        if (!StringUtils.hasText(value)) {
+            return "";
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return NON_TERM.matcher(folded).replaceAll(" ").trim();
+    }
+
+    private static List<String> wordSuffixes(String value, char separator) {
+        List<String> suffixes = new ArrayList<>();
+        if (value.isEmpty()) {
+            return suffixes;
+        }
+        suffixes.add(value);
+        for (int i = value.indexOf(separator); i >= 0; i = value.indexOf(separator, i + 1)) {
+            String suffix = value.substring(i + 1).trim();
+            if (!suffix.isEmpty()) {
+                suffixes.add(suffix);
+            }
+        }
+        return suffixes;
+    }
+
+    private static OrderSearchTerm term(Long orderId, OrderSearchTerm.Kind kind, String term) {
+        return OrderSearchTerm.builder()
+                .orderId(orderId)
+                .kind(kind)
+                .term(term.length() > OrderSearchTerm.MAX_TERM_LENGTH
+                        ? term.substring(0, OrderSearchTerm.MAX_TERM_LENGTH)
+                        : term)
+                .build();
+    }
+
+    private static String reverse(String value) {
+        return new StringBuilder(value).reverse().toString();
+    }
+}
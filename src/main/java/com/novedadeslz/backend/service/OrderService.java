@@ -3,23 +3,37 @@ package com.novedadeslz.backend.service;
 import com.novedadeslz.backend.dto.request.OrderPaymentReviewRequest;
 import com.novedadeslz.backend.dto.request.OrderRequest;
 import com.novedadeslz.backend.dto.response.OrderResponse;
+import com.novedadeslz.backend.event.OrderActivityEvent;
+import com.novedadeslz.backend.event.OrderChangedEvent;
+import com.novedadeslz.backend.event.OrderPlacedEvent;
 import com.novedadeslz.backend.event.PaymentProofUploadedEvent;
+import com.novedadeslz.backend.event.ProductStockChangedEvent;
 import com.novedadeslz.backend.exception.BadRequestException;
 import com.novedadeslz.backend.exception.ResourceNotFoundException;
+import com.novedadeslz.backend.mapper.OrderMapper;
 import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderEvent;
 import com.novedadeslz.backend.model.OrderItem;
 import com.novedadeslz.backend.model.Product;
+import com.novedadeslz.backend.repository.OrderEventRepository;
+import com.novedadeslz.backend.repository.OrderItemRepository;
+import com.novedadeslz.backend.repository.OrderItemSummary;
 import com.novedadeslz.backend.repository.OrderRepository;
+import com.novedadeslz.backend.repository.OrderSpecifications;
+import com.novedadeslz.backend.repository.OrderSummary;
 import com.novedadeslz.backend.repository.ProductRepository;
 import com.novedadeslz.backend.security.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -33,27 +47,41 @@ import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderService {
 
-    /** Reintentos ante colision del correlativo diario de numero de pedido. */
-    private static final int MAX_ORDER_NUMBER_ATTEMPTS = 4;
-
     /**
      * El cliente pasa por el local y paga en efectivo al retirar. El campo se llama
      * paymentMethod por historia, pero en la practica tambien define como recibe el pedido.
      */
     private static final String PICKUP_PAYMENT_METHOD = "cash";
+    /** Los mismos que acepta {@code OrderRequest}. */
+    private static final Set<String> PAYMENT_METHODS = Set.of("yape", PICKUP_PAYMENT_METHOD);
 
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderEventRepository orderEventRepository;
+    private final OrderSearchIndex orderSearchIndex;
+    private final OrderTrackingCache orderTrackingCache;
+    private final OrderMapper orderMapper;
     private final CloudinaryService cloudinaryService;
+    private final MediaDeletionService mediaDeletionService;
+    private final OrderNumberAllocator orderNumberAllocator;
     private final OcrService ocrService;
     private final OrderNotificationService orderNotificationService;
     private final JwtTokenProvider jwtTokenProvider;
@@ -68,42 +96,32 @@ public class OrderService {
     private long maxPaymentProofSizeBytes;
 
     /**
-     * El numero de pedido se calcula como {@code COUNT(*) + 1} del dia, que no es atomico: dos
-     * checkouts simultaneos generaban el mismo numero y el segundo moria con un 500 en la cara del
-     * cliente. Se reintenta con un conteo fresco, cada intento en su propia transaccion.
-     *
-     * <p>Se conserva el formato correlativo por dia porque es el dato que el cliente escribe en el
-     * formulario de rastreo.
+     * El numero de pedido sale de {@link OrderNumberAllocator}, que no repite numeros, asi que ya no
+     * hace falta reintentar el pedido entero por colisiones. Se pide antes de abrir la transaccion
+     * del pedido y despues de las validaciones baratas, para no gastar numeros en pedidos que se
+     * rechazarian de todos modos.
      */
     public OrderResponse createOrder(OrderRequest request) {
-        DataIntegrityViolationException lastFailure = null;
-
-        for (int attempt = 1; attempt <= MAX_ORDER_NUMBER_ATTEMPTS; attempt++) {
-            try {
-                return transactionTemplate.execute(status -> createOrderInTransaction(request));
-            } catch (DataIntegrityViolationException e) {
-                lastFailure = e;
-                log.warn("Colision al generar numero de pedido (intento {}/{})",
-                        attempt, MAX_ORDER_NUMBER_ATTEMPTS);
-            }
-        }
-
-        log.error("No se pudo generar un numero de pedido unico tras {} intentos",
-                MAX_ORDER_NUMBER_ATTEMPTS, lastFailure);
-        throw new BadRequestException(
-                "No pudimos registrar tu pedido en este momento. Intenta nuevamente en unos segundos."
-        );
-    }
-
-    private OrderResponse createOrderInTransaction(OrderRequest request) {
         if (request.getItems() == null || request.getItems().isEmpty()) {
             throw new BadRequestException("El pedido debe tener al menos un producto");
         }
 
         requireAddressWhenShipping(request);
 
+        String orderNumber = orderNumberAllocator.next();
+        try {
+            return transactionTemplate.execute(status -> createOrderInTransaction(request, orderNumber));
+        } catch (DataIntegrityViolationException e) {
+            log.error("No se pudo registrar el pedido {}", orderNumber, e);
+            throw new BadRequestException(
+                    "No pudimos registrar tu pedido en este momento. Intenta nuevamente en unos segundos."
+            );
+        }
+    }
+
+    private OrderResponse createOrderInTransaction(OrderRequest request, String orderNumber) {
         Order order = Order.builder()
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumber)
                 .publicToken(UUID.randomUUID().toString())
                 .customerName(request.getCustomerName())
                 .customerPhone(request.getCustomerPhone())
@@ -116,15 +134,15 @@ public class OrderService {
                 .items(new ArrayList<>())
                 .build();
 
+        Map<Long, Product> products = loadOrderedProducts(request.getItems());
+        Map<Long, Integer> quantitiesToReserve = new HashMap<>();
         BigDecimal total = BigDecimal.ZERO;
 
         for (var itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Producto no encontrado con ID: " + itemRequest.getProductId()
-                    ));
-
-            reserveStockOrFail(product, itemRequest.getQuantity());
+            Product product = products.get(itemRequest.getProductId());
+            if (product.isTrackingInventory()) {
+                quantitiesToReserve.merge(product.getId(), itemRequest.getQuantity(), Integer::sum);
+            }
 
             OrderItem item = OrderItem.builder()
                     .product(product)
@@ -138,12 +156,20 @@ public class OrderService {
             total = total.add(item.getSubtotal());
         }
 
+        reserveStockOrFail(quantitiesToReserve, products);
+
         order.setTotal(total);
         order.setStockReserved(true);
+        publishStockChanged(quantitiesToReserve.keySet());
 
-        // saveAndFlush para que una colision de order_number salte aqui y no al cerrar la
-        // transaccion, que es donde el reintento ya no seria posible.
-        return mapToResponse(orderRepository.saveAndFlush(order), false);
+        // saveAndFlush para que una violacion de restriccion salte dentro del try de createOrder y
+        // no al cerrar la transaccion.
+        Order savedOrder = orderRepository.saveAndFlush(order);
+        orderSearchIndex.index(savedOrder);
+        // Agenda el vencimiento de la reserva (ver ReservationExpiryScheduler).
+        eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getId(), savedOrder.getCreatedAt()));
+        eventPublisher.publishEvent(OrderActivityEvent.of(OrderActivityEvent.Type.CREATED, savedOrder));
+        return orderMapper.toResponse(savedOrder);
     }
 
     @Transactional
@@ -154,36 +180,78 @@ public class OrderService {
         Order.OrderStatus oldStatus = order.getStatus();
         order.setStatus(newStatus);
         applyStockRules(order, oldStatus, newStatus);
+        if (oldStatus != newStatus) {
+            recordEvent(order, OrderEvent.Type.STATUS_CHANGED, OrderEvent.Actor.ADMIN,
+                    "Estado cambiado de " + oldStatus + " a " + newStatus + " por administrador.");
+            eventPublisher.publishEvent(OrderActivityEvent.of(newStatus == Order.OrderStatus.CANCELLED
+                    ? OrderActivityEvent.Type.CANCELLED
+                    : OrderActivityEvent.Type.STATUS_CHANGED, order));
+        }
 
-        return mapToResponse(orderRepository.save(order), true);
+        return toAdminResponse(orderRepository.save(order));
     }
 
+    /**
+     * Todos los filtros se combinan: antes se elegia un solo metodo del repositorio y, por ejemplo,
+     * estado mas fechas ignoraba las fechas, asi que el admin pedia paginas mas grandes y filtraba
+     * a ojo.
+     */
     @Transactional(readOnly = true)
     public Page<OrderResponse> getAllOrders(
             Order.OrderStatus status,
-            String customerPhone,
+            String search,
             LocalDateTime startDate,
             LocalDateTime endDate,
+            String paymentMethod,
             Pageable pageable) {
 
-        // La cadena anterior era excluyente: filtrar por estado ignoraba la busqueda, asi que el
-        // admin no podia buscar un pedido dentro de los que esperan revision.
-        String search = StringUtils.hasText(customerPhone) ? customerPhone.trim() : null;
-        Page<Order> orders;
-
-        if (status != null && search != null) {
-            orders = orderRepository.searchOrdersByStatus(status, search, pageable);
-        } else if (status != null) {
-            orders = orderRepository.findByStatus(status, pageable);
-        } else if (search != null) {
-            orders = orderRepository.searchOrders(search, pageable);
-        } else if (startDate != null && endDate != null) {
-            orders = orderRepository.findByCreatedAtBetween(startDate, endDate, pageable);
-        } else {
-            orders = orderRepository.findAll(pageable);
+        Specification<Order> filter = Specification.allOf(
+                OrderSpecifications.hasStatus(status),
+                StringUtils.hasText(search) ? orderSearchIndex.matching(search.trim()) : Specification.unrestricted(),
+                OrderSpecifications.createdBetween(startDate, endDate),
+                OrderSpecifications.paidWith(normalizePaymentMethodFilter(paymentMethod)));
+        // El id desempata: con solo createdAt, dos pedidos del mismo instante podian repetirse o
+        // saltarse entre una pagina y la siguiente.
+        Pageable stablePageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort().and(Sort.by(Sort.Direction.DESC, "id")));
+
+        return toListPage(orderRepository.findIds(filter, stablePageable));
+    }
+
+    private String normalizePaymentMethodFilter(String paymentMethod) {
+        if (!StringUtils.hasText(paymentMethod)) {
+            return null;
         }
+        String normalized = paymentMethod.trim().toLowerCase(Locale.ROOT);
+        if (!PAYMENT_METHODS.contains(normalized)) {
+            throw new BadRequestException("Metodo de pago no valido: " + paymentMethod);
+        }
+        return normalized;
+    }
 
-        return orders.map(order -> mapToResponse(order, true));
+    /**
+     * Arma la pagina desde proyecciones y no desde entidades: las notas, un CLOB que crece con cada
+     * evento, solo se leen en el detalle ({@link #getOrderByIdAsAdmin}).
+     */
+    private Page<OrderResponse> toListPage(Page<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new PageImpl<>(List.of(), orderIds.getPageable(), orderIds.getTotalElements());
+        }
+
+        Map<Long, OrderSummary> orders = orderRepository.findSummariesByIdIn(orderIds.getContent()).stream()
+                .collect(Collectors.toMap(OrderSummary::getId, Function.identity()));
+        Map<Long, List<OrderItemSummary>> items = orderItemRepository.findSummariesByOrderIdIn(orderIds.getContent())
+                .stream()
+                .collect(Collectors.groupingBy(OrderItemSummary::getOrderId));
+
+        // La consulta IN no respeta el orden de la pagina; se arma con el de los ids. Un pedido
+        // borrado entre las dos consultas simplemente no aparece.
+        List<OrderResponse> content = orderIds.getContent().stream()
+                .map(orders::get)
+                .filter(Objects::nonNull)
+                .map(order -> orderMapper.toListResponse(order, items.getOrDefault(order.getId(), List.of())))
+                .toList();
+        return new PageImpl<>(content, orderIds.getPageable(), orderIds.getTotalElements());
     }
 
     /**
@@ -193,7 +261,7 @@ public class OrderService {
     public OrderResponse getOrderByIdAsAdmin(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
-        return mapToResponse(order, true);
+        return toAdminResponse(order);
     }
 
     /**
@@ -202,41 +270,26 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderResponse getOrderByIdForCustomer(Long id, String publicToken) {
-        return mapToResponse(requireOrderOwnedByCustomer(id, publicToken), false);
+        return orderMapper.toResponse(requireOrderOwnedByCustomer(id, publicToken));
     }
 
     /**
      * Busqueda publica de rastreo: numero de pedido + telefono con el que se registro.
      * Se responde siempre con el mismo error generico para no revelar que numeros existen.
+     *
+     * <p>Sin transaccion: es solo lectura, los items vienen en la misma consulta y la mayoria de
+     * las veces ni llega a la base (ver {@link OrderTrackingCache}).
      */
-    @Transactional
     public OrderResponse trackOrder(String orderNumber, String customerPhone) {
-        String normalizedOrderNumber = orderNumber == null ? "" : orderNumber.trim();
+        String normalizedOrderNumber = orderNumber == null ? "" : orderNumber.trim().toUpperCase(Locale.ROOT);
 
-        Order order = orderRepository.findByOrderNumberIgnoreCase(normalizedOrderNumber)
+        return orderTrackingCache.get(normalizedOrderNumber, () -> orderRepository
+                        .findByOrderNumber(normalizedOrderNumber)
+                        .map(orderMapper::toResponse))
                 .filter(candidate -> phoneMatches(candidate.getCustomerPhone(), customerPhone))
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "No encontramos un pedido con ese numero y telefono"
                 ));
-
-        return mapToResponse(ensurePublicToken(order), false);
-    }
-
-    /**
-     * Los pedidos anteriores a la migracion, y los creados en la ventana entre el backfill y el
-     * despliegue, no tienen token. En vez de dejarlos inaccesibles para su duenno, se les asigna
-     * uno la primera vez que se identifican con numero de pedido y telefono.
-     */
-    private Order ensurePublicToken(Order order) {
-        if (StringUtils.hasText(order.getPublicToken())) {
-            return order;
-        }
-
-        order.setPublicToken(UUID.randomUUID().toString());
-        log.info("Se asigno token de acceso al pedido {} (creado antes de la migracion)",
-                order.getOrderNumber());
-
-        return orderRepository.save(order);
     }
 
     private Order requireOrderOwnedByCustomer(Long id, String publicToken) {
@@ -283,27 +336,6 @@ public class OrderService {
         return digits.length() <= 9 ? digits : digits.substring(digits.length() - 9);
     }
 
-    /**
-     * Cancela un pedido que quedo sin comprobante y devuelve su stock. Lo usa la limpieza
-     * automatica; se revalida el estado porque el cliente pudo haber pagado entre medias.
-     */
-    @Transactional
-    public void cancelAbandonedOrder(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
-
-        if (order.getStatus() != Order.OrderStatus.PENDING) {
-            return;
-        }
-
-        order.setStatus(Order.OrderStatus.CANCELLED);
-        releaseReservedStock(order);
-        appendNote(order, "Cancelado automaticamente: quedo sin comprobante y se libero el stock.");
-        orderRepository.save(order);
-
-        log.info("Pedido {} cancelado por abandono", order.getOrderNumber());
-    }
-
     @Transactional
     public void deleteOrder(Long id) {
         Order order = orderRepository.findById(id)
@@ -311,7 +343,10 @@ public class OrderService {
 
         releaseReservedStock(order);
 
+        orderEventRepository.deleteByOrderId(order.getId());
+        orderSearchIndex.remove(order.getId());
         orderRepository.delete(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(Set.of(order.getId())));
     }
 
     /**
@@ -348,15 +383,10 @@ public class OrderService {
             response = persistUploadedProof(orderId, publicToken, proofUrl, ocrResult);
         } catch (RuntimeException e) {
             // Si el guardado falla, la imagen recien subida quedaria huerfana en Cloudinary.
-            cloudinaryService.deleteMedia(proofUrl);
+            mediaDeletionService.deleteOrphans(List.of(proofUrl));
             throw e;
         }
 
-        // El comprobante anterior se borra recien cuando el nuevo quedo confirmado en la base.
-        if (StringUtils.hasText(target.previousProofUrl())) {
-            cloudinaryService.deleteImage(target.previousProofUrl());
-        }
-
         return response;
     }
 
@@ -378,36 +408,43 @@ public class OrderService {
             Order order = requireOrderOwnedByCustomer(orderId, publicToken);
             requireProofUploadAllowed(order);
 
+            // El comprobante anterior se borra recien cuando el nuevo quede confirmado en la base.
+            if (StringUtils.hasText(order.getPaymentProof())) {
+                mediaDeletionService.deleteAfterCommit(List.of(order.getPaymentProof()));
+            }
             order.setPaymentProof(proofUrl);
             order.setStatus(Order.OrderStatus.PAYMENT_REVIEW);
             order.setOperationNumber(null);
             order.setWhatsappSent(false);
-            appendNote(order, "Cliente subio un comprobante Yape para revision manual.");
+            recordEvent(order, OrderEvent.Type.PAYMENT_PROOF_UPLOADED, OrderEvent.Actor.CUSTOMER,
+                    "Cliente subio un comprobante Yape para revision manual.");
 
             if (ocrResult != null) {
                 applyOcrInsights(order, ocrResult);
             } else {
-                appendNote(order, "OCR no disponible o no legible. Requiere revision manual completa.");
+                recordEvent(order, OrderEvent.Type.OCR_RESULT, OrderEvent.Actor.SYSTEM,
+                        "OCR no disponible o no legible. Requiere revision manual completa.");
             }
 
             Order savedOrder = orderRepository.save(order);
 
             // Se entrega despues del commit y en otro hilo (ver PaymentReviewNotificationListener).
             eventPublisher.publishEvent(new PaymentProofUploadedEvent(savedOrder.getId()));
+            eventPublisher.publishEvent(OrderActivityEvent.of(OrderActivityEvent.Type.PROOF_UPLOADED, savedOrder));
 
-            return mapToResponse(savedOrder, false);
+            return orderMapper.toResponse(savedOrder);
         });
     }
 
     /**
-     * Lectura previa para validar y quedarse con el comprobante anterior. No necesita transaccion
+     * Lectura previa para validar antes de las llamadas lentas. No necesita transaccion
      * explicita: {@code findById} abre la suya y solo se leen campos escalares.
      */
     private ProofUploadTarget loadProofUploadTarget(Long orderId, String publicToken) {
         Order order = requireOrderOwnedByCustomer(orderId, publicToken);
         requireProofUploadAllowed(order);
 
-        return new ProofUploadTarget(order.getOrderNumber(), order.getPaymentProof());
+        return new ProofUploadTarget(order.getOrderNumber());
     }
 
     private void requireProofUploadAllowed(Order order) {
@@ -442,7 +479,7 @@ public class OrderService {
     }
 
     /** Datos que sobreviven al cierre de la transaccion de lectura. */
-    private record ProofUploadTarget(String orderNumber, String previousProofUrl) {
+    private record ProofUploadTarget(String orderNumber) {
     }
 
     @Transactional
@@ -476,13 +513,15 @@ public class OrderService {
         Order.OrderStatus oldStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CONFIRMED);
         applyStockRules(order, oldStatus, Order.OrderStatus.CONFIRMED);
-        appendNote(order, StringUtils.hasText(request != null ? request.getNotes() : null)
+        recordEvent(order, OrderEvent.Type.PAYMENT_APPROVED, OrderEvent.Actor.ADMIN,
+                StringUtils.hasText(request != null ? request.getNotes() : null)
                 ? request.getNotes()
                 : "Pago aprobado manualmente por administrador.");
 
         Order updatedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderActivityEvent.of(OrderActivityEvent.Type.APPROVED, updatedOrder));
         log.info("Pedido {} aprobado manualmente", order.getOrderNumber());
-        return mapToResponse(updatedOrder, true);
+        return toAdminResponse(updatedOrder);
     }
 
     /**
@@ -491,7 +530,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderResponse getOrderForWhatsAppApproval(Long orderId, String token) {
-        return mapToResponse(requireValidWhatsAppApproval(orderId, token), true);
+        return orderMapper.toResponse(requireValidWhatsAppApproval(orderId, token));
     }
 
     /**
@@ -525,15 +564,18 @@ public class OrderService {
         Order.OrderStatus oldStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CONFIRMED);
         applyStockRules(order, oldStatus, Order.OrderStatus.CONFIRMED);
-        appendNote(order, "Pago aprobado desde enlace seguro de WhatsApp.");
+        recordEvent(order, OrderEvent.Type.PAYMENT_APPROVED, OrderEvent.Actor.ADMIN,
+                "Pago aprobado desde enlace seguro de WhatsApp.");
 
         if (!StringUtils.hasText(order.getOperationNumber())) {
-            appendNote(order, "Aprobacion realizada sin numero de operacion confirmado por OCR.");
+            recordEvent(order, OrderEvent.Type.PAYMENT_APPROVED, OrderEvent.Actor.SYSTEM,
+                    "Aprobacion realizada sin numero de operacion confirmado por OCR.");
         }
 
         Order updatedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderActivityEvent.of(OrderActivityEvent.Type.APPROVED, updatedOrder));
         log.info("Pedido {} aprobado desde enlace seguro de WhatsApp", order.getOrderNumber());
-        return mapToResponse(updatedOrder, true);
+        return orderMapper.toResponse(updatedOrder);
     }
 
     @Transactional
@@ -552,11 +594,13 @@ public class OrderService {
 
         order.setStatus(Order.OrderStatus.PAYMENT_REJECTED);
         order.setWhatsappSent(false);
-        appendNote(order, "Pago rechazado por administrador: " + rejectionReason.trim());
+        recordEvent(order, OrderEvent.Type.PAYMENT_REJECTED, OrderEvent.Actor.ADMIN,
+                "Pago rechazado por administrador: " + rejectionReason.trim());
 
         Order updatedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderActivityEvent.of(OrderActivityEvent.Type.REJECTED, updatedOrder));
         log.info("Pedido {} rechazado manualmente", order.getOrderNumber());
-        return mapToResponse(updatedOrder, true);
+        return toAdminResponse(updatedOrder);
     }
 
     /**
@@ -578,11 +622,11 @@ public class OrderService {
             Order current = orderRepository.findById(orderId)
                     .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado con ID: " + orderId));
 
-            appendNote(current, notificationSent
+            recordEvent(current, OrderEvent.Type.NOTIFICATION, OrderEvent.Actor.ADMIN, notificationSent
                     ? "Se reenvio la notificacion WhatsApp al administrador."
                     : "No se pudo reenviar la notificacion WhatsApp al administrador.");
 
-            return mapToResponse(orderRepository.save(current), true);
+            return toAdminResponse(orderRepository.save(current));
         });
     }
 
@@ -611,60 +655,80 @@ public class OrderService {
             return;
         }
 
+        Set<Long> releasedProductIds = new HashSet<>();
         for (OrderItem item : order.getItems()) {
-            productRepository.releaseStock(item.getProduct().getId(), item.getQuantity());
+            Product product = item.getProduct();
+            if (product.isStockSharded()) {
+                productRepository.releaseToBuckets(product.getId(), product.getStockBuckets(), item.getQuantity());
+            } else {
+                productRepository.releaseStock(product.getId(), item.getQuantity());
+            }
+            releasedProductIds.add(product.getId());
         }
 
         order.setStockReserved(false);
+        publishStockChanged(releasedProductIds);
     }
 
-    /**
-     * Aparta unidades con una sentencia condicional en la base. Comprobar y despues guardar no
-     * sirve: dos pedidos simultaneos leerian la misma unidad disponible y ambos la venderian.
-     */
-    private void reserveStockOrFail(Product product, int quantity) {
-        if (!product.isTrackingInventory()) {
-            return;
-        }
-
-        if (productRepository.reserveStock(product.getId(), quantity) == 0) {
-            throw new BadRequestException(
-                    "Stock insuficiente para " + product.getName() +
-                            ". Disponible: " + product.getStock()
-            );
+    /** El catalogo cacheado muestra stock: se invalida tras el commit (ver ProductCatalogCache). */
+    private void publishStockChanged(Set<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductStockChangedEvent(Set.copyOf(productIds)));
         }
     }
 
-    private String generateOrderNumber() {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    /** Todos los productos del carrito en una sola consulta IN, en vez de una por item. */
+    private Map<Long, Product> loadOrderedProducts(List<OrderRequest.OrderItemRequest> items) {
+        List<Long> productIds = items.stream()
+                .map(OrderRequest.OrderItemRequest::getProductId)
+                .distinct()
+                .toList();
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
 
-        long count = orderRepository.countByOrderNumberStartingWith("ORD-" + timestamp + "%");
-        return String.format("ORD-%s-%04d", timestamp, count + 1);
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Producto no encontrado con ID: " + productId);
+            }
+        }
+        return products;
     }
 
-    private OrderResponse mapToResponse(Order order, boolean includeInternalNotes) {
-        OrderResponse response = modelMapper.map(order, OrderResponse.class);
-        response.setStatus(order.getStatus().name());
-        if (!includeInternalNotes) {
-            response.setNotes(null);
+    /**
+     * Aparta unidades con sentencias condicionales en la base: los productos con el stock en su
+     * fila, todos en un solo lote; los repartidos, cada uno en sus buckets. Comprobar y despues
+     * guardar no sirve: dos pedidos simultaneos leerian la misma unidad disponible y ambos la
+     * venderian.
+     *
+     * <p>Si algun producto no alcanza, la excepcion revierte tambien lo que el lote si aparto: o se
+     * reserva el carrito completo o nada. El mensaje muestra el stock leido antes de reservar.
+     */
+    private void reserveStockOrFail(Map<Long, Integer> quantities, Map<Long, Product> products) {
+        Map<Long, Integer> inProductRow = new HashMap<>();
+        Map<Long, Integer> sharded = new TreeMap<>();
+        quantities.forEach((productId, quantity) ->
+                (products.get(productId).isStockSharded() ? sharded : inProductRow).put(productId, quantity));
+
+        // Primero las filas de products y despues los buckets, cada grupo en orden de id: todos los
+        // checkouts bloquean en el mismo orden.
+        List<Long> rejected = new ArrayList<>(productRepository.reserveStockInIdOrder(inProductRow));
+        for (Map.Entry<Long, Integer> entry : sharded.entrySet()) {
+            if (!rejected.isEmpty()) {
+                break;
+            }
+            Product product = products.get(entry.getKey());
+            if (!productRepository.reserveFromBuckets(product.getId(), product.getStockBuckets(), entry.getValue())) {
+                rejected.add(product.getId());
+            }
         }
 
-        if (order.getItems() != null) {
-            var itemResponses = order.getItems().stream()
-                    .map(item -> OrderResponse.OrderItemResponse.builder()
-                            .id(item.getId())
-                            .productId(item.getProduct().getId())
-                            .productName(item.getProductName())
-                            .quantity(item.getQuantity())
-                            .unitPrice(item.getUnitPrice())
-                            .subtotal(item.getSubtotal())
-                            .build())
-                    .toList();
-            response.setItems(itemResponses);
+        if (!rejected.isEmpty()) {
+            Product product = products.get(rejected.get(0));
+            throw new BadRequestException(
+                    "Stock insuficiente para " + product.getName() +
+                            ". Disponible: " + product.getStock()
+            );
         }
-
-        return response;
     }
 
     private void applyOcrInsights(Order order, OcrService.YapeOcrResult ocrResult) {
@@ -680,10 +744,12 @@ public class OrderService {
             order.setOperationNumber(detectedOperationNumber);
         }
 
-        appendNote(order, buildOcrSummary(order, ocrResult, detectedOperationNumber, operationAvailable));
+        recordEvent(order, OrderEvent.Type.OCR_RESULT, OrderEvent.Actor.SYSTEM,
+                buildOcrSummary(order, ocrResult, detectedOperationNumber, operationAvailable));
 
         if (!ocrResult.isBasicSignalsDetected()) {
-            appendNote(order, "OCR no detecto senales basicas de comprobante Yape. Revisar imagen manualmente.");
+            recordEvent(order, OrderEvent.Type.OCR_RESULT, OrderEvent.Actor.SYSTEM,
+                    "OCR no detecto senales basicas de comprobante Yape. Revisar imagen manualmente.");
         }
     }
 
@@ -803,19 +869,25 @@ public class OrderService {
         return operationNumber.trim();
     }
 
-    private void appendNote(Order order, String note) {
-        if (!StringUtils.hasText(note)) {
+    /**
+     * Agrega una entrada al historial del pedido. Es un INSERT suelto: el pedido no se vuelve a
+     * escribir por esto, a diferencia de cuando la nota se concatenaba al CLOB de notas.
+     *
+     * <p>Todo cambio que ve el cliente deja una entrada en el historial, asi que tambien es el punto
+     * donde se avisa a las copias del rastreo.
+     */
+    private void recordEvent(Order order, OrderEvent.Type type, OrderEvent.Actor actor, String message) {
+        eventPublisher.publishEvent(new OrderChangedEvent(Set.of(order.getId())));
+        if (!StringUtils.hasText(message)) {
             return;
         }
+        orderEventRepository.save(OrderEvent.of(order.getId(), type, actor, message));
+    }
 
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-        String noteEntry = timestamp + " - " + note.trim();
-
-        if (StringUtils.hasText(order.getNotes())) {
-            order.setNotes(order.getNotes() + "\n" + noteEntry);
-        } else {
-            order.setNotes(noteEntry);
-        }
+    /** El historial se lee recien aca, con una consulta por indice, y nunca en listados ni para el cliente. */
+    private OrderResponse toAdminResponse(Order order) {
+        return orderMapper.toAdminResponse(order,
+                orderEventRepository.findByOrderIdOrderByCreatedAtAscIdAsc(order.getId()));
     }
 
     private boolean isDateRecent(String dateTimeStr) {
@@ -0,0 +1,72 @@
+package com.novedadeslz.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.novedadeslz.backend.dto.response.OrderResponse;
+import com.novedadeslz.backend.event.OrderChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ultima version de cada pedido consultado en el rastreo publico, por numero de pedido.
+ *
+ * <p>Mientras esperan la confirmacion, los clientes refrescan el rastreo una y otra vez, y cada vez
+ * era un viaje a Oracle por el mismo pedido sin cambios. Igual que {@link ProductCatalogCache}, la
+ * frescura la da la invalidacion despues del commit de cada cambio ({@link OrderChangedEvent}); el
+ * TTL corto solo cubre lo que cambie por fuera de la aplicacion.
+ *
+ * <p>Guarda solo pedidos que existen: un numero inventado no ocupa lugar, y enumerar numeros no
+ * llena la cache. El telefono se sigue comparando en cada consulta, fuera de la cache.
+ */
+@Component
+public class OrderTrackingCache {
+
+    private final Cache<String, OrderResponse> orders;
+
+    /** Mismo resguardo que en ProductCatalogCache: no guardar lo que se armo durante una invalidacion. */
+    private final AtomicLong generation = new AtomicLong();
+
+    public OrderTrackingCache(
+            @Value("${app.orders.tracking-cache.max-orders:1000}") long maxOrders,
+            @Value("${app.orders.tracking-cache.ttl-seconds:30}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+
+        this.orders = Caffeine.newBuilder()
+                .maximumSize(maxOrders)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, orders, "orders.tracking");
+    }
+
+    public Optional<OrderResponse> get(String orderNumber, Supplier<Optional<OrderResponse>> loader) {
+        OrderResponse cached = orders.getIfPresent(orderNumber);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long startedAt = generation.get();
+        Optional<OrderResponse> order = loader.get();
+        if (order.isPresent() && generation.get() == startedAt) {
+            orders.put(orderNumber, order.get());
+        }
+        return order;
+    }
+
+    /** La cache es chica: recorrerla para encontrar los ids sale mas barato que un segundo indice. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        generation.incrementAndGet();
+        orders.asMap().values().removeIf(order -> event.orderIds().contains(order.getId()));
+    }
+}
@@ -0,0 +1,201 @@
+package com.novedadeslz.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.event.ProductChangedEvent;
+import com.novedadeslz.backend.event.ProductStockChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache en memoria de las lecturas del catalogo publico.
+ *
+ * <p>El catalogo es casi todo el trafico y cada consulta a Oracle cruza medio continente desde
+ * Render. Deliberadamente local, igual que el rate limiter: corre un unico contenedor.
+ *
+ * <p>Acotado por tamanno y por TTL porque el contenedor tiene 512MB. El TTL es solo una red de
+ * seguridad: la frescura la garantiza la invalidacion por eventos, que se aplica despues del commit
+ * para que ningun lector vuelva a cachear el valor anterior mientras la transaccion sigue abierta.
+ */
+@Component
+@Slf4j
+public class ProductCatalogCache {
+
+    /**
+     * Orden de la invalidacion entre los listeners de cambios de productos: el indice de busqueda
+     * se actualiza antes y las copias serializadas del catalogo se descartan despues.
+     */
+    public static final int EVICTION_ORDER = 0;
+
+    private final Cache<PageKey, CachedPage> pages;
+    private final Cache<Long, ProductResponse> products;
+
+    /**
+     * Se incrementa en cada invalidacion. Una carga que empezo antes de una invalidacion no se
+     * guarda: podria traer datos leidos antes del commit que la provoco.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** Distingue las versiones de un arranque de las del anterior, que vuelve a contar desde 0. */
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+
+    public ProductCatalogCache(
+            @Value("${app.catalog-cache.max-pages:500}") long maxPages,
+            @Value("${app.catalog-cache.max-products:2000}") long maxProducts,
+            @Value("${app.catalog-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxProducts)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        // Expone hits, misses y evictions en /actuator/metrics (cache.gets, cache.evictions...).
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "catalog.pages");
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "catalog.products");
+    }
+
+    public Page<ProductResponse> getPage(PageKey key, Supplier<Page<ProductResponse>> loader) {
+        return getSlice(key, loader);
+    }
+
+    /**
+     * Las paginas del modo cursor son {@link Slice} y las del modo clasico {@link Page}. Nunca
+     * comparten clave ({@link PageKey#after()} las distingue), asi que cada una vuelve con su tipo.
+     */
+    @SuppressWarnings("unchecked")
+    public <S extends Slice<ProductResponse>> S getSlice(PageKey key, Supplier<S> loader) {
+        CachedPage cached = pages.getIfPresent(key);
+        if (cached != null) {
+            return (S) cached.page();
+        }
+
+        long startedAt = generation.get();
+        S page = loader.get();
+        if (generation.get() == startedAt) {
+            pages.put(key, new CachedPage(page, collectIds(page)));
+        }
+        return page;
+    }
+
+    public ProductResponse getProduct(Long id, Supplier<ProductResponse> loader) {
+        ProductResponse cached = products.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long startedAt = generation.get();
+        ProductResponse product = loader.get();
+        if (generation.get() == startedAt) {
+            products.put(id, product);
+        }
+        return product;
+    }
+
+    /**
+     * Version del catalogo completo: cambia con cada escritura de productos o de stock confirmada.
+     * Es la base del ETag de los listados, que asi se validan sin consultar ni serializar nada.
+     */
+    public String version() {
+        return instanceId + "-" + generation.get();
+    }
+
+    /**
+     * Un producto nuevo, editado o dado de baja puede correr el orden de cualquier listado donde
+     * aparezca. Los listados de otras categorias no lo incluyen y se conservan.
+     */
+    @Order(EVICTION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        products.invalidate(event.productId());
+        pages.asMap().keySet().removeIf(key -> key.mayContain(event.categories()));
+    }
+
+    /** El stock no cambia el orden: basta con los listados que contienen esos productos. */
+    @Order(EVICTION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        generation.incrementAndGet();
+        products.invalidateAll(event.productIds());
+        pages.asMap().entrySet().removeIf(entry -> entry.getValue().containsAny(event.productIds()));
+    }
+
+    private Set<Long> collectIds(Slice<ProductResponse> page) {
+        return page.getContent().stream()
+                .map(ProductResponse::getId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Identifica un listado por todo lo que cambia su contenido: filtros, pagina, tamanno y orden.
+     * En el modo cursor la pagina es 0 y la posicion va en {@code after} ("" para la primera).
+     */
+    public record PageKey(
+            String category,
+            String search,
+            Boolean active,
+            int page,
+            int size,
+            String sort,
+            String after) {
+
+        public static PageKey of(String category, String search, Boolean active, Pageable pageable) {
+            return new PageKey(
+                    category,
+                    search,
+                    active,
+                    pageable.getPageNumber(),
+                    pageable.getPageSize(),
+                    pageable.getSort().toString(),
+                    null
+            );
+        }
+
+        public static PageKey after(String category, Boolean active, ProductCursor after, int size, Sort sort) {
+            return new PageKey(category, null, active, 0, size, sort.toString(), after == null ? "" : after.encode());
+        }
+
+        /**
+         * Solo los listados filtrados por una categoria ajena quedan a salvo. Las busquedas y el
+         * listado general pueden incluir cualquier producto.
+         */
+        boolean mayContain(Set<String> changedCategories) {
+            return category == null || category.isEmpty()
+                    || (search != null && !search.isEmpty())
+                    || changedCategories == null
+                    || changedCategories.contains(category);
+        }
+    }
+
+    private record CachedPage(Slice<ProductResponse> page, Set<Long> productIds) {
+
+        boolean containsAny(Collection<Long> ids) {
+            return ids.stream().anyMatch(productIds::contains);
+        }
+    }
+}
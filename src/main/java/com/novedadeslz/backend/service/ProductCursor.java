@@ -0,0 +1,57 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.exception.BadRequestException;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Posicion en el catalogo para la paginacion por cursor: el ultimo producto que vio el cliente.
+ *
+ * <p>Viaja como texto opaco en {@code ?after=}. El cliente no tiene que interpretarlo, solo
+ * devolverlo tal cual; asi se puede cambiar el formato sin romper a nadie.
+ */
+public record ProductCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "~";
+
+    public static ProductCursor of(ProductResponse product) {
+        return new ProductCursor(product.getCreatedAt(), product.getId());
+    }
+
+    /** Un cursor vacio pide la primera pagina. */
+    public static ProductCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException("Cursor de paginacion invalido");
+            }
+            return new ProductCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.valueOf(decoded.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Cursor de paginacion invalido", e);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Las claves son las propiedades de la entidad por las que se ordena. */
+    ScrollPosition toScrollPosition() {
+        return ScrollPosition.forward(Map.of("createdAt", createdAt, "id", id));
+    }
+}
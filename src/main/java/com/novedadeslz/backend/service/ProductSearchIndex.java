@@ -0,0 +1,321 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.event.ProductChangedEvent;
+import com.novedadeslz.backend.repository.ProductRepository;
+import com.novedadeslz.backend.repository.SearchableProduct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Indice invertido en memoria para la busqueda del catalogo.
+ *
+ * <p>La busqueda anterior era un {@code LIKE '%x%'} sobre el CLOB de la descripcion: ningun indice
+ * de Oracle sirve para eso y cada busqueda recorria la tabla entera. El catalogo entra de sobra en
+ * memoria (cientos de productos), asi que se indexa aca, igual que la cache del catalogo y el rate
+ * limiter: corre un unico contenedor.
+ *
+ * <p>Los textos se pasan a minusculas y sin tildes ("Cafe" encuentra "cafe" y "CAFE"). Cada palabra
+ * de la consulta tiene que aparecer en el producto, entera o como parte de una palabra mas larga
+ * ("vinch" encuentra "vinchas"); para eso las palabras del indice se agrupan por trigramas. Los
+ * resultados salen ordenados por relevancia: una coincidencia en el nombre pesa mas que en la
+ * descripcion y una palabra entera mas que un pedazo.
+ *
+ * <p>Solo se indexan productos activos, como hacia la consulta anterior.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PARTIAL_MATCH_FACTOR = 0.5f;
+    private static final int TRIGRAM = 3;
+
+    /**
+     * Palabras que casi todo producto tiene en la descripcion. Exigirlas haria que "aretes de plata"
+     * dejara fuera a un producto llamado "Aretes plata".
+     */
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "para", "por", "su", "un", "una", "y"
+    );
+
+    private final ProductRepository productRepository;
+
+    /** Palabra -> (producto -> peso). Ordenado para buscar prefijos de palabras cortas. */
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    /** Trigrama -> palabras del vocabulario que lo contienen. */
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private final Map<Long, IndexedProduct> products = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Productos que cambiaron mientras se armaba el indice: su version leida al arrancar es vieja.
+     * Solo existe durante {@link #rebuild()}; despues cada cambio se aplica directo y no hace falta
+     * recordarlo.
+     */
+    private volatile Set<Long> changedDuringBuild;
+    private volatile boolean ready;
+
+    /**
+     * Se arma al terminar de arrancar. Mientras tanto {@link #isReady()} es falso y el servicio
+     * sigue usando la consulta anterior.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringBuild = changed;
+        List<SearchableProduct> snapshot = productRepository.findSearchableByActiveTrue();
+
+        lock.writeLock().lock();
+        try {
+            for (SearchableProduct product : snapshot) {
+                if (!changed.contains(product.getId())) {
+                    put(product);
+                }
+            }
+            ready = true;
+            // Un cambio que llegue despues de esto espera el candado y se aplica sobre el indice ya
+            // publicado.
+            changedDuringBuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Indice de busqueda listo: {} productos en {} ms",
+                snapshot.size(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Se ejecuta antes que la invalidacion de {@link ProductCatalogCache}: si la cache se vaciara
+     * primero, una busqueda podria volver a llenarla con el indice todavia viejo.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Long productId = event.productId();
+        Set<Long> changed = changedDuringBuild;
+        if (changed != null) {
+            changed.add(productId);
+        }
+        try {
+            Optional<SearchableProduct> current = productRepository.findSearchableByIdAndActiveTrue(productId);
+
+            lock.writeLock().lock();
+            try {
+                remove(productId);
+                current.ifPresent(this::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException ex) {
+            // La escritura ya esta confirmada; el producto queda con su version anterior en la
+            // busqueda hasta el proximo cambio o reinicio.
+            log.error("No se pudo actualizar el indice de busqueda para el producto {}", productId, ex);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Devuelve los ids de la pagina pedida, ordenados por relevancia. A igual relevancia van primero
+     * los productos mas nuevos, como en el listado general. El orden de {@code pageable} se ignora:
+     * en una busqueda manda la relevancia.
+     */
+    public Page<Long> search(String query, Pageable pageable) {
+        List<String> terms = queryTerms(query);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<Long> ranked;
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String term : terms) {
+                Map<Long, Float> termScores = score(term);
+                scores = scores == null ? termScores : intersect(scores, termScores);
+                if (scores.isEmpty()) {
+                    return Page.empty(pageable);
+                }
+            }
+
+            Map<Long, Float> finalScores = scores;
+            ranked = new ArrayList<>(finalScores.keySet());
+            ranked.sort(Comparator
+                    .comparing((Long id) -> finalScores.get(id), Comparator.reverseOrder())
+                    .thenComparing(id -> products.get(id).createdAt(),
+                            Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Comparator.reverseOrder()));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(ranked);
+        }
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        return new PageImpl<>(List.copyOf(ranked.subList(from, to)), pageable, ranked.size());
+    }
+
+    /** Mejor puntaje de cada producto para una palabra de la consulta. */
+    private Map<Long, Float> score(String queryTerm) {
+        Map<Long, Float> scores = new HashMap<>();
+        for (String indexedTerm : candidateTerms(queryTerm)) {
+            float factor = indexedTerm.equals(queryTerm) ? 1f : PARTIAL_MATCH_FACTOR;
+            postings.get(indexedTerm).forEach((productId, weight) ->
+                    scores.merge(productId, weight * factor, Math::max));
+        }
+        return scores;
+    }
+
+    /**
+     * Palabras del indice que contienen a la de la consulta. Con tres letras o mas se cruzan sus
+     * trigramas; con menos no hay trigramas y se buscan las palabras que empiezan asi.
+     */
+    private Set<String> candidateTerms(String queryTerm) {
+        if (queryTerm.length() < TRIGRAM) {
+            return postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).keySet();
+        }
+
+        Set<String> candidates = null;
+        for (String trigram : trigramsOf(queryTerm)) {
+            Set<String> withTrigram = trigrams.getOrDefault(trigram, Set.of());
+            if (candidates == null) {
+                candidates = new HashSet<>(withTrigram);
+            } else {
+                candidates.retainAll(withTrigram);
+            }
+            if (candidates.isEmpty()) {
+                return Set.of();
+            }
+        }
+        // Tener los mismos trigramas no garantiza que esten seguidos.
+        candidates.removeIf(term -> !term.contains(queryTerm));
+        return candidates;
+    }
+
+    private Map<Long, Float> intersect(Map<Long, Float> left, Map<Long, Float> right) {
+        Map<Long, Float> result = new HashMap<>();
+        left.forEach((productId, score) -> {
+            Float other = right.get(productId);
+            if (other != null) {
+                result.put(productId, score + other);
+            }
+        });
+        return result;
+    }
+
+    private void put(SearchableProduct product) {
+        Map<String, Float> weights = new HashMap<>();
+        for (String term : tokenize(product.getDescription())) {
+            weights.put(term, DESCRIPTION_WEIGHT);
+        }
+        for (String term : tokenize(product.getName())) {
+            weights.put(term, NAME_WEIGHT);
+        }
+
+        weights.forEach((term, weight) -> {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings == null) {
+                termPostings = new HashMap<>();
+                postings.put(term, termPostings);
+                for (String trigram : trigramsOf(term)) {
+                    trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(term);
+                }
+            }
+            termPostings.put(product.getId(), weight);
+        });
+
+        products.put(product.getId(), new IndexedProduct(Set.copyOf(weights.keySet()), product.getCreatedAt()));
+    }
+
+    private void remove(Long productId) {
+        IndexedProduct indexed = products.remove(productId);
+        if (indexed == null) {
+            return;
+        }
+
+        for (String term : indexed.terms()) {
+            Map<Long, Float> termPostings = postings.get(term);
+            termPostings.remove(productId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+                for (String trigram : trigramsOf(term)) {
+                    Set<String> withTrigram = trigrams.get(trigram);
+                    withTrigram.remove(term);
+                    if (withTrigram.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> queryTerms(String query) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        List<String> meaningful = terms.stream().filter(term -> !STOP_WORDS.contains(term)).toList();
+        // "de" a secas sigue siendo una busqueda valida.
+        return meaningful.isEmpty() ? terms : meaningful;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(folded))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    private static Set<String> trigramsOf(String term) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + TRIGRAM <= term.length(); i++) {
+            result.add(term.substring(i, i + TRIGRAM));
+        }
+        return result;
+    }
+
+    private record IndexedProduct(Set<String> terms, LocalDateTime createdAt) {
+    }
+}
@@ -1,27 +1,53 @@
 package com.novedadeslz.backend.service;
 
+import com.novedadeslz.backend.config.AsyncConfig;
 import com.novedadeslz.backend.dto.request.ProductRequest;
 import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.event.ProductChangedEvent;
+import com.novedadeslz.backend.exception.BadRequestException;
 import com.novedadeslz.backend.exception.ResourceNotFoundException;
+import com.novedadeslz.backend.mapper.ProductMapper;
 import com.novedadeslz.backend.model.Product;
 import com.novedadeslz.backend.repository.ProductRepository;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,13 +56,24 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private static final int MAX_PRODUCT_IMAGES = 20;
-    private static final int MAX_IMAGE_URL_STORAGE_LENGTH = 4000;
+    private static final int MAX_IMAGE_URL_STORAGE_LENGTH = 500;
     private static final int MAX_VIDEO_URL_STORAGE_LENGTH = 500;
 
     private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
     private final CloudinaryService cloudinaryService;
+    private final MediaDeletionService mediaDeletionService;
     private final Validator validator;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    @Qualifier(AsyncConfig.MEDIA_UPLOAD_EXECUTOR)
+    private final Executor mediaUploadExecutor;
+
+    /** Subidas simultaneas por guardado. Mas no acelera: el cuello pasa a ser el enlace de Render. */
+    @Value("${app.products.upload-concurrency:4}")
+    private int uploadConcurrency;
 
     @Transactional
     public ProductResponse createProduct(
@@ -56,6 +93,7 @@ public class ProductService {
                     .category(normalizeCategory(request.getCategory()))
                     .stock(resolveStockValue(request))
                     .trackInventory(resolveTrackInventory(request))
+                    .stockBuckets(resolveStockBuckets(request, 0))
                     .active(true)
                     .build();
 
@@ -63,24 +101,47 @@ public class ProductService {
             product.setVideoUrl(videoUrl);
 
             Product savedProduct = productRepository.save(product);
-            return mapToResponse(savedProduct);
+            if (savedProduct.isStockSharded()) {
+                productRepository.resetStockBuckets(
+                        savedProduct.getId(), savedProduct.getStockBuckets(), savedProduct.getStock());
+            }
+            publishProductChanged(savedProduct.getId(), savedProduct.getCategory());
+            return productMapper.toResponse(savedProduct);
         } catch (RuntimeException e) {
-            deleteImages(imageUrls);
-            deleteMedia(videoUrl);
+            mediaDeletionService.deleteOrphans(withVideo(imageUrls, videoUrl));
             throw e;
         }
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Sin {@code @Transactional} a proposito: un acierto de cache no debe ni siquiera pedir una
+     * conexion al pool. Solo el fallo abre una transaccion de lectura.
+     */
     public Page<ProductResponse> getAllProducts(
             String category,
             String search,
             Boolean active,
             Pageable pageable) {
 
+        return catalogCache.getPage(
+                ProductCatalogCache.PageKey.of(category, search, active, pageable),
+                () -> inReadOnlyTransaction(status -> loadProducts(category, search, active, pageable))
+        );
+    }
+
+    private Page<ProductResponse> loadProducts(
+            String category,
+            String search,
+            Boolean active,
+            Pageable pageable) {
+
         Page<Product> products;
 
         if (search != null && !search.isEmpty()) {
+            if (searchIndex.isReady()) {
+                return loadRankedProducts(searchIndex.search(search, pageable));
+            }
+            // Solo mientras el indice se arma al arrancar.
             products = productRepository.searchProducts(search, pageable);
         } else if (category != null && !category.isEmpty()) {
             products = productRepository.findByCategoryAndActiveTrue(category, pageable);
@@ -90,14 +151,81 @@ public class ProductService {
             products = productRepository.findAll(pageable);
         }
 
-        return products.map(this::mapToResponse);
+        return products.map(productMapper::toResponse);
+    }
+
+    /** Ver {@link ProductCatalogCache#version()}. */
+    public String getCatalogVersion() {
+        return catalogCache.version();
+    }
+
+    /**
+     * Modo cursor del catalogo: busca desde el ultimo producto visto sobre (created_at, id) en vez
+     * de saltar filas con OFFSET, y no cuenta el total. Cada pagina cuesta lo mismo sin importar
+     * que tan lejos este. El id desempata productos creados en el mismo instante.
+     */
+    public Slice<ProductResponse> getProductsAfter(
+            String category,
+            Boolean active,
+            ProductCursor after,
+            int size,
+            Sort.Direction direction) {
+
+        if (size < 1) {
+            throw new BadRequestException("El tamanno de pagina debe ser mayor a 0");
+        }
+
+        Sort sort = Sort.by(direction, "createdAt").and(Sort.by(direction, "id"));
+        return catalogCache.getSlice(
+                ProductCatalogCache.PageKey.after(category, active, after, size, sort),
+                () -> inReadOnlyTransaction(status -> loadProductsAfter(category, active, after, size, sort))
+        );
+    }
+
+    private Slice<ProductResponse> loadProductsAfter(
+            String category,
+            Boolean active,
+            ProductCursor after,
+            int size,
+            Sort sort) {
+
+        ScrollPosition position = after == null ? ScrollPosition.keyset() : after.toScrollPosition();
+        Limit limit = Limit.of(size);
+
+        Window<Product> window;
+        if (category != null && !category.isEmpty()) {
+            window = productRepository.findByCategoryAndActiveTrue(category, position, sort, limit);
+        } else if (active != null && active) {
+            window = productRepository.findByActiveTrue(position, sort, limit);
+        } else {
+            window = productRepository.findAllBy(position, sort, limit);
+        }
+
+        List<ProductResponse> content = window.getContent().stream()
+                .map(productMapper::toResponse)
+                .toList();
+        return new SliceImpl<>(content, PageRequest.of(0, size, sort), window.hasNext());
+    }
+
+    /** Trae los productos de la pagina de una vez y respeta el orden de relevancia del indice. */
+    private Page<ProductResponse> loadRankedProducts(Page<Long> rankedIds) {
+        Map<Long, Product> productsById = productRepository.findAllById(rankedIds.getContent()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<ProductResponse> content = rankedIds.getContent().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(productMapper::toResponse)
+                .toList();
+        return new PageImpl<>(content, rankedIds.getPageable(), rankedIds.getTotalElements());
     }
 
-    @Transactional(readOnly = true)
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
-        return mapToResponse(product);
+        return catalogCache.getProduct(id, () -> inReadOnlyTransaction(status -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
+            return productMapper.toResponse(product);
+        }));
     }
 
     @Transactional
@@ -113,6 +241,7 @@ public class ProductService {
 
         List<String> previousImageUrls = product.getImageUrls();
         String previousVideoUrl = product.getVideoUrl();
+        String previousCategory = product.getCategory();
         List<String> keptImageUrls = resolveKeptImageUrls(previousImageUrls, request.getImageUrls());
         List<String> newImageUrls = List.of();
         boolean hasNewImages = images != null && !images.isEmpty();
@@ -146,7 +275,6 @@ public class ProductService {
 
         List<String> finalImageUrls = new ArrayList<>(keptImageUrls);
         finalImageUrls.addAll(newImageUrls);
-        ensureImageGalleryFitsStorage(finalImageUrls);
         product.setImageUrls(finalImageUrls);
         ensureVideoFitsStorage(finalVideoUrl);
         product.setVideoUrl(finalVideoUrl);
@@ -155,28 +283,32 @@ public class ProductService {
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
         product.setCategory(normalizeCategory(request.getCategory()));
+        boolean wasStockSharded = product.isStockSharded();
         product.setTrackInventory(resolveTrackInventory(request));
+        product.setStockBuckets(resolveStockBuckets(request, product.getStockBuckets()));
         product.setStock(resolveStockValue(request));
 
         try {
             Product updatedProduct = productRepository.save(product);
+            // El stock que envia el admin reemplaza al actual, igual que en la fila del producto.
+            if (wasStockSharded || updatedProduct.isStockSharded()) {
+                productRepository.resetStockBuckets(
+                        updatedProduct.getId(), updatedProduct.getStockBuckets(), updatedProduct.getStock());
+            }
+            publishProductChanged(updatedProduct.getId(), previousCategory, updatedProduct.getCategory());
 
-            deleteImages(previousImageUrls.stream()
+            // Se borran recien despues del commit: si el guardado se revierte, siguen en uso.
+            List<String> replacedMediaUrls = new ArrayList<>(previousImageUrls.stream()
                     .filter(previousUrl -> !keptImageUrls.contains(previousUrl))
                     .toList());
-
             if ((removeVideo || hasNewVideo) && previousVideoUrl != null && !previousVideoUrl.equals(finalVideoUrl)) {
-                deleteMedia(previousVideoUrl);
+                replacedMediaUrls.add(previousVideoUrl);
             }
+            mediaDeletionService.deleteAfterCommit(replacedMediaUrls);
 
-            return mapToResponse(updatedProduct);
+            return productMapper.toResponse(updatedProduct);
         } catch (RuntimeException e) {
-            if (hasNewImages) {
-                deleteImages(newImageUrls);
-            }
-            if (uploadedVideoUrl != null) {
-                deleteMedia(uploadedVideoUrl);
-            }
+            mediaDeletionService.deleteOrphans(withVideo(newImageUrls, uploadedVideoUrl));
             throw e;
         }
     }
@@ -186,21 +318,32 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
 
-        deleteImages(product.getImageUrls());
-        deleteMedia(product.getVideoUrl());
+        mediaDeletionService.deleteAfterCommit(withVideo(product.getImageUrls(), product.getVideoUrl()));
 
         product.setActive(false);
         productRepository.save(product);
+        publishProductChanged(product.getId(), product.getCategory());
     }
 
-    private ProductResponse mapToResponse(Product product) {
-        ProductResponse response = modelMapper.map(product, ProductResponse.class);
-        response.setImageUrl(product.getImageUrl());
-        response.setImageUrls(product.getImageUrls());
-        response.setVideoUrl(product.getVideoUrl());
-        response.setTrackInventory(product.getTrackInventory());
-        response.setLowStock(product.isLowStock());
-        return response;
+    /** Las copias del catalogo se invalidan tras el commit (ver {@link ProductCatalogCache}). */
+    private void publishProductChanged(Long productId, String... categories) {
+        Set<String> affectedCategories = new HashSet<>();
+        for (String category : categories) {
+            if (category != null) {
+                affectedCategories.add(category);
+            }
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, Set.copyOf(affectedCategories)));
+    }
+
+    /**
+     * Se arma una plantilla por llamada en lugar de modificar la compartida, que usan otros
+     * servicios para escribir.
+     */
+    private <T> T inReadOnlyTransaction(TransactionCallback<T> action) {
+        TransactionTemplate readOnlyTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTemplate.setReadOnly(true);
+        return readOnlyTemplate.execute(action);
     }
 
     private void validateProductRequest(ProductRequest request) {
@@ -234,22 +377,70 @@ public class ProductService {
             );
         }
 
-        List<String> uploadedImageUrls = new ArrayList<>();
+        // Todo lo que llego a Cloudinary, en el orden en que termino: es lo que hay que borrar si
+        // falla alguna. El orden de la galeria sale de los futures, no de esta lista.
+        List<String> uploadedImageUrls = Collections.synchronizedList(new ArrayList<>());
+        Semaphore permits = new Semaphore(Math.max(1, uploadConcurrency));
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+        List<CompletableFuture<String>> uploads = validImages.stream()
+                .map(image -> CompletableFuture.supplyAsync(
+                        () -> uploadImage(image, permits, firstFailure, uploadedImageUrls), mediaUploadExecutor))
+                .toList();
+
+        try {
+            return uploads.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+        } catch (CompletionException e) {
+            // Antes de borrar hay que esperar a las que siguen en vuelo: una que terminara despues
+            // del rollback dejaria una imagen huerfana en Cloudinary.
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new))
+                    .exceptionally(ignored -> null)
+                    .join();
+            mediaDeletionService.deleteOrphans(List.copyOf(uploadedImageUrls));
+
+            // Se informa el error que corto el guardado, no el de una subida que se salto por el.
+            Throwable cause = firstFailure.get() != null ? firstFailure.get() : e.getCause();
+            if (cause instanceof IOException io) {
+                log.error("Error al subir imagenes a Cloudinary: {}", io.getMessage());
+                throw new RuntimeException("Error al subir las imagenes: " + io.getMessage(), io);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException("Error al subir las imagenes: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Una subida de la galeria. Si otra ya fallo, las que todavia esperaban turno ni empiezan: el
+     * guardado completo se va a deshacer igual.
+     */
+    private String uploadImage(
+            MultipartFile image,
+            Semaphore permits,
+            AtomicReference<Throwable> firstFailure,
+            List<String> uploadedImageUrls) {
 
+        permits.acquireUninterruptibly();
         try {
-            for (MultipartFile image : validImages) {
-                uploadedImageUrls.add(cloudinaryService.uploadImage(image));
-                ensureImageGalleryFitsStorage(uploadedImageUrls);
+            if (firstFailure.get() != null) {
+                throw new IllegalStateException("Subida omitida: fallo otra imagen del mismo guardado");
             }
 
-            return List.copyOf(uploadedImageUrls);
+            String imageUrl = cloudinaryService.uploadImage(image);
+            uploadedImageUrls.add(imageUrl);
+            ensureImageFitsStorage(imageUrl);
+            return imageUrl;
         } catch (IOException e) {
-            deleteImages(uploadedImageUrls);
-            log.error("Error al subir imagenes a Cloudinary: {}", e.getMessage());
-            throw new RuntimeException("Error al subir las imagenes: " + e.getMessage(), e);
+            firstFailure.compareAndSet(null, e);
+            throw new UncheckedIOException(e);
         } catch (RuntimeException e) {
-            deleteImages(uploadedImageUrls);
+            firstFailure.compareAndSet(null, e);
             throw e;
+        } finally {
+            permits.release();
         }
     }
 
@@ -284,41 +475,21 @@ public class ProductService {
         return sanitizedRequestedUrls;
     }
 
-    private void deleteImages(List<String> imageUrls) {
-        if (imageUrls == null || imageUrls.isEmpty()) {
-            return;
+    private static List<String> withVideo(List<String> imageUrls, String videoUrl) {
+        List<String> mediaUrls = new ArrayList<>(imageUrls);
+        if (StringUtils.hasText(videoUrl)) {
+            mediaUrls.add(videoUrl);
         }
-
-        imageUrls.forEach(imageUrl -> {
-            boolean deleted = cloudinaryService.deleteMedia(imageUrl);
-            if (deleted) {
-                log.info("Imagen eliminada del almacenamiento: {}", imageUrl);
-            } else {
-                log.warn("No se pudo eliminar la imagen del almacenamiento: {}", imageUrl);
-            }
-        });
+        return mediaUrls;
     }
 
-    private void deleteMedia(String mediaUrl) {
-        if (!StringUtils.hasText(mediaUrl)) {
-            return;
-        }
-
-        boolean deleted = cloudinaryService.deleteMedia(mediaUrl);
-        if (deleted) {
-            log.info("Archivo eliminado del almacenamiento: {}", mediaUrl);
-        } else {
-            log.warn("No se pudo eliminar el archivo del almacenamiento: {}", mediaUrl);
-        }
-    }
-
-    private void ensureImageGalleryFitsStorage(List<String> imageUrls) {
-        String serializedImageUrls = String.join("|", imageUrls);
-        if (serializedImageUrls.length() > MAX_IMAGE_URL_STORAGE_LENGTH) {
-            throw new IllegalArgumentException(
-                    "Las imagenes exceden el espacio disponible del producto. Usa hasta "
-                            + MAX_PRODUCT_IMAGES + " imagenes por producto por ahora."
-            );
+    /**
+     * Cada foto ocupa su propia fila en product_images, asi que ya no hay un tope para la galeria
+     * completa: solo para cada URL.
+     */
+    private void ensureImageFitsStorage(String imageUrl) {
+        if (imageUrl != null && imageUrl.length() > MAX_IMAGE_URL_STORAGE_LENGTH) {
+            throw new IllegalArgumentException("La imagen excede el espacio disponible del producto.");
         }
     }
 
@@ -350,6 +521,14 @@ public class ProductService {
         return resolveTrackInventory(request) ? request.getStock() : 0;
     }
 
+    /** Sin control de inventario no hay stock que repartir. */
+    private Integer resolveStockBuckets(ProductRequest request, Integer currentBuckets) {
+        if (!resolveTrackInventory(request)) {
+            return 0;
+        }
+        return request.getStockBuckets() != null ? request.getStockBuckets() : currentBuckets;
+    }
+
     private String uploadVideo(MultipartFile video) {
         if (video == null || video.isEmpty()) {
             return null;
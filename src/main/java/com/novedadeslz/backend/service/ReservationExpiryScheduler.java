@@ -0,0 +1,117 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.event.OrderPlacedEvent;
+import com.novedadeslz.backend.event.PaymentProofUploadedEvent;
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.repository.OrderRepository;
+import com.novedadeslz.backend.repository.PendingReservation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Libera el stock de cada pedido sin comprobante a los pocos segundos de vencer su reserva.
+ *
+ * <p>Con solo la pasada horaria de {@link AbandonedOrderCleanupService}, una reserva vencida seguia
+ * bloqueando unidades hasta una hora mas, y un producto con poco stock figuraba agotado todo ese
+ * tiempo. Ahora cada pedido agenda su vencimiento en una {@link TimingWheel} en memoria al crearse,
+ * y un tick por segundo cancela los que vencieron. La pasada horaria queda como red de seguridad.
+ *
+ * <p>La rueda no se persiste: al arrancar se reconstruye con los pedidos que siguen reteniendo
+ * stock, y los que vencieron mientras la app estaba abajo salen en el primer tick. Con mas de una
+ * instancia cada una tendria su rueda y ambas intentarian los mismos pedidos, lo que no rompe nada
+ * porque la cancelacion los revalida con el pedido bloqueado.
+ */
+@Service
+@Slf4j
+public class ReservationExpiryScheduler {
+
+    /** 64 ranuras de 1 s: tres niveles cubren 72 horas. */
+    static final int WHEEL_SIZE = 64;
+
+    private final OrderRepository orderRepository;
+    private final AbandonedOrderCleanupService cleanupService;
+    private final Duration holdDuration;
+    private final long tickMillis;
+    private final TimingWheel<Long> wheel;
+
+    public ReservationExpiryScheduler(
+            OrderRepository orderRepository,
+            AbandonedOrderCleanupService cleanupService,
+            MeterRegistry meterRegistry,
+            @Value("${app.orders.abandon-after-hours:48}") long abandonAfterHours,
+            @Value("${app.orders.expiry-tick-ms:1000}") long tickMillis) {
+        this.orderRepository = orderRepository;
+        this.cleanupService = cleanupService;
+        this.holdDuration = Duration.ofHours(abandonAfterHours);
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+
+        Gauge.builder("orders.reservations.scheduled", wheel, TimingWheel::size)
+                .description("Reservas de stock agendadas para vencer")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<PendingReservation> reservations = orderRepository.findPendingReservations(Order.OrderStatus.PENDING);
+        for (PendingReservation reservation : reservations) {
+            schedule(reservation.getId(), reservation.getCreatedAt());
+        }
+        log.info("Se agendaron {} reserva(s) de stock pendientes", reservations.size());
+    }
+
+    /** Despues del commit: un pedido revertido no debe quedar agendado. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        schedule(event.orderId(), event.createdAt());
+    }
+
+    /** Con comprobante el pedido deja PENDING y ya no vence; se saca para no cargarlo en vano. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPaymentProofUploaded(PaymentProofUploadedEvent event) {
+        wheel.cancel(event.orderId());
+    }
+
+    /** Si la cancelacion falla, la pasada horaria recoge esos pedidos. */
+    @Scheduled(fixedDelayString = "${app.orders.expiry-tick-ms:1000}", initialDelay = 60_000)
+    public void releaseExpired() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        try {
+            int cancelled = cleanupService.cancelExpiredOrders(expired);
+            if (cancelled > 0) {
+                log.info("Se cancelaron {} pedido(s) al vencer su reserva de stock", cancelled);
+            }
+        } catch (RuntimeException e) {
+            log.error("No se pudieron cancelar {} pedido(s) con la reserva vencida", expired.size(), e);
+        }
+    }
+
+    /**
+     * La rueda puede adelantarse hasta un tick; se agenda un tick despues del plazo para que la
+     * cancelacion, que exige haber pasado el corte, no lo encuentre todavia a tiempo.
+     */
+    private void schedule(Long orderId, LocalDateTime createdAt) {
+        if (orderId == null || createdAt == null) {
+            return;
+        }
+        long deadline = createdAt.plus(holdDuration).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        wheel.schedule(orderId, deadline + tickMillis);
+    }
+}
@@ -0,0 +1,145 @@
+package com.novedadeslz.backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rueda de tiempo jerarquica: agenda y cancela en O(1) y, en cada tick, solo mira la ranura que
+ * vence en vez de recorrer todo lo agendado.
+ *
+ * <p>El primer nivel tiene {@code wheelSize} ranuras de {@code tickMillis}; cada nivel siguiente
+ * tiene ranuras tan anchas como una vuelta completa del anterior y se crea recien cuando algo cae
+ * tan lejos. Al entrar en una ranura de un nivel alto, su contenido baja a los niveles de abajo, asi
+ * que un plazo de dias se dispara con la precision de un tick. Con ticks de 1 s y 64 ranuras, tres
+ * niveles cubren 72 horas.
+ *
+ * <p>Cancelar o volver a agendar una clave no la busca en las ranuras: la entrada vieja queda y se
+ * descarta al vencer porque ya no coincide con el plazo vigente de la clave.
+ *
+ * <p>Los metodos son {@code synchronized}: se agenda desde los hilos de request y se avanza desde
+ * el scheduler, y ninguna operacion hace mas que mover algunas entradas en memoria.
+ */
+final class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level> levels = new ArrayList<>();
+    /** Plazo vigente de cada clave agendada. */
+    private final Map<K, Long> deadlines = new HashMap<>();
+    /** Vencidas al agendar o al bajar de nivel; salen en el proximo {@link #advance}. */
+    private final List<K> expired = new ArrayList<>();
+    /** Inicio del tick actual. La ranura de este tick ya se vacio. */
+    private long currentTime;
+
+    TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Se necesita un tick positivo y al menos 2 ranuras");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        levels.add(new Level(tickMillis));
+    }
+
+    /** Agenda o reagenda {@code key}. Un plazo ya pasado se entrega en el proximo {@link #advance}. */
+    synchronized void schedule(K key, long deadlineMillis) {
+        deadlines.put(key, deadlineMillis);
+        place(new Entry<>(key, deadlineMillis));
+    }
+
+    synchronized void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    /**
+     * Avanza el reloj hasta {@code nowMillis} y devuelve las claves cuyo plazo llego, cada una una
+     * sola vez. Puede adelantarse hasta un tick, nunca atrasarse mas que eso.
+     */
+    synchronized List<K> advance(long nowMillis) {
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+            // De arriba hacia abajo: lo que baja de un nivel alto puede caer en la ranura que se
+            // vacia a continuacion en el de abajo.
+            for (int i = levels.size() - 1; i >= 0; i--) {
+                Level level = levels.get(i);
+                if (currentTime % level.tick == 0) {
+                    for (Entry<K> entry : level.drain(currentTime)) {
+                        place(entry);
+                    }
+                }
+            }
+        }
+
+        List<K> due = new ArrayList<>();
+        for (K key : expired) {
+            // Cancelada, reagendada o ya entregada: la entrada es vieja.
+            Long deadline = deadlines.get(key);
+            if (deadline != null && deadline < currentTime + tickMillis) {
+                deadlines.remove(key);
+                due.add(key);
+            }
+        }
+        expired.clear();
+        return due;
+    }
+
+    /** Claves agendadas que todavia no vencieron. */
+    synchronized int size() {
+        return deadlines.size();
+    }
+
+    private void place(Entry<K> entry) {
+        Long deadline = deadlines.get(entry.key());
+        if (deadline == null || deadline != entry.deadline()) {
+            return;
+        }
+        if (entry.deadline() < currentTime + tickMillis) {
+            expired.add(entry.key());
+            return;
+        }
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                levels.add(new Level(levels.get(i - 1).tick * wheelSize));
+            }
+            Level level = levels.get(i);
+            long levelStart = currentTime - Math.floorMod(currentTime, level.tick);
+            if (entry.deadline() < levelStart + level.tick * wheelSize) {
+                level.add(entry);
+                return;
+            }
+        }
+    }
+
+    private record Entry<K>(K key, long deadline) {
+    }
+
+    private final class Level {
+
+        private final long tick;
+        private final List<List<Entry<K>>> slots = new ArrayList<>(wheelSize);
+
+        Level(long tick) {
+            this.tick = tick;
+            for (int i = 0; i < wheelSize; i++) {
+                slots.add(new ArrayList<>());
+            }
+        }
+
+        void add(Entry<K> entry) {
+            slots.get(slotOf(entry.deadline())).add(entry);
+        }
+
+        List<Entry<K>> drain(long time) {
+            int slot = slotOf(time);
+            List<Entry<K>> entries = slots.get(slot);
+            slots.set(slot, new ArrayList<>());
+            return entries;
+        }
+
+        private int slotOf(long time) {
+            return (int) Math.floorMod(Math.floorDiv(time, tick), (long) wheelSize);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+-- Correlativo diario de numeros de pedido.
+--
+-- El numero ORD-yyyyMMdd-NNNN se calculaba con un COUNT(*) + 1 sobre los pedidos del dia: dos
+-- checkouts simultaneos obtenian el mismo numero y el pedido se reintentaba entero. Ahora cada dia
+-- tiene una fila que se incrementa de forma atomica. No hace falta backfill: la fila de un dia se
+-- crea con su primer pedido, partiendo del mayor numero que ya exista para ese dia.
+
+BEGIN
+  EXECUTE IMMEDIATE '
+    CREATE TABLE order_number_counters (
+      counter_day VARCHAR2(8) NOT NULL,
+      last_value  NUMBER(10) NOT NULL,
+      CONSTRAINT pk_order_number_counters PRIMARY KEY (counter_day)
+    )';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+COMMIT;
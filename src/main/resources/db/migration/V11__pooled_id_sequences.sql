@@ -0,0 +1,22 @@
+-- Las secuencias de productos, pedidos e items pasan a entregar bloques de 20 ids.
+--
+-- Hibernate pedia un NEXTVAL por cada fila insertada (allocationSize = 1): un pedido de 5 items
+-- hacia 6 viajes a Oracle antes de escribir nada. Ahora usa el optimizador "pooled" con
+-- allocationSize = 20, que toma cada NEXTVAL como el tope de un bloque y reparte los 19 ids
+-- anteriores sin volver a consultar. Por eso INCREMENT BY tiene que coincidir con allocationSize.
+--
+-- Es seguro sobre secuencias con datos: si el ultimo id entregado fue N, el siguiente NEXTVAL
+-- devuelve N + 20 y el bloque queda en N + 1 .. N + 20, sin pisar ids existentes. Requiere que no
+-- quede corriendo una instancia con allocationSize = 1 (usaria N + 20 como id suelto); hoy hay un
+-- solo contenedor y Flyway corre antes de que la version nueva atienda.
+--
+-- ALTER SEQUENCE al mismo INCREMENT BY no falla, asi que el script se puede repetir.
+
+BEGIN
+  EXECUTE IMMEDIATE 'ALTER SEQUENCE product_seq INCREMENT BY 20';
+  EXECUTE IMMEDIATE 'ALTER SEQUENCE order_seq INCREMENT BY 20';
+  EXECUTE IMMEDIATE 'ALTER SEQUENCE order_item_seq INCREMENT BY 20';
+END;
+/
+
+COMMIT;
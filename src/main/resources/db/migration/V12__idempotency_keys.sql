@@ -0,0 +1,36 @@
+-- Claves Idempotency-Key de POST /api/orders y de la subida del comprobante Yape.
+--
+-- En redes moviles malas el cliente reintenta el checkout, y cada reintento apartaba stock otra
+-- vez y creaba otro pedido PENDING que bloqueaba inventario por 48 horas. Con la clave, el
+-- reintento devuelve la respuesta guardada aca en vez de repetir el trabajo. Las filas vencen a
+-- las 24 horas y un proceso en segundo plano las borra.
+
+BEGIN
+  EXECUTE IMMEDIATE '
+    CREATE TABLE idempotency_keys (
+      request_key   VARCHAR2(150) NOT NULL,
+      fingerprint   VARCHAR2(64) NOT NULL,
+      response_body CLOB,
+      created_at    TIMESTAMP NOT NULL,
+      expires_at    TIMESTAMP NOT NULL,
+      CONSTRAINT pk_idempotency_keys PRIMARY KEY (request_key)
+    )';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE INDEX idx_idem_keys_expires_at ON idempotency_keys (expires_at)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE NOT IN (-955, -1408) THEN
+      RAISE;
+    END IF;
+END;
+/
+
+COMMIT;
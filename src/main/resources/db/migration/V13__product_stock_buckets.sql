@@ -0,0 +1,36 @@
+-- Stock repartido en varias filas para productos en oferta relampago.
+--
+-- Cada checkout aparta stock con un UPDATE condicional sobre la fila del producto, y durante una
+-- promocion todos los checkouts del mismo producto se turnan ese bloqueo: sale una reserva por cada
+-- commit contra Oracle. Un producto con stock_buckets = N reparte sus unidades en N filas de
+-- product_stock_buckets y cada checkout aparta de una al azar. Con 0 (el valor por defecto) todo
+-- sigue como antes, en la fila del producto.
+
+BEGIN
+  EXECUTE IMMEDIATE 'ALTER TABLE products ADD (stock_buckets NUMBER(3) DEFAULT 0 NOT NULL)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -1430 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE '
+    CREATE TABLE product_stock_buckets (
+      product_id NUMBER(19) NOT NULL,
+      bucket_no  NUMBER(3) NOT NULL,
+      stock      NUMBER(10) NOT NULL,
+      CONSTRAINT pk_product_stock_buckets PRIMARY KEY (product_id, bucket_no),
+      CONSTRAINT fk_stock_buckets_product FOREIGN KEY (product_id) REFERENCES products (id)
+    )';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+COMMIT;
@@ -0,0 +1,101 @@
+-- Historial de cada pedido como filas en order_events en vez de texto en orders.notes.
+--
+-- Cada nota (cambio de estado, resumen del OCR, reintento de WhatsApp) se concatenaba al CLOB de
+-- notas y se reescribia el CLOB entero, asi que cada nota costaba mas que la anterior y el pedido
+-- cargaba todo su historial en cada lectura. Ahora cada nota es un INSERT y el historial solo se
+-- lee en el detalle del panel admin.
+--
+-- Las notas existentes se parten por linea. Cada linea tenia la forma "yyyy-MM-dd HH:mm - texto";
+-- la fecha pasa a created_at y el texto a message. Las lineas sin fecha (un motivo de rechazo con
+-- saltos de linea) heredan la fecha de la anterior. Se saltan los pedidos que ya tienen historial,
+-- asi el script se puede repetir.
+--
+-- message se declara en caracteres, como las columnas de texto de V1: Java corta el mensaje a 1000
+-- caracteres y un motivo de rechazo con tildes o enies pasaria los 1000 bytes.
+--
+-- orders.notes queda sin mapear pero no se borra todavia: si hubiera que volver a la version
+-- anterior, las notas siguen ahi. Se eliminara en una migracion posterior.
+
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE SEQUENCE order_event_seq START WITH 1 INCREMENT BY 50';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE '
+    CREATE TABLE order_events (
+      id         NUMBER(19) NOT NULL,
+      order_id   NUMBER(19) NOT NULL,
+      type       VARCHAR2(30) NOT NULL,
+      actor      VARCHAR2(20) NOT NULL,
+      message    VARCHAR2(1000 CHAR) NOT NULL,
+      created_at TIMESTAMP NOT NULL,
+      CONSTRAINT pk_order_events PRIMARY KEY (id),
+      CONSTRAINT fk_order_events_order FOREIGN KEY (order_id) REFERENCES orders (id)
+    )';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE INDEX idx_order_events_order ON order_events (order_id, created_at)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE NOT IN (-955, -1408) THEN
+      RAISE;
+    END IF;
+END;
+/
+
+DECLARE
+  v_length PLS_INTEGER;
+  v_pos    PLS_INTEGER;
+  v_next   PLS_INTEGER;
+  v_line   VARCHAR2(4000 CHAR);
+  v_at     TIMESTAMP;
+BEGIN
+  FOR o IN (
+    SELECT id, notes, created_at
+    FROM orders ord
+    WHERE notes IS NOT NULL
+      AND NOT EXISTS (SELECT 1 FROM order_events e WHERE e.order_id = ord.id)
+  ) LOOP
+    v_length := DBMS_LOB.GETLENGTH(o.notes);
+    v_pos := 1;
+    v_at := o.created_at;
+
+    WHILE v_pos <= v_length LOOP
+      v_next := DBMS_LOB.INSTR(o.notes, CHR(10), v_pos);
+      IF v_next = 0 THEN
+        v_next := v_length + 1;
+      END IF;
+
+      v_line := TRIM(DBMS_LOB.SUBSTR(o.notes, LEAST(v_next - v_pos, 4000), v_pos));
+      IF v_line IS NOT NULL THEN
+        IF REGEXP_LIKE(v_line, '^[0-9]{4}-[0-9]{2}-[0-9]{2} [0-9]{2}:[0-9]{2} - ') THEN
+          v_at := TO_TIMESTAMP(SUBSTR(v_line, 1, 16), 'YYYY-MM-DD HH24:MI');
+          v_line := TRIM(SUBSTR(v_line, 20));
+        END IF;
+
+        IF v_line IS NOT NULL THEN
+          INSERT INTO order_events (id, order_id, type, actor, message, created_at)
+          VALUES (order_event_seq.NEXTVAL, o.id, 'NOTE', 'SYSTEM', SUBSTR(v_line, 1, 1000), v_at);
+        END IF;
+      END IF;
+
+      v_pos := v_next + 1;
+    END LOOP;
+  END LOOP;
+END;
+/
+
+COMMIT;
@@ -0,0 +1,64 @@
+-- Terminos de busqueda de pedidos para el panel admin.
+--
+-- La busqueda era LOWER(order_number) LIKE '%x%' OR LOWER(customer_name) LIKE '%x%' OR
+-- customer_phone LIKE '%x%'. Con el comodin al inicio no sirve ningun indice, ni siquiera
+-- idx_orders_customer_phone, y cada busqueda recorria la tabla de pedidos entera. Ahora cada
+-- pedido guarda aca los terminos por los que se lo puede encontrar (sufijos de su nombre y de su
+-- numero, telefono normalizado y telefono al reves) y la busqueda es un LIKE 'x%', un rango sobre
+-- idx_order_search_term.
+--
+-- La tabla se llena al crear cada pedido. Los pedidos existentes los indexa la aplicacion al
+-- arrancar (OrderSearchIndex), de a lotes: la normalizacion (minusculas, sin tildes) tiene que ser
+-- exactamente la misma que usa la busqueda, y repetirla en PL/SQL seria mantenerla en dos lugares.
+
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE SEQUENCE order_search_term_seq START WITH 1 INCREMENT BY 50';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE '
+    CREATE TABLE order_search_terms (
+      id       NUMBER(19) NOT NULL,
+      order_id NUMBER(19) NOT NULL,
+      kind     VARCHAR2(10) NOT NULL,
+      term     VARCHAR2(150) NOT NULL,
+      CONSTRAINT pk_order_search_terms PRIMARY KEY (id),
+      CONSTRAINT fk_order_search_order FOREIGN KEY (order_id) REFERENCES orders (id)
+    )';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+-- order_id al final: la busqueda se resuelve solo con el indice, sin visitar la tabla.
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE INDEX idx_order_search_term ON order_search_terms (kind, term, order_id)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE NOT IN (-955, -1408) THEN
+      RAISE;
+    END IF;
+END;
+/
+
+-- Para borrar los terminos de un pedido y para encontrar los pedidos todavia sin indexar.
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE INDEX idx_order_search_order ON order_search_terms (order_id)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE NOT IN (-955, -1408) THEN
+      RAISE;
+    END IF;
+END;
+/
+
+COMMIT;
@@ -0,0 +1,19 @@
+-- Indice para filtrar el listado del panel por medio de pago.
+--
+-- Hasta ahora el listado aplicaba un solo filtro a la vez y el medio de pago no era uno de ellos.
+-- Ahora los filtros se combinan (estado, busqueda, fechas, medio de pago) y el orden por defecto es
+-- por fecha, asi que el medio de pago va con created_at detras, igual que idx_orders_status_created
+-- para el estado. Con estado y medio de pago juntos alcanza con idx_orders_status_created: hay solo
+-- dos medios de pago y el resto se descarta al recorrerlo.
+
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE INDEX idx_orders_payment_created ON orders (payment_method, created_at)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE NOT IN (-955, -1408) THEN
+      RAISE;
+    END IF;
+END;
+/
+
+COMMIT;
@@ -0,0 +1,30 @@
+-- El rastreo publico buscaba con UPPER(order_number) = UPPER(?), que el indice unico de
+-- order_number no sirve, y asignaba el token de acceso a los pedidos que no lo tenian, asi que
+-- cada consulta abria una transaccion de escritura. Aca se hace una sola vez lo que hacia falta
+-- para que el rastreo sea una lectura exacta por indice.
+
+-- Pedidos creados entre el backfill de V4 y el despliegue que empezo a generar tokens.
+UPDATE orders
+SET public_token = LOWER(RAWTOHEX(SYS_GUID()))
+WHERE public_token IS NULL;
+
+COMMIT;
+
+BEGIN
+  EXECUTE IMMEDIATE 'ALTER TABLE orders MODIFY (public_token NOT NULL)';
+EXCEPTION
+  WHEN OTHERS THEN
+    -- ORA-01442: la columna ya es NOT NULL
+    IF SQLCODE != -1442 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+-- Los numeros se generan en mayusculas (ORD-yyyyMMdd-NNNN); el rastreo pasa lo que escribe el
+-- cliente a mayusculas y compara exacto. Cualquier numero cargado a mano con minusculas se alinea.
+UPDATE orders
+SET order_number = UPPER(order_number)
+WHERE order_number <> UPPER(order_number);
+
+COMMIT;
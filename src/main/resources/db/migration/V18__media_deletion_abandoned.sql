@@ -0,0 +1,19 @@
+-- Tope de reintentos para la cola de borrado de media.
+--
+-- Un archivo que Cloudinary rechaza siempre (un public id mal formado, por ejemplo) se reintentaba
+-- en cada pasada para siempre, con espera creciente pero sin final. Despues de
+-- app.media-deletion.max-attempts intentos la fila se marca con abandoned_at: el proceso deja de
+-- tomarla y queda en la tabla, con su ultimo error, para revisarla a mano.
+
+BEGIN
+  EXECUTE IMMEDIATE 'ALTER TABLE media_deletions ADD (abandoned_at TIMESTAMP)';
+EXCEPTION
+  WHEN OTHERS THEN
+    -- ORA-01430: la columna ya existe
+    IF SQLCODE != -1430 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+COMMIT;
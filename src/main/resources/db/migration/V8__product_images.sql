@@ -0,0 +1,47 @@
+-- Galeria de productos en su propia tabla.
+--
+-- Hasta ahora las URLs se guardaban juntas en products.image_url separadas por "|": cada lectura
+-- partia el texto con una regex y la galeria completa no podia pasar de 4000 caracteres. Ahora
+-- cada foto es una fila, ordenada por sort_order (la 0 es la portada).
+--
+-- image_url no se borra todavia: queda como respaldo de solo lectura por si hay que volver a la
+-- version anterior, y se elimina en una migracion posterior cuando esta este estable.
+
+BEGIN
+  EXECUTE IMMEDIATE '
+    CREATE TABLE product_images (
+      product_id NUMBER(19) NOT NULL,
+      sort_order NUMBER(10) NOT NULL,
+      url        VARCHAR2(500) NOT NULL,
+      CONSTRAINT pk_product_images PRIMARY KEY (product_id, sort_order),
+      CONSTRAINT fk_product_images_product FOREIGN KEY (product_id)
+        REFERENCES products (id) ON DELETE CASCADE
+    )';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+-- Backfill desde image_url. ROW_NUMBER renumera sin huecos: Hibernate arma la lista por
+-- sort_order y un hueco apareceria como una foto nula. Se saltan los productos que ya tienen filas
+-- para que la migracion se pueda reintentar.
+INSERT INTO product_images (product_id, sort_order, url)
+SELECT product_id,
+       ROW_NUMBER() OVER (PARTITION BY product_id ORDER BY pos) - 1,
+       url
+  FROM (
+        SELECT p.id AS product_id,
+               s.pos,
+               TRIM(REGEXP_SUBSTR(p.image_url, '[^|]+', 1, s.pos)) AS url
+          FROM products p
+          JOIN (SELECT LEVEL AS pos FROM dual CONNECT BY LEVEL <= 100) s
+            ON s.pos <= REGEXP_COUNT(p.image_url, '[^|]+')
+         WHERE p.image_url IS NOT NULL
+           AND NOT EXISTS (SELECT 1 FROM product_images i WHERE i.product_id = p.id)
+       )
+ WHERE url IS NOT NULL;
+
+COMMIT;
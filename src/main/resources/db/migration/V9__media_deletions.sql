@@ -0,0 +1,47 @@
+-- Cola de archivos por borrar en Cloudinary.
+--
+-- Hasta ahora cada edicion o baja de producto llamaba a Cloudinary dentro del request, una imagen
+-- a la vez, y si la llamada fallaba solo quedaba un warning en el log y el archivo huerfano. Ahora
+-- el borrado se anota aca en la misma transaccion y un proceso en segundo plano lo ejecuta por
+-- lotes, reintentando con espera creciente.
+
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE SEQUENCE media_deletion_seq START WITH 1 INCREMENT BY 1';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE '
+    CREATE TABLE media_deletions (
+      id              NUMBER(19) NOT NULL,
+      url             VARCHAR2(500) NOT NULL,
+      attempts        NUMBER(10) DEFAULT 0 NOT NULL,
+      next_attempt_at TIMESTAMP NOT NULL,
+      last_error      VARCHAR2(500),
+      created_at      TIMESTAMP NOT NULL,
+      CONSTRAINT pk_media_deletions PRIMARY KEY (id)
+    )';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE INDEX idx_media_del_next_attempt ON media_deletions (next_attempt_at)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE NOT IN (-955, -1408) THEN
+      RAISE;
+    END IF;
+END;
+/
+
+COMMIT;
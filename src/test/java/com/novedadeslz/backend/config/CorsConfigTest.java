@@ -0,0 +1,46 @@
+package com.novedadeslz.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El panel corre en otro origen: lo que manda y lo que lee pasa por el preflight de CORS de la
+ * cadena de seguridad real, no por el MockMvc standalone de los tests de controllers.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CorsConfigTest {
+
+    private static final String PANEL_ORIGIN = "http://localhost:5173";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void eventStreamReconnectShouldPassThePreflight() throws Exception {
+        mockMvc.perform(options("/api/admin/events")
+                        .header("Origin", PANEL_ORIGIN)
+                        .header("Access-Control-Request-Method", "GET")
+                        .header("Access-Control-Request-Headers", "authorization,last-event-id"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Access-Control-Allow-Origin", PANEL_ORIGIN))
+                .andExpect(header().string("Access-Control-Allow-Headers", containsStringIgnoringCase("Last-Event-ID")));
+    }
+
+    @Test
+    void retryAfterShouldBeReadableFromThePanel() throws Exception {
+        mockMvc.perform(get("/api/products").header("Origin", PANEL_ORIGIN))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Access-Control-Expose-Headers", containsString("Retry-After")));
+    }
+}
@@ -0,0 +1,80 @@
+package com.novedadeslz.backend.controller;
+
+import com.novedadeslz.backend.model.User;
+import com.novedadeslz.backend.repository.UserRepository;
+import com.novedadeslz.backend.security.JwtTokenProvider;
+import com.novedadeslz.backend.service.AdminEventStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El stream del panel pasa por la cadena de seguridad real: el JWT se valida al abrirlo y el cierre
+ * del emitter vuelve a despachar el mismo request (dispatch ASYNC), que no trae un contexto de
+ * seguridad nuevo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class AdminEventsSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private AdminEventStream adminEventStream;
+
+    @Test
+    void closingTheStreamShouldNotBeRejectedAsAnonymous() throws Exception {
+        MvcResult connection = mockMvc.perform(get("/api/admin/events")
+                        .header("Authorization", "Bearer " + adminToken()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Cierra las conexiones abiertas como al apagar la aplicacion.
+        adminEventStream.shutdown();
+        connection.getAsyncResult(5_000);
+
+        mockMvc.perform(asyncDispatch(connection))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void streamShouldStillRequireAnAdmin() throws Exception {
+        mockMvc.perform(get("/api/admin/events"))
+                .andExpect(status().isForbidden());
+    }
+
+    private String adminToken() {
+        userRepository.save(User.builder()
+                .email("admin-stream@novedadeslz.test")
+                .passwordHash("sin-uso")
+                .fullName("Admin")
+                .role(User.Role.ADMIN)
+                .build());
+        UserDetails admin = userDetailsService.loadUserByUsername("admin-stream@novedadeslz.test");
+        return jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+    }
+}
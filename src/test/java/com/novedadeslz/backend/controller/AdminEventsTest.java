@@ -0,0 +1,134 @@
+package com.novedadeslz.backend.controller;
+
+import com.novedadeslz.backend.event.OrderActivityEvent;
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.service.AdminEventStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El panel recibe la actividad de pedidos en vivo y, al reconectar, lo que se perdio mientras tanto.
+ */
+class AdminEventsTest {
+
+    private AdminEventStream stream;
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void connectedPanelShouldReceiveNewOrdersLive() throws Exception {
+        setUp(5, 10);
+        MvcResult connection = connect(null);
+
+        stream.onOrderActivity(activity(OrderActivityEvent.Type.CREATED, 7L));
+
+        String body = awaitBody(connection, content -> content.contains("\"orderId\":7"));
+        assertTrue(body.contains("event:order-created"), body);
+        assertTrue(body.contains("\"orderNumber\":\"ORD-20260801-0007\""), body);
+    }
+
+    @Test
+    void reconnectShouldReplayOnlyWhatWasMissed() throws Exception {
+        setUp(5, 10);
+        stream.onOrderActivity(activity(OrderActivityEvent.Type.CREATED, 1L));
+        String firstId = lastEventIdAfterConnecting(OrderActivityEvent.Type.PROOF_UPLOADED, 2L);
+        stream.onOrderActivity(activity(OrderActivityEvent.Type.APPROVED, 3L));
+
+        MvcResult connection = connect(firstId);
+
+        String body = awaitBody(connection, content -> content.contains("\"orderId\":3"));
+        assertTrue(body.contains("event:order-approved"), body);
+        assertFalse(body.contains("\"orderId\":1"), body);
+        assertFalse(body.contains("\"orderId\":2"), body);
+        assertFalse(body.contains("event:reset"), body);
+    }
+
+    @Test
+    void gapLargerThanTheBufferShouldAskForAFullReload() throws Exception {
+        setUp(5, 2);
+        String oldId = lastEventIdAfterConnecting(OrderActivityEvent.Type.CREATED, 1L);
+        for (long id = 2; id <= 4; id++) {
+            stream.onOrderActivity(activity(OrderActivityEvent.Type.CREATED, id));
+        }
+
+        String body = awaitBody(connect(oldId), content -> content.contains("event:reset"));
+        assertFalse(body.contains("event:order-created"), body);
+
+        // Un id de un arranque anterior tampoco se puede continuar.
+        awaitBody(connect("otro-arranque-3"), content -> content.contains("event:reset"));
+    }
+
+    @Test
+    void connectionsBeyondTheLimitShouldBeTurnedAway() throws Exception {
+        setUp(1, 10);
+        connect(null);
+
+        mockMvc.perform(get("/api/admin/events"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"));
+    }
+
+    private void setUp(int maxConnections, int replaySize) {
+        stream = new AdminEventStream(maxConnections, replaySize, 60_000);
+        mockMvc = MockMvcBuilders.standaloneSetup(new AdminEventsController(stream)).build();
+    }
+
+    /** Publica un evento con un panel conectado y devuelve el id que ese panel vio por ultimo. */
+    private String lastEventIdAfterConnecting(OrderActivityEvent.Type type, long orderId) throws Exception {
+        MvcResult connection = connect(null);
+        stream.onOrderActivity(activity(type, orderId));
+        String body = awaitBody(connection, content -> content.contains("\"orderId\":" + orderId));
+        String idLine = body.lines().filter(line -> line.startsWith("id:")).reduce((first, second) -> second)
+                .orElseThrow();
+        return idLine.substring("id:".length());
+    }
+
+    private MvcResult connect(String lastEventId) throws Exception {
+        var request = get("/api/admin/events");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    /** Los envios salen de otro hilo: se espera a que aparezca lo buscado. */
+    private String awaitBody(MvcResult connection, Predicate<String> condition) throws Exception {
+        MockHttpServletResponse response = connection.getResponse();
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (Instant.now().isBefore(deadline)) {
+            String body = response.getContentAsString();
+            if (condition.test(body)) {
+                return body;
+            }
+            Thread.sleep(10);
+        }
+        fail("No llego el evento esperado: " + response.getContentAsString());
+        return null;
+    }
+
+    private OrderActivityEvent activity(OrderActivityEvent.Type type, long orderId) {
+        return new OrderActivityEvent(type, orderId, "ORD-20260801-%04d".formatted(orderId), Order.OrderStatus.PENDING);
+    }
+}
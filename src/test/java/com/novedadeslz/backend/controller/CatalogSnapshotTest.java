@@ -0,0 +1,172 @@
+package com.novedadeslz.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novedadeslz.backend.dto.response.ApiResponse;
+import com.novedadeslz.backend.dto.response.PageResponse;
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.event.ProductChangedEvent;
+import com.novedadeslz.backend.event.ProductStockChangedEvent;
+import com.novedadeslz.backend.service.CatalogSnapshotService;
+import com.novedadeslz.backend.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Las primeras paginas del catalogo se sirven desde bytes ya serializados.
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+    @Mock
+    private ProductService productService;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private CatalogSnapshotService snapshots;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        snapshots = new CatalogSnapshotService(productService, jsonMapper, 3, 100, 300, new SimpleMeterRegistry());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new ProductController(productService, snapshots, new ObjectMapper()))
+                .build();
+    }
+
+    @Test
+    void snapshotShouldMatchWhatJacksonWouldWrite() throws Exception {
+        Page<ProductResponse> page = page(1L, 2L);
+        when(productService.getAllProducts(isNull(), isNull(), eq(true), any())).thenReturn(page);
+
+        byte[] body = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/json"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(ApiResponse.success(PageResponse.from(page))), body);
+    }
+
+    @Test
+    void gzipVariantShouldHoldTheSameJson() throws Exception {
+        when(productService.getAllProducts(isNull(), isNull(), eq(true), any())).thenReturn(page(1L));
+
+        byte[] plain = mockMvc.perform(get("/api/products"))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] compressed = mockMvc.perform(get("/api/products").header("Accept-Encoding", "gzip, br"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertArrayEquals(plain, gunzip(compressed));
+    }
+
+    @Test
+    void repeatedVisitsShouldReuseTheSnapshot() throws Exception {
+        when(productService.getAllProducts(isNull(), isNull(), eq(true), any())).thenReturn(page(1L));
+
+        String etag = mockMvc.perform(get("/api/products")).andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products").header("If-None-Match", etag)).andExpect(status().isNotModified());
+
+        verify(productService, times(1)).getAllProducts(isNull(), isNull(), eq(true), any());
+    }
+
+    @Test
+    void stockChangeShouldRebuildOnlyPagesShowingTheProduct() throws Exception {
+        when(productService.getAllProducts(isNull(), isNull(), eq(true), any())).thenReturn(page(1L));
+        when(productService.getAllProducts(eq("Aretes"), isNull(), eq(true), any())).thenReturn(page(9L));
+        mockMvc.perform(get("/api/products"));
+        mockMvc.perform(get("/api/products/category/Aretes"));
+
+        snapshots.onStockChanged(new ProductStockChangedEvent(Set.of(1L)));
+        mockMvc.perform(get("/api/products"));
+        mockMvc.perform(get("/api/products/category/Aretes"));
+
+        verify(productService, times(2)).getAllProducts(isNull(), isNull(), eq(true), any());
+        verify(productService, times(1)).getAllProducts(eq("Aretes"), isNull(), eq(true), any());
+    }
+
+    @Test
+    void productChangeShouldKeepOtherCategories() throws Exception {
+        when(productService.getAllProducts(eq("Aretes"), isNull(), eq(true), any())).thenReturn(page(9L));
+        mockMvc.perform(get("/api/products").param("category", "Aretes"));
+
+        snapshots.onProductChanged(new ProductChangedEvent(1L, Set.of("Vinchas")));
+        mockMvc.perform(get("/api/products/category/Aretes"));
+
+        verify(productService, times(1)).getAllProducts(eq("Aretes"), isNull(), eq(true), any());
+    }
+
+    @Test
+    void unknownCategoriesShouldNotBeKept() throws Exception {
+        when(productService.getAllProducts(eq("inventada"), isNull(), eq(true), any())).thenReturn(page());
+
+        mockMvc.perform(get("/api/products/category/inventada")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/category/inventada")).andExpect(status().isOk());
+
+        verify(productService, times(2)).getAllProducts(eq("inventada"), isNull(), eq(true), any());
+    }
+
+    @Test
+    void otherQueriesShouldTakeTheRegularPath() throws Exception {
+        when(productService.getCatalogVersion()).thenReturn("boot-1");
+        when(productService.getAllProducts(isNull(), isNull(), eq(true), any())).thenReturn(page(1L));
+
+        mockMvc.perform(get("/api/products").param("size", "50")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products").param("page", "3")).andExpect(status().isOk());
+
+        verify(productService, times(2)).getAllProducts(isNull(), isNull(), eq(true), any());
+    }
+
+    private Page<ProductResponse> page(Long... ids) {
+        List<ProductResponse> content = Arrays.stream(ids)
+                .map(id -> ProductResponse.builder()
+                        .id(id)
+                        .name("Producto " + id)
+                        .price(new BigDecimal("12.50"))
+                        .stock(3)
+                        .trackInventory(true)
+                        .createdAt(LocalDateTime.of(2026, 7, 25, 10, 0))
+                        .build())
+                .toList();
+        return new PageImpl<>(content, FIRST_PAGE, content.size());
+    }
+
+    private byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
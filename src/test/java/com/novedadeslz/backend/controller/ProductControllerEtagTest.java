@@ -0,0 +1,119 @@
+package com.novedadeslz.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.service.CatalogSnapshotService;
+import com.novedadeslz.backend.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El catalogo responde 304 cuando el navegador ya tiene la version vigente, sin consultar ni
+ * serializar nada.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductControllerEtagTest {
+
+    @Mock
+    private ProductService productService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // Sin paginas pre-serializadas: aca se prueba el camino normal (ver CatalogSnapshotTest).
+        CatalogSnapshotService noSnapshots = new CatalogSnapshotService(
+                productService, JsonMapper.builder().build(), 0, 100, 300, new SimpleMeterRegistry());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new ProductController(productService, noSnapshots, new ObjectMapper()))
+                .build();
+    }
+
+    @Test
+    void unchangedCatalogShouldAnswerNotModifiedWithoutLoadingProducts() throws Exception {
+        when(productService.getCatalogVersion()).thenReturn("boot-4");
+        when(productService.getAllProducts(isNull(), isNull(), any(), any()))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+
+        MvcResult first = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(productService).getAllProducts(isNull(), isNull(), any(), any());
+    }
+
+    @Test
+    void catalogWriteShouldChangeTheListEtag() throws Exception {
+        when(productService.getAllProducts(isNull(), isNull(), any(), any()))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+        when(productService.getCatalogVersion()).thenReturn("boot-4", "boot-5");
+
+        String before = mockMvc.perform(get("/api/products")).andReturn().getResponse().getHeader("ETag");
+
+        String after = mockMvc.perform(get("/api/products").header("If-None-Match", before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    void productDetailShouldChangeItsEtagWhenStockMoves() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 7, 25, 10, 0);
+        when(productService.getProductById(7L)).thenReturn(
+                ProductResponse.builder().id(7L).stock(3).updatedAt(updatedAt).build(),
+                ProductResponse.builder().id(7L).stock(3).updatedAt(updatedAt).build(),
+                ProductResponse.builder().id(7L).stock(2).updatedAt(updatedAt).build()
+        );
+
+        String etag = mockMvc.perform(get("/api/products/7")).andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/products/7").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Una reserva no toca updated_at, pero si el stock que muestra el detalle.
+        String afterReservation = mockMvc.perform(get("/api/products/7").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, afterReservation);
+    }
+
+    @Test
+    void cursorModeShouldShareTheCatalogEtag() throws Exception {
+        when(productService.getCatalogVersion()).thenReturn("boot-4");
+
+        mockMvc.perform(get("/api/products").param("after", "").header("If-None-Match", "\"c-boot-4\""))
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).getProductsAfter(any(), any(), any(), anyInt(), any());
+    }
+}
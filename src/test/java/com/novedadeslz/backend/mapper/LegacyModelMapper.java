@@ -0,0 +1,59 @@
+package com.novedadeslz.backend.mapper;
+
+import com.novedadeslz.backend.dto.response.OrderResponse;
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.Product;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+
+/**
+ * El mapeo tal como lo hacian los servicios antes de los mappers escritos a mano: ModelMapper con
+ * la configuracion del antiguo ModelMapperConfig mas los ajustes que aplicaba cada servicio.
+ * Sirve de referencia para los tests de paridad y de linea base para el benchmark.
+ */
+final class LegacyModelMapper {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    LegacyModelMapper() {
+        modelMapper.getConfiguration()
+                .setMatchingStrategy(MatchingStrategies.STRICT)
+                .setSkipNullEnabled(true)
+                .setAmbiguityIgnored(true);
+    }
+
+    ProductResponse toResponse(Product product) {
+        ProductResponse response = modelMapper.map(product, ProductResponse.class);
+        response.setImageUrl(product.getImageUrl());
+        response.setImageUrls(product.getImageUrls());
+        response.setVideoUrl(product.getVideoUrl());
+        response.setTrackInventory(product.getTrackInventory());
+        response.setLowStock(product.isLowStock());
+        return response;
+    }
+
+    OrderResponse toResponse(Order order, boolean includeInternalNotes) {
+        OrderResponse response = modelMapper.map(order, OrderResponse.class);
+        response.setStatus(order.getStatus().name());
+        if (!includeInternalNotes) {
+            response.setNotes(null);
+        }
+
+        if (order.getItems() != null) {
+            var itemResponses = order.getItems().stream()
+                    .map(item -> OrderResponse.OrderItemResponse.builder()
+                            .id(item.getId())
+                            .productId(item.getProduct().getId())
+                            .productName(item.getProductName())
+                            .quantity(item.getQuantity())
+                            .unitPrice(item.getUnitPrice())
+                            .subtotal(item.getSubtotal())
+                            .build())
+                    .toList();
+            response.setItems(itemResponses);
+        }
+
+        return response;
+    }
+}
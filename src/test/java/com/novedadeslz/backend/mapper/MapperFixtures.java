@@ -0,0 +1,75 @@
+package com.novedadeslz.backend.mapper;
+
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderItem;
+import com.novedadeslz.backend.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Entidades con todos los campos llenos, para que la paridad no pase por campos vacios. */
+final class MapperFixtures {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 7, 25, 10, 30);
+
+    private MapperFixtures() {
+    }
+
+    static Product product(Long id) {
+        Product product = Product.builder()
+                .id(id)
+                .name("Vincha de perlas " + id)
+                .description("Accesorio para el cabello con perlas sinteticas")
+                .price(new BigDecimal("25.90"))
+                .videoUrl("https://cdn.example.com/video/" + id + ".mp4")
+                .category("Vinchas")
+                .stock(4)
+                .trackInventory(true)
+                .active(true)
+                .createdAt(CREATED_AT)
+                .updatedAt(CREATED_AT.plusHours(2))
+                .build();
+        product.setImageUrls(List.of(
+                "https://cdn.example.com/" + id + "-1.jpg",
+                "https://cdn.example.com/" + id + "-2.jpg",
+                "https://cdn.example.com/" + id + "-3.jpg"
+        ));
+        return product;
+    }
+
+    static Order order(Long id, int itemCount) {
+        Order order = Order.builder()
+                .id(id)
+                .orderNumber("ORD-20260725-" + String.format("%04d", id))
+                .publicToken("3f1c9d2e-7a45-4b18-9c30-5e6f8a1b2c3d")
+                .customerName("Rosa Quispe")
+                .customerPhone("+51987654321")
+                .customerEmail("rosa@example.com")
+                .customerAddress("Av. Los Olivos 123")
+                .customerCity("Lima")
+                .total(new BigDecimal("77.70"))
+                .status(Order.OrderStatus.PAYMENT_REVIEW)
+                .paymentMethod("YAPE")
+                .paymentProof("https://cdn.example.com/proof.png")
+                .operationNumber("12345678")
+                .whatsappSent(true)
+                .stockReserved(true)
+                .createdAt(CREATED_AT)
+                .updatedAt(CREATED_AT.plusMinutes(5))
+                .build();
+
+        for (long index = 1; index <= itemCount; index++) {
+            OrderItem item = OrderItem.builder()
+                    .id(id * 100 + index)
+                    .product(product(index))
+                    .productName("Vincha " + index)
+                    .quantity(3)
+                    .unitPrice(new BigDecimal("25.90"))
+                    .subtotal(new BigDecimal("77.70"))
+                    .build();
+            order.addItem(item);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,82 @@
+package com.novedadeslz.backend.mapper;
+
+import com.novedadeslz.backend.dto.response.OrderResponse;
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por fila de mapear una entidad a su respuesta: ModelMapper contra los mappers a mano.
+ *
+ * <p>No corre con {@code mvn test}. Para ejecutarlo:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *     com.novedadeslz.backend.mapper.MappingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private Product product;
+    private Order order;
+    private LegacyModelMapper legacy;
+    private ProductMapper productMapper;
+    private OrderMapper orderMapper;
+
+    @Setup
+    public void setUp() {
+        product = MapperFixtures.product(1L);
+        order = MapperFixtures.order(1L, 3);
+        legacy = new LegacyModelMapper();
+        productMapper = new ProductMapper();
+        orderMapper = new OrderMapper();
+    }
+
+    @Benchmark
+    public ProductResponse productWithModelMapper() {
+        return legacy.toResponse(product);
+    }
+
+    @Benchmark
+    public ProductResponse productWithHandwrittenMapper() {
+        return productMapper.toResponse(product);
+    }
+
+    @Benchmark
+    public OrderResponse orderWithModelMapper() {
+        return legacy.toResponse(order, true);
+    }
+
+    @Benchmark
+    public OrderResponse orderWithHandwrittenMapper() {
+        return orderMapper.toResponse(order);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+package com.novedadeslz.backend.mapper;
+
+import com.novedadeslz.backend.dto.response.OrderEventResponse;
+import com.novedadeslz.backend.dto.response.OrderResponse;
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderEvent;
+import com.novedadeslz.backend.repository.OrderItemSummary;
+import com.novedadeslz.backend.repository.OrderSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * El mapper escrito a mano tiene que devolver exactamente lo mismo que devolvia ModelMapper.
+ */
+class OrderMapperTest {
+
+    private final OrderMapper mapper = new OrderMapper();
+    private final LegacyModelMapper legacy = new LegacyModelMapper();
+
+    @Test
+    void adminViewShouldMapLikeModelMapper() {
+        Order order = MapperFixtures.order(12L, 3);
+
+        assertEquals(legacy.toResponse(order, true), mapper.toResponse(order));
+    }
+
+    @Test
+    void customerViewShouldMapLikeModelMapperAndHideNotes() {
+        Order order = MapperFixtures.order(12L, 2);
+
+        OrderResponse response = mapper.toResponse(order);
+
+        assertEquals(legacy.toResponse(order, false), response);
+        assertNull(response.getNotes());
+        assertNull(response.getEvents());
+    }
+
+    @Test
+    void adminDetailShouldCarryTheTimelineAndTheNotesInTheirOldFormat() {
+        Order order = MapperFixtures.order(12L, 1);
+        LocalDateTime at = LocalDateTime.of(2026, 7, 25, 10, 15, 42);
+        List<OrderEvent> events = List.of(
+                event(OrderEvent.Type.PAYMENT_PROOF_UPLOADED, OrderEvent.Actor.CUSTOMER, "Cliente subio un comprobante", at),
+                event(OrderEvent.Type.OCR_RESULT, OrderEvent.Actor.SYSTEM, "Resumen OCR: montoCoincide=si", at.plusMinutes(1)));
+
+        OrderResponse response = mapper.toAdminResponse(order, events);
+
+        assertEquals("2026-07-25 10:15 - Cliente subio un comprobante\n"
+                + "2026-07-25 10:16 - Resumen OCR: montoCoincide=si", response.getNotes());
+        assertEquals(List.of("PAYMENT_PROOF_UPLOADED", "OCR_RESULT"),
+                response.getEvents().stream().map(OrderEventResponse::getType).toList());
+        assertEquals("SYSTEM", response.getEvents().get(1).getActor());
+        assertEquals(at, response.getEvents().get(0).getCreatedAt());
+
+        OrderResponse withoutTimeline = mapper.toResponse(order);
+        withoutTimeline.setNotes(response.getNotes());
+        withoutTimeline.setEvents(response.getEvents());
+        assertEquals(withoutTimeline, response);
+    }
+
+    @Test
+    void listRowShouldMatchTheAdminViewWithoutNotes() {
+        Order order = MapperFixtures.order(12L, 3);
+        ProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+        OrderSummary summary = projections.createProjection(OrderSummary.class, order);
+        List<OrderItemSummary> items = order.getItems().stream()
+                .map(item -> projections.createProjection(OrderItemSummary.class, Map.of(
+                        "orderId", order.getId(),
+                        "id", item.getId(),
+                        "productId", item.getProduct().getId(),
+                        "productName", item.getProductName(),
+                        "quantity", item.getQuantity(),
+                        "unitPrice", item.getUnitPrice(),
+                        "subtotal", item.getSubtotal())))
+                .toList();
+
+        OrderResponse expected = mapper.toResponse(order);
+
+        assertEquals(expected, mapper.toListResponse(summary, items));
+    }
+
+    @Test
+    void orderWithoutOptionalFieldsShouldMapLikeModelMapper() {
+        Order order = Order.builder()
+                .id(13L)
+                .orderNumber("ORD-20260725-0013")
+                .customerName("Test")
+                .customerPhone("+51999999999")
+                .total(new BigDecimal("15.00"))
+                .build();
+
+        assertEquals(legacy.toResponse(order, true), mapper.toResponse(order));
+    }
+
+    private OrderEvent event(OrderEvent.Type type, OrderEvent.Actor actor, String message, LocalDateTime at) {
+        OrderEvent event = OrderEvent.of(12L, type, actor, message);
+        event.setCreatedAt(at);
+        return event;
+    }
+}
@@ -0,0 +1,40 @@
+package com.novedadeslz.backend.mapper;
+
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * El mapper escrito a mano tiene que devolver exactamente lo mismo que devolvia ModelMapper.
+ */
+class ProductMapperTest {
+
+    private final ProductMapper mapper = new ProductMapper();
+    private final LegacyModelMapper legacy = new LegacyModelMapper();
+
+    @Test
+    void fullProductShouldMapLikeModelMapper() {
+        Product product = MapperFixtures.product(7L);
+
+        assertEquals(legacy.toResponse(product), mapper.toResponse(product));
+    }
+
+    @Test
+    void productWithoutOptionalFieldsShouldMapLikeModelMapper() {
+        Product product = Product.builder()
+                .id(8L)
+                .name("Collar")
+                .price(new BigDecimal("10.00"))
+                .trackInventory(false)
+                .build();
+
+        ProductResponse response = mapper.toResponse(product);
+
+        assertEquals(legacy.toResponse(product), response);
+        assertEquals(false, response.getLowStock());
+    }
+}
@@ -70,6 +70,19 @@ class ProductTest {
         assertIterableEquals(imageUrls, product.getImageUrls());
     }
 
+    @Test
+    void previousGalleryShouldSurviveAReplacement() {
+        Product product = new Product();
+        product.setImageUrls(List.of("https://cdn.example.com/producto-1.jpg"));
+        List<String> previousImageUrls = product.getImageUrls();
+
+        product.setImageUrls(List.of("https://cdn.example.com/producto-2.jpg"));
+
+        // El servicio compara la galeria anterior con la nueva para borrar las fotos descartadas.
+        assertIterableEquals(List.of("https://cdn.example.com/producto-1.jpg"), previousImageUrls);
+        assertIterableEquals(List.of("https://cdn.example.com/producto-2.jpg"), product.getImageUrls());
+    }
+
     @Test
     void productWithoutInventoryTrackingShouldAlwaysBeAvailable() {
         Product product = Product.builder()
@@ -0,0 +1,143 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.service.OrderSearchIndex;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los filtros del listado se combinan todos con todos. Antes se elegia un solo metodo del
+ * repositorio y, por ejemplo, estado mas fechas ignoraba las fechas.
+ *
+ * <p>Para cada una de las 16 combinaciones se revisa el SQL de la pagina de ids (que lleve cada
+ * filtro pedido como igualdad o rango sobre su columna, y ningun otro) y que el resultado sea el
+ * mismo que filtrar los pedidos a mano.
+ */
+@DataJpaTest(properties = RecordingStatementInspector.PROPERTY)
+@Import(OrderSearchIndex.class)
+@DirtiesContext
+class OrderFilterStatementsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 8, 1, 12, 0);
+    private static final LocalDateTime START = NOW.minusDays(2);
+
+    private static final Pattern STATUS = Pattern.compile("\\.status\\s*=\\s*\\?");
+    private static final Pattern SEARCH = Pattern.compile("order_search_terms");
+    private static final Pattern DATES = Pattern.compile("\\.created_at\\s+between\\s+\\?\\s+and\\s+\\?");
+    private static final Pattern PAYMENT = Pattern.compile("\\.payment_method\\s*=\\s*\\?");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSearchIndex searchIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<Seed> seeds = new ArrayList<>();
+
+    /** Ocho pedidos: cada combinacion de estado, medio de pago y antiguedad, con nombres alternados. */
+    @BeforeEach
+    void seed() {
+        int number = 0;
+        for (Order.OrderStatus status : List.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED)) {
+            for (String paymentMethod : List.of("yape", "cash")) {
+                for (LocalDateTime createdAt : List.of(NOW.minusDays(10), NOW.minusHours(5))) {
+                    number++;
+                    String name = number % 2 == 0 ? "Maria Lopez" : "Rosa Diaz";
+                    Order order = orderRepository.save(Order.builder()
+                            .orderNumber("ORD-20260801-%04d".formatted(number))
+                            .publicToken(UUID.randomUUID().toString())
+                            .customerName(name)
+                            .customerPhone("+5198711%04d".formatted(number))
+                            .total(new BigDecimal("10.00"))
+                            .status(status)
+                            .paymentMethod(paymentMethod)
+                            .whatsappSent(false)
+                            .items(new ArrayList<>())
+                            .build());
+                    searchIndex.index(order);
+                    seeds.add(new Seed(order.getId(), status, paymentMethod, createdAt, name));
+                }
+            }
+        }
+        entityManager.flush();
+        // created_at lo pone Hibernate al insertar; se fija a mano.
+        for (Seed seed : seeds) {
+            entityManager.createNativeQuery("UPDATE orders SET created_at = ?1 WHERE id = ?2")
+                    .setParameter(1, seed.createdAt())
+                    .setParameter(2, seed.id())
+                    .executeUpdate();
+        }
+        entityManager.clear();
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    static Stream<Arguments> combinations() {
+        return IntStream.range(0, 16).mapToObj(mask -> Arguments.of(
+                (mask & 1) != 0, (mask & 2) != 0, (mask & 4) != 0, (mask & 8) != 0));
+    }
+
+    @ParameterizedTest(name = "estado={0} busqueda={1} fechas={2} pago={3}")
+    @MethodSource("combinations")
+    void everyCombinationShouldFilterInTheDatabaseByAllItsCriteria(
+            boolean byStatus, boolean bySearch, boolean byDates, boolean byPayment) {
+
+        Specification<Order> filter = Specification.allOf(
+                OrderSpecifications.hasStatus(byStatus ? Order.OrderStatus.PENDING : null),
+                bySearch ? searchIndex.matching("maria") : Specification.unrestricted(),
+                byDates ? OrderSpecifications.createdBetween(START, NOW) : OrderSpecifications.createdBetween(null, null),
+                OrderSpecifications.paidWith(byPayment ? "cash" : null));
+
+        Page<Long> page = orderRepository.findIds(filter, PageRequest.of(0, 20,
+                Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"))));
+
+        String idQuery = RecordingStatementInspector.STATEMENTS.get(0).toLowerCase(Locale.ROOT);
+        assertEquals(byStatus, STATUS.matcher(idQuery).find(), idQuery);
+        assertEquals(bySearch, SEARCH.matcher(idQuery).find(), idQuery);
+        assertEquals(byDates, DATES.matcher(idQuery).find(), idQuery);
+        assertEquals(byPayment, PAYMENT.matcher(idQuery).find(), idQuery);
+        assertTrue(idQuery.contains("fetch first") || idQuery.contains("limit"), idQuery);
+        assertTrue(idQuery.contains("order by") && idQuery.contains("created_at desc"), idQuery);
+
+        List<Long> expected = seeds.stream()
+                .filter(seed -> !byStatus || seed.status() == Order.OrderStatus.PENDING)
+                .filter(seed -> !bySearch || seed.name().startsWith("Maria"))
+                .filter(seed -> !byDates || !seed.createdAt().isBefore(START))
+                .filter(seed -> !byPayment || seed.paymentMethod().equals("cash"))
+                .sorted(Comparator.comparing(Seed::createdAt).thenComparing(Seed::id).reversed())
+                .map(Seed::id)
+                .toList();
+        assertEquals(expected, page.getContent());
+        assertEquals(expected.size(), page.getTotalElements());
+    }
+
+    private record Seed(Long id, Order.OrderStatus status, String paymentMethod, LocalDateTime createdAt, String name) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderItem;
+import com.novedadeslz.backend.model.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Guardar un pedido tiene que costar pocas sentencias, sin importar cuantos items traiga.
+ *
+ * <p>Con {@code allocationSize = 1} y sin lotes JDBC, un pedido de 5 items eran 12 sentencias:
+ * 6 SELECT NEXTVAL (uno por fila) y 6 INSERT. Con secuencias de a 20 y {@code jdbc.batch_size}
+ * quedan 2: el INSERT del pedido y un lote con los 5 items.
+ */
+@DataJpaTest(properties = RecordingStatementInspector.PROPERTY)
+@DirtiesContext
+class OrderInsertStatementsTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void savingAnOrderWithFiveItemsShouldTakeTwoStatements() {
+        Product product = productRepository.save(buildProduct());
+        // Una secuencia recien creada entrega primero el id 1 suelto y recien con el segundo NEXTVAL
+        // abre un bloque de 20. Los dos primeros pedidos dejan ese bloque abierto.
+        orderRepository.saveAndFlush(buildOrder("ORD-20260801-0001", product, 1));
+        orderRepository.saveAndFlush(buildOrder("ORD-20260801-0002", product, 1));
+        RecordingStatementInspector.STATEMENTS.clear();
+
+        orderRepository.saveAndFlush(buildOrder("ORD-20260801-0003", product, 5));
+
+        List<String> statements = List.copyOf(RecordingStatementInspector.STATEMENTS);
+        assertEquals(0, count(statements, "_seq"), () -> "Sin viajes a la secuencia: " + statements);
+        assertEquals(1, count(statements, "insert into orders"), statements::toString);
+        assertEquals(1, count(statements, "insert into order_items"), statements::toString);
+        assertEquals(2, statements.size(), statements::toString);
+
+        entityManager.clear();
+        assertEquals(3, orderRepository.count());
+    }
+
+    private long count(List<String> statements, String fragment) {
+        return statements.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).contains(fragment))
+                .count();
+    }
+
+    private Order buildOrder(String number, Product product, int itemCount) {
+        Order order = Order.builder()
+                .orderNumber(number)
+                .publicToken(UUID.randomUUID().toString())
+                .customerName("Maria Lopez")
+                .customerPhone("+51987111222")
+                .total(new BigDecimal("10.00").multiply(BigDecimal.valueOf(itemCount)))
+                .status(Order.OrderStatus.PENDING)
+                .paymentMethod("yape")
+                .whatsappSent(false)
+                .items(new ArrayList<>())
+                .build();
+        for (int i = 0; i < itemCount; i++) {
+            order.addItem(OrderItem.builder()
+                    .product(product)
+                    .productName(product.getName())
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .build());
+        }
+        return order;
+    }
+
+    private Product buildProduct() {
+        return Product.builder()
+                .name("Vincha")
+                .price(new BigDecimal("10.00"))
+                .stock(10)
+                .trackInventory(true)
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderItem;
+import com.novedadeslz.backend.model.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los listados de pedidos paginan en la base, no en memoria.
+ *
+ * <p>Con el grafo de items en la consulta paginada, Hibernate no podia poner el limite en el SQL:
+ * traia todos los pedidos del filtro con sus items y recortaba la pagina en Java. Ahora la pagina
+ * de ids lleva el limite y las filas llegan despues por IN, como proyecciones sin el CLOB de notas.
+ */
+@DataJpaTest(properties = RecordingStatementInspector.PROPERTY)
+@DirtiesContext
+class OrderPagingStatementsTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void theIdPageShouldCarryTheRowLimitAndTheRowsShouldComeWithoutNotes() {
+        Product product = productRepository.save(Product.builder()
+                .name("Vincha")
+                .price(new BigDecimal("10.00"))
+                .stock(10)
+                .trackInventory(true)
+                .active(true)
+                .build());
+        for (int i = 1; i <= 5; i++) {
+            orderRepository.save(buildOrder("ORD-20260801-%04d".formatted(i), product));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        RecordingStatementInspector.STATEMENTS.clear();
+
+        Page<Long> page = orderRepository.findIds(OrderSpecifications.hasStatus(Order.OrderStatus.PENDING),
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"))));
+        List<String> pageStatements = List.copyOf(RecordingStatementInspector.STATEMENTS);
+        RecordingStatementInspector.STATEMENTS.clear();
+
+        List<OrderSummary> orders = orderRepository.findSummariesByIdIn(page.getContent());
+        List<OrderItemSummary> items = orderItemRepository.findSummariesByOrderIdIn(page.getContent());
+        List<String> fetchStatements = List.copyOf(RecordingStatementInspector.STATEMENTS);
+
+        String idQuery = pageStatements.get(0).toLowerCase(Locale.ROOT);
+        assertTrue(idQuery.contains("fetch first") || idQuery.contains("limit"), idQuery);
+        assertTrue(idQuery.contains("offset"), idQuery);
+        assertFalse(idQuery.contains("order_items"), idQuery);
+        assertEquals(2, page.getContent().size());
+        assertEquals(5, page.getTotalElements());
+
+        // Una consulta para los pedidos y otra para todos sus items, ninguna con las notas.
+        assertEquals(2, fetchStatements.size(), fetchStatements::toString);
+        fetchStatements.forEach(sql -> assertFalse(sql.toLowerCase(Locale.ROOT).contains("notes"), sql));
+        assertEquals(2, orders.size());
+        assertEquals(4, items.size());
+        assertTrue(items.stream().allMatch(item -> page.getContent().contains(item.getOrderId())));
+    }
+
+    private Order buildOrder(String number, Product product) {
+        Order order = Order.builder()
+                .orderNumber(number)
+                .publicToken(UUID.randomUUID().toString())
+                .customerName("Maria Lopez")
+                .customerPhone("+51987111222")
+                .total(new BigDecimal("20.00"))
+                .status(Order.OrderStatus.PENDING)
+                .paymentMethod("yape")
+                .whatsappSent(false)
+                .items(new ArrayList<>())
+                .build();
+        for (int i = 0; i < 2; i++) {
+            order.addItem(OrderItem.builder()
+                    .product(product)
+                    .productName(product.getName())
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .build());
+        }
+        return order;
+    }
+}
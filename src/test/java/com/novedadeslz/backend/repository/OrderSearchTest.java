@@ -1,10 +1,13 @@
 package com.novedadeslz.backend.repository;
 
 import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.service.OrderSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
@@ -17,42 +20,47 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * El panel busca pedidos por lo que la clienta tiene a mano: el numero que le dimos, su nombre o
- * su telefono. Antes solo se podia por telefono, y filtrar por estado anulaba la busqueda.
+ * su telefono. Antes solo se podia por telefono, y filtrar por estado anulaba la busqueda. Ahora
+ * pasa por los terminos de {@link OrderSearchIndex} en vez de un LIKE '%x%' sobre los pedidos.
  */
 @DataJpaTest
+@Import(OrderSearchIndex.class)
 class OrderSearchTest {
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderSearchIndex searchIndex;
+
     @BeforeEach
     void seed() {
-        orderRepository.save(build("ORD-20260725-0001", "Maria Lopez", "+51987111222",
+        save(build("ORD-20260725-0001", "Maria Lopez", "+51987111222",
                 Order.OrderStatus.PAYMENT_REVIEW));
-        orderRepository.save(build("ORD-20260725-0002", "Rosa Diaz", "+51987333444",
+        save(build("ORD-20260725-0002", "Rosa D\u00edaz", "+51987333444",
                 Order.OrderStatus.CONFIRMED));
-        orderRepository.save(build("ORD-20260726-0001", "Maria Quispe", "+51987555666",
+        save(build("ORD-20260726-0001", "Maria Quispe", "+51987555666",
                 Order.OrderStatus.PAYMENT_REVIEW));
     }
 
     @Test
     void shouldFindByOrderNumber() {
-        var found = orderRepository.searchOrders("20260725-0002", PageRequest.of(0, 10));
+        var found = orderRepository.findIds(searchIndex.matching("20260725-0002"), PageRequest.of(0, 10));
 
         assertEquals(1, found.getTotalElements());
-        assertEquals("Rosa Diaz", found.getContent().get(0).getCustomerName());
+        assertEquals("Rosa D\u00edaz", orderRepository.findById(found.getContent().get(0)).orElseThrow().getCustomerName());
     }
 
     @Test
     void shouldFindByCustomerNameIgnoringCase() {
-        var found = orderRepository.searchOrders("maria", PageRequest.of(0, 10));
+        var found = orderRepository.findIds(searchIndex.matching("maria"), PageRequest.of(0, 10));
 
         assertEquals(2, found.getTotalElements());
     }
 
     @Test
     void shouldFindByPartialPhone() {
-        var found = orderRepository.searchOrders("333444", PageRequest.of(0, 10));
+        var found = orderRepository.findIds(searchIndex.matching("333444"), PageRequest.of(0, 10));
 
         assertEquals(1, found.getTotalElements());
     }
@@ -60,28 +68,57 @@ class OrderSearchTest {
     @Test
     void shouldCombineStatusWithSearch() {
         // Antes esto era imposible: elegir un estado descartaba el texto buscado.
-        var found = orderRepository.searchOrdersByStatus(
-                Order.OrderStatus.PAYMENT_REVIEW, "maria", PageRequest.of(0, 10));
+        var found = orderRepository.findIds(
+                searchIndex.matching("maria").and(OrderSpecifications.hasStatus(Order.OrderStatus.PAYMENT_REVIEW)), PageRequest.of(0, 10));
 
         assertEquals(2, found.getTotalElements());
-        assertTrue(found.getContent().stream()
+        assertTrue(orderRepository.findSummariesByIdIn(found.getContent()).stream()
                 .allMatch(o -> o.getStatus() == Order.OrderStatus.PAYMENT_REVIEW));
     }
 
+    @Test
+    void shouldFindByAnyWordOfTheNameWithoutAccents() {
+        assertEquals(1, search("DIAZ").getTotalElements());
+        assertEquals(1, search("quis").getTotalElements());
+    }
+
+    @Test
+    void shouldFindByTheStartOfTheLocalPhoneAsTyped() {
+        var found = orderRepository.findIds(searchIndex.matching("987 555"), PageRequest.of(0, 10));
+
+        assertEquals(1, found.getTotalElements());
+        assertEquals("Maria Quispe", orderRepository.findById(found.getContent().get(0)).orElseThrow().getCustomerName());
+    }
+
+    @Test
+    void digitsMixedWithTextShouldNotMatchTheEndOfAPhone() {
+        // Los telefonos terminan en 222, 444 y 666, pero ninguna de estas busquedas es un telefono.
+        assertEquals(0, search("maria 2").getTotalElements());
+        assertEquals(0, search("ORD-666").getTotalElements());
+    }
+
     @Test
     void shouldReturnNothingWhenThereIsNoMatch() {
-        assertEquals(0, orderRepository.searchOrders("no-existe", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(0, search("no-existe").getTotalElements());
     }
 
     @Test
     void shouldPaginate() {
-        var firstPage = orderRepository.searchOrders("ORD-", PageRequest.of(0, 2));
+        var firstPage = orderRepository.findIds(searchIndex.matching("ORD-"), PageRequest.of(0, 2));
 
         assertEquals(3, firstPage.getTotalElements());
         assertEquals(2, firstPage.getContent().size());
         assertEquals(2, firstPage.getTotalPages());
     }
 
+    private Page<Long> search(String query) {
+        return orderRepository.findIds(searchIndex.matching(query), PageRequest.of(0, 10));
+    }
+
+    private void save(Order order) {
+        searchIndex.index(orderRepository.save(order));
+    }
+
     private Order build(String number, String name, String phone, Order.OrderStatus status) {
         return Order.builder()
                 .orderNumber(number)
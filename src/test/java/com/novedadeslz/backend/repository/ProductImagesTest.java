@@ -0,0 +1,115 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+
+/**
+ * La galeria vive en product_images y conserva el orden en que el admin subio las fotos.
+ */
+@DataJpaTest(properties = RecordingStatementInspector.PROPERTY)
+@DirtiesContext
+class ProductImagesTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void galleryShouldKeepItsOrderAfterReloading() {
+        List<String> gallery = List.of(
+                "https://cdn.example.com/c.jpg",
+                "https://cdn.example.com/a.jpg",
+                "https://cdn.example.com/b.jpg"
+        );
+        Long id = productRepository.save(buildProduct(gallery)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        Product reloaded = productRepository.findById(id).orElseThrow();
+
+        assertEquals("https://cdn.example.com/c.jpg", reloaded.getImageUrl());
+        assertIterableEquals(gallery, reloaded.getImageUrls());
+    }
+
+    @Test
+    void galleryShouldNotBeLimitedByTheOldColumnSize() {
+        // 20 URLs largas pasaban de los 4000 caracteres del antiguo image_url.
+        List<String> gallery = IntStream.rangeClosed(1, 20)
+                .mapToObj(index -> "https://res.cloudinary.com/demo/image/upload/v1700000000/novedadeslz/products/"
+                        + "x".repeat(150) + index + ".jpg")
+                .toList();
+        Long id = productRepository.save(buildProduct(gallery)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertIterableEquals(gallery, productRepository.findById(id).orElseThrow().getImageUrls());
+    }
+
+    @Test
+    void replacingTheGalleryShouldRewriteTheRows() {
+        Product product = productRepository.save(buildProduct(List.of(
+                "https://cdn.example.com/1.jpg",
+                "https://cdn.example.com/2.jpg",
+                "https://cdn.example.com/3.jpg"
+        )));
+        entityManager.flush();
+
+        product.setImageUrls(List.of("https://cdn.example.com/3.jpg", "https://cdn.example.com/4.jpg"));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertIterableEquals(
+                List.of("https://cdn.example.com/3.jpg", "https://cdn.example.com/4.jpg"),
+                productRepository.findById(product.getId()).orElseThrow().getImageUrls()
+        );
+    }
+
+    @Test
+    void listingShouldLoadEveryGalleryOfThePage() {
+        productRepository.save(buildProduct(List.of("https://cdn.example.com/p1.jpg")));
+        productRepository.save(buildProduct(List.of("https://cdn.example.com/p2.jpg", "https://cdn.example.com/p2b.jpg")));
+        productRepository.save(buildProduct(List.of()));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Product> page = productRepository.findAll(PageRequest.of(0, 10)).getContent();
+        RecordingStatementInspector.STATEMENTS.clear();
+
+        List<Integer> gallerySizes = page.stream()
+                .map(product -> product.getImageUrls().size())
+                .sorted()
+                .toList();
+
+        assertEquals(List.of(0, 1, 2), gallerySizes);
+        // Por el BatchSize las tres galerias llegan juntas con IN (...), no una consulta por producto.
+        List<String> galleryQueries = RecordingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).contains("product_images"))
+                .toList();
+        assertEquals(1, galleryQueries.size(), galleryQueries::toString);
+    }
+
+    private Product buildProduct(List<String> gallery) {
+        Product product = Product.builder()
+                .name("Producto")
+                .price(new BigDecimal("10.00"))
+                .stock(5)
+                .build();
+        product.setImageUrls(gallery);
+        return product;
+    }
+}
@@ -0,0 +1,77 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El modo cursor del catalogo recorre los productos sin saltar ni repetir ninguno.
+ */
+@DataJpaTest
+@DirtiesContext
+class ProductKeysetPaginationTest {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void walkingTheCursorShouldVisitEveryActiveProductOnce() {
+        List<Long> expected = new ArrayList<>(IntStream.rangeClosed(1, 7)
+                .mapToObj(index -> productRepository.save(buildProduct("Producto " + index, true)).getId())
+                .toList());
+        productRepository.save(buildProduct("Inactivo", false));
+
+        List<Long> visited = new ArrayList<>();
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<Product> window;
+        int pages = 0;
+        do {
+            window = productRepository.findByActiveTrue(position, NEWEST_FIRST, Limit.of(3));
+            window.forEach(product -> visited.add(product.getId()));
+            position = window.hasNext() ? window.positionAt(window.size() - 1) : position;
+            pages++;
+        } while (window.hasNext());
+
+        assertEquals(3, pages);
+        assertEquals(expected.size(), visited.size());
+        assertTrue(visited.containsAll(expected));
+    }
+
+    @Test
+    void lastWindowShouldSayThereIsNothingMore() {
+        productRepository.save(buildProduct("Unico", true));
+
+        Window<Product> window = productRepository.findByActiveTrue(
+                ScrollPosition.keyset(), NEWEST_FIRST, Limit.of(5));
+
+        assertEquals(1, window.size());
+        assertFalse(window.hasNext());
+    }
+
+    private Product buildProduct(String name, boolean active) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal("10.00"))
+                .stock(5)
+                .active(active)
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.novedadeslz.backend.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Anota cada SQL que Hibernate prepara, para los tests que cuentan o revisan las consultas. Se
+ * activa desde {@code @DataJpaTest} con {@link #PROPERTY}.
+ *
+ * <p>Hibernate lo instancia por nombre de clase, por eso guarda en un campo estatico: cada test lo
+ * limpia antes de la parte que quiere medir.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.novedadeslz.backend.repository.RecordingStatementInspector";
+
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+}
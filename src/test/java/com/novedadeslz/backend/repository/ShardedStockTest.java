@@ -0,0 +1,193 @@
+package com.novedadeslz.backend.repository;
+
+import com.novedadeslz.backend.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Un producto con el stock repartido en buckets se reserva de a una fila, pero hacia afuera se ve
+ * como siempre: {@code getStock()} y {@code isLowStock()} suman los buckets y nunca se vende mas
+ * de lo que hay.
+ */
+@DataJpaTest
+@DirtiesContext
+class ShardedStockTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void stockShouldBeSpreadEvenlyAndReadAsItsSum() {
+        Product product = saveSharded(10, 4);
+
+        assertEquals(List.of(3, 3, 2, 2), bucketStocks(product.getId()));
+        Product reloaded = reload(product.getId());
+        assertEquals(10, reloaded.getStock());
+        assertFalse(reloaded.isLowStock());
+    }
+
+    @Test
+    void singleUnitsShouldBeReservedUntilEveryBucketIsEmpty() {
+        Product product = saveSharded(10, 4);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(productRepository.reserveFromBuckets(product.getId(), 4, 1));
+        }
+
+        assertFalse(productRepository.reserveFromBuckets(product.getId(), 4, 1));
+        Product reloaded = reload(product.getId());
+        assertEquals(0, reloaded.getStock());
+        assertTrue(reloaded.isOutOfStock());
+    }
+
+    @Test
+    void aQuantityNoSingleBucketCoversShouldBeTakenFromSeveral() {
+        Product product = saveSharded(10, 4);
+
+        assertTrue(productRepository.reserveFromBuckets(product.getId(), 4, 7));
+        assertEquals(3, reload(product.getId()).getStock());
+
+        // Ni repartido alcanza: no se descuenta nada.
+        assertFalse(productRepository.reserveFromBuckets(product.getId(), 4, 4));
+        Product reloaded = reload(product.getId());
+        assertEquals(3, reloaded.getStock());
+        assertTrue(reloaded.isLowStock());
+    }
+
+    @Test
+    void releasedUnitsShouldCountAgain() {
+        Product product = saveSharded(4, 2);
+        productRepository.reserveFromBuckets(product.getId(), 2, 3);
+
+        productRepository.releaseToBuckets(product.getId(), 2, 3);
+
+        assertEquals(4, reload(product.getId()).getStock());
+    }
+
+    @Test
+    void dashboardQueriesShouldSeeTheSummedStock() {
+        saveSharded(4, 2);
+        saveSharded(40, 4);
+
+        assertEquals(1, productRepository.countLowStockProducts(5));
+        assertEquals(440.0, productRepository.getTotalInventoryValue());
+    }
+
+    @Test
+    void turningShardingOffShouldMoveTheStockBackToTheProductRow() {
+        Product product = saveSharded(10, 4);
+
+        Product loaded = reload(product.getId());
+        loaded.setStockBuckets(0);
+        loaded.setStock(6);
+        entityManager.flush();
+        productRepository.resetStockBuckets(product.getId(), 0, 6);
+
+        assertEquals(List.of(), bucketStocks(product.getId()));
+        assertEquals(6, reload(product.getId()).getStock());
+    }
+
+    /** Sin transaccion de test: cada checkout confirma la suya, como en produccion. */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentCheckoutsShouldNeverOversell() throws Exception {
+        assertEquals(20, concurrentCheckouts(20, 1));
+    }
+
+    /**
+     * Con 5 por bucket, pedir de a 3 pronto deja buckets que no alcanzan solos y obliga a tomar de
+     * varios mientras otros checkouts siguen probando buckets sueltos: ninguno puede trabar a otro.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentCheckoutsSpanningBucketsShouldNeitherOversellNorDeadlock() throws Exception {
+        assertEquals(6, concurrentCheckouts(20, 3));
+    }
+
+    /** Lanza 40 checkouts a la vez sobre un producto en 4 buckets y devuelve cuantos reservaron. */
+    private int concurrentCheckouts(int stock, int quantity) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Product product = transaction.execute(status -> saveSharded(stock, 4));
+        Long productId = product.getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<Boolean> checkout = () -> {
+            start.await();
+            return transaction.execute(status -> productRepository.reserveFromBuckets(productId, 4, quantity));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> attempts = IntStream.range(0, 40)
+                    .mapToObj(i -> executor.submit(checkout))
+                    .toList();
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<Boolean> attempt : attempts) {
+                reserved += attempt.get() ? 1 : 0;
+            }
+
+            assertEquals(stock - reserved * quantity, bucketStocks(productId).stream().mapToInt(Integer::intValue).sum());
+            return reserved;
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.update("DELETE FROM product_stock_buckets WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        }
+    }
+
+    private Product saveSharded(int stock, int buckets) {
+        Product product = productRepository.save(Product.builder()
+                .name("Producto en oferta")
+                .price(new BigDecimal("10.00"))
+                .stock(stock)
+                .stockBuckets(buckets)
+                .trackInventory(true)
+                .active(true)
+                .build());
+        productRepository.resetStockBuckets(product.getId(), buckets, stock);
+        return product;
+    }
+
+    private Product reload(Long productId) {
+        entityManager.clear();
+        return productRepository.findById(productId).orElseThrow();
+    }
+
+    private List<Integer> bucketStocks(Long productId) {
+        return jdbcTemplate.queryForList(
+                "SELECT stock FROM product_stock_buckets WHERE product_id = ? ORDER BY bucket_no",
+                Integer.class, productId);
+    }
+}
@@ -0,0 +1,119 @@
+package com.novedadeslz.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas por segundo de un mismo producto con muchos checkouts a la vez: stock en la fila del
+ * producto ({@code buckets = 0}) contra stock repartido en N buckets.
+ *
+ * <p>Cada reserva retiene su bloqueo {@code commitLatencyMs} antes del commit, que es lo que tarda
+ * el viaje a Oracle desde Render. Con una sola fila los checkouts se turnan ese bloqueo; con N
+ * buckets pueden avanzar hasta N a la vez. H2 en memoria solo aporta los bloqueos por fila.
+ *
+ * <p>No corre con {@code mvn test}. Para ejecutarlo:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *     com.novedadeslz.backend.repository.StockReservationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(16)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    private static final long PRODUCT_ID = 1L;
+    /** Alcanza para toda la corrida: se mide la espera por el bloqueo, no el agotamiento. */
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"0", "4", "8"})
+    private int buckets;
+
+    @Param("2")
+    private long commitLatencyMs;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+    private ProductStockOperationsImpl stockOperations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:stock-benchmark-" + buckets + ";LOCK_TIMEOUT=60000;DB_CLOSE_DELAY=-1");
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        // Sin JPA de por medio: el flush previo no tiene nada que escribir.
+        stockOperations = new ProductStockOperationsImpl(jdbcTemplate, Mockito.mock(EntityManager.class));
+
+        jdbcTemplate.execute("CREATE TABLE products ("
+                + "id BIGINT PRIMARY KEY, stock INT NOT NULL, track_inventory BOOLEAN NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE product_stock_buckets ("
+                + "product_id BIGINT, bucket_no INT, stock INT NOT NULL, PRIMARY KEY (product_id, bucket_no))");
+        jdbcTemplate.update("INSERT INTO products (id, stock, track_inventory) VALUES (?, ?, TRUE)",
+                PRODUCT_ID, STOCK);
+        if (buckets > 0) {
+            transaction.executeWithoutResult(status -> stockOperations.resetStockBuckets(PRODUCT_ID, buckets, STOCK));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Benchmark
+    public boolean reserveOneUnit() {
+        return Boolean.TRUE.equals(transaction.execute(status -> {
+            boolean reserved = buckets == 0
+                    ? stockOperations.reserveStockInIdOrder(Map.of(PRODUCT_ID, 1)).isEmpty()
+                    : stockOperations.reserveFromBuckets(PRODUCT_ID, buckets, 1);
+            holdUntilCommit();
+            return reserved;
+        }));
+    }
+
+    private void holdUntilCommit() {
+        try {
+            Thread.sleep(commitLatencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StockReservationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
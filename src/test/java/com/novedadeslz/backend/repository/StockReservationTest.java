@@ -4,9 +4,12 @@ import com.novedadeslz.backend.model.Product;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
 import org.springframework.test.annotation.DirtiesContext;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -23,6 +26,9 @@ class StockReservationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void reserveStockShouldSucceedWhileThereAreUnits() {
         Product product = productRepository.save(buildProduct(2, true));
@@ -63,6 +69,36 @@ class StockReservationTest {
         assertEquals(3, productRepository.findById(product.getId()).orElseThrow().getStock());
     }
 
+    @Test
+    void reserveStockInIdOrderShouldReserveEveryProductOfTheCartInOneBatch() {
+        Product first = productRepository.save(buildProduct(5, true));
+        Product second = productRepository.save(buildProduct(1, true));
+
+        List<Long> rejected = productRepository.reserveStockInIdOrder(
+                Map.of(second.getId(), 1, first.getId(), 3));
+
+        assertEquals(List.of(), rejected);
+        entityManager.clear();
+        assertEquals(2, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(0, productRepository.findById(second.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void reserveStockInIdOrderShouldReportEveryProductThatFallsShort() {
+        Product enough = productRepository.save(buildProduct(5, true));
+        Product shortOne = productRepository.save(buildProduct(1, true));
+        Product untracked = productRepository.save(buildProduct(0, false));
+
+        List<Long> rejected = productRepository.reserveStockInIdOrder(
+                Map.of(enough.getId(), 2, shortOne.getId(), 2, untracked.getId(), 1));
+
+        // El lote no se corta en el primer rechazo; revertir lo apartado le toca a la transaccion.
+        assertEquals(List.of(shortOne.getId(), untracked.getId()), rejected);
+        entityManager.clear();
+        assertEquals(3, productRepository.findById(enough.getId()).orElseThrow().getStock());
+        assertEquals(1, productRepository.findById(shortOne.getId()).orElseThrow().getStock());
+    }
+
     private Product buildProduct(int stock, boolean trackInventory) {
         return Product.builder()
                 .name("Producto")
@@ -0,0 +1,201 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderEvent;
+import com.novedadeslz.backend.model.OrderItem;
+import com.novedadeslz.backend.model.Product;
+import com.novedadeslz.backend.repository.OrderEventRepository;
+import com.novedadeslz.backend.repository.OrderRepository;
+import com.novedadeslz.backend.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los pedidos abandonados se cancelan por lotes y devuelven su stock sumado por producto, sin
+ * tocar los que todavia estan a tiempo ni los que ya tienen comprobante. Sin transaccion de test:
+ * cada lote confirma la suya, como en produccion.
+ */
+@DataJpaTest(properties = {"app.orders.cleanup-batch-size=2", "app.orders.abandon-after-hours=48"})
+@Import({AbandonedOrderCleanupService.class, AbandonedOrderCleanupServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class AbandonedOrderCleanupServiceTest {
+
+    private static final AtomicInteger ORDER_NUMBERS = new AtomicInteger();
+
+    @Autowired
+    private AbandonedOrderCleanupService cleanupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        orderEventRepository.deleteAll();
+        orderRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM product_stock_buckets");
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void staleOrdersShouldBeCancelledInBatchesAndReturnTheirStock() {
+        Product vincha = saveProduct(5, 0);
+        Product collar = saveProduct(8, 4);
+        for (int i = 0; i < 5; i++) {
+            saveOrder(Order.OrderStatus.PENDING, true, 50, vincha, 2, collar, 1);
+        }
+        // El registro se comparte entre tests: se mide la diferencia.
+        double cancelledBefore = meterRegistry.counter("orders.abandoned.cancelled").count();
+        double unitsBefore = meterRegistry.counter("orders.abandoned.released.units").count();
+        long batchesBefore = meterRegistry.timer("orders.abandoned.batch").count();
+
+        cleanupService.cancelAbandonedOrders();
+
+        assertEquals(5, orderRepository.countByStatus(Order.OrderStatus.CANCELLED));
+        assertEquals(15, stockOf(vincha));
+        assertEquals(13, stockOf(collar));
+        assertEquals(5.0, meterRegistry.counter("orders.abandoned.cancelled").count() - cancelledBefore);
+        assertEquals(15.0, meterRegistry.counter("orders.abandoned.released.units").count() - unitsBefore);
+        // Lote de 2: dos llenos y uno con el que sobra.
+        assertEquals(3, meterRegistry.timer("orders.abandoned.batch").count() - batchesBefore);
+    }
+
+    @Test
+    void recentPaidOrUnreservedOrdersShouldKeepTheirStock() {
+        Product vincha = saveProduct(5, 0);
+        Long recent = saveOrder(Order.OrderStatus.PENDING, true, 2, vincha, 1, null, 0);
+        Long inReview = saveOrder(Order.OrderStatus.PAYMENT_REVIEW, true, 50, vincha, 1, null, 0);
+        Long legacy = saveOrder(Order.OrderStatus.PENDING, false, 50, vincha, 3, null, 0);
+
+        cleanupService.cancelAbandonedOrders();
+
+        assertEquals(Order.OrderStatus.PENDING, orderRepository.findById(recent).orElseThrow().getStatus());
+        assertEquals(Order.OrderStatus.PAYMENT_REVIEW, orderRepository.findById(inReview).orElseThrow().getStatus());
+        Order cancelled = orderRepository.findById(legacy).orElseThrow();
+        assertEquals(Order.OrderStatus.CANCELLED, cancelled.getStatus());
+        List<OrderEvent> timeline = orderEventRepository.findByOrderIdOrderByCreatedAtAscIdAsc(legacy);
+        assertEquals(List.of(OrderEvent.Type.NOTE, OrderEvent.Type.CANCELLED),
+                timeline.stream().map(OrderEvent::getType).toList());
+        assertEquals(AbandonedOrderCleanupService.CANCEL_NOTE, timeline.get(1).getMessage());
+        assertEquals(OrderEvent.Actor.SYSTEM, timeline.get(1).getActor());
+        assertTrue(orderEventRepository.findByOrderIdOrderByCreatedAtAscIdAsc(recent).stream()
+                .noneMatch(event -> event.getType() == OrderEvent.Type.CANCELLED));
+        // Nunca desconto nada, asi que no se devuelve nada.
+        assertEquals(5, stockOf(vincha));
+    }
+
+    @Test
+    void expiredOrdersFromTheWheelShouldBeCancelledButNotTheOnesStillInTime() {
+        Product vincha = saveProduct(5, 0);
+        Long expired = saveOrder(Order.OrderStatus.PENDING, true, 49, vincha, 2, null, 0);
+        Long inTime = saveOrder(Order.OrderStatus.PENDING, true, 47, vincha, 1, null, 0);
+
+        assertEquals(1, cleanupService.cancelExpiredOrders(List.of(expired, inTime)));
+
+        assertEquals(Order.OrderStatus.CANCELLED, orderRepository.findById(expired).orElseThrow().getStatus());
+        assertEquals(Order.OrderStatus.PENDING, orderRepository.findById(inTime).orElseThrow().getStatus());
+        assertEquals(7, stockOf(vincha));
+    }
+
+    private Long saveOrder(
+            Order.OrderStatus status, boolean stockReserved, int ageHours,
+            Product first, int firstQuantity, Product second, int secondQuantity) {
+        Order order = Order.builder()
+                .orderNumber("ORD-20260801-%04d".formatted(ORDER_NUMBERS.incrementAndGet()))
+                .publicToken(UUID.randomUUID().toString())
+                .customerName("Maria Lopez")
+                .customerPhone("+51987111222")
+                .total(new BigDecimal("30.00"))
+                .status(status)
+                .stockReserved(stockReserved)
+                .paymentMethod("yape")
+                .whatsappSent(false)
+                .items(new ArrayList<>())
+                .build();
+        order.addItem(item(first, firstQuantity));
+        if (second != null) {
+            order.addItem(item(second, secondQuantity));
+        }
+        Long orderId = orderRepository.save(order).getId();
+        orderEventRepository.save(OrderEvent.of(orderId, OrderEvent.Type.NOTE, OrderEvent.Actor.SYSTEM, "Nota previa"));
+        // created_at lo pone Hibernate al insertar; se envejece a mano.
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?",
+                LocalDateTime.now().minusHours(ageHours), orderId);
+        return orderId;
+    }
+
+    private OrderItem item(Product product, int quantity) {
+        return OrderItem.builder()
+                .product(product)
+                .productName(product.getName())
+                .quantity(quantity)
+                .unitPrice(product.getPrice())
+                .build();
+    }
+
+    private Product saveProduct(int stock, int buckets) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Product product = productRepository.save(Product.builder()
+                    .name("Producto " + UUID.randomUUID())
+                    .price(new BigDecimal("10.00"))
+                    .stock(stock)
+                    .stockBuckets(buckets)
+                    .trackInventory(true)
+                    .active(true)
+                    .build());
+            productRepository.resetStockBuckets(product.getId(), buckets, stock);
+            return product;
+        });
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.dto.response.OrderResponse;
+import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.exception.DuplicateResourceException;
+import com.novedadeslz.backend.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Un reintento con la misma Idempotency-Key recibe la respuesta original sin volver a ejecutar la
+ * operacion: ni apartar stock de nuevo ni pagar otra vez OCR y Cloudinary. Sin transaccion de
+ * test: el servicio confirma cada paso en su propia transaccion.
+ */
+@DataJpaTest
+@Import({IdempotencyService.class, IdempotencyServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class IdempotencyServiceTest {
+
+    /** Una por test: la cache en memoria del servicio compartido sobrevive entre tests. */
+    private final String key = UUID.randomUUID().toString();
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void retryWithTheSameKeyShouldReplayTheOriginalResponse() {
+        AtomicInteger createdOrders = new AtomicInteger();
+
+        OrderResponse first = createOrder(idempotencyService, key, "carrito-1", createdOrders);
+        OrderResponse retry = createOrder(idempotencyService, key, "carrito-1", createdOrders);
+
+        assertEquals(1, createdOrders.get());
+        assertEquals(first, retry);
+    }
+
+    @Test
+    void replayShouldSurviveARestartThroughTheTable() {
+        AtomicInteger createdOrders = new AtomicInteger();
+        OrderResponse first = createOrder(idempotencyService, key, "carrito-1", createdOrders);
+
+        // Instancia nueva, con la cache en memoria vacia, como tras un redeploy.
+        IdempotencyService restarted = new IdempotencyService(
+                repository, jsonMapper, transactionManager, new SimpleMeterRegistry(), 24, 120, 100);
+        OrderResponse retry = createOrder(restarted, key, "carrito-1", createdOrders);
+
+        assertEquals(1, createdOrders.get());
+        assertEquals(first, retry);
+    }
+
+    @Test
+    void theSameKeyWithAnotherRequestShouldBeRejected() {
+        AtomicInteger createdOrders = new AtomicInteger();
+        createOrder(idempotencyService, key, "carrito-1", createdOrders);
+
+        assertThrows(BadRequestException.class,
+                () -> createOrder(idempotencyService, key, "carrito-2", createdOrders));
+        assertEquals(1, createdOrders.get());
+    }
+
+    @Test
+    void aFailedAttemptShouldReleaseTheKey() {
+        AtomicInteger createdOrders = new AtomicInteger();
+
+        assertThrows(BadRequestException.class, () -> idempotencyService.execute(
+                "orders", key, () -> "carrito-1", OrderResponse.class,
+                () -> {
+                    throw new BadRequestException("Stock insuficiente para Vincha. Disponible: 0");
+                }));
+        createOrder(idempotencyService, key, "carrito-1", createdOrders);
+
+        assertEquals(1, createdOrders.get());
+    }
+
+    @Test
+    void concurrentRetriesShouldRunTheOperationOnce() throws Exception {
+        AtomicInteger createdOrders = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<OrderResponse> retry = () -> {
+            start.await();
+            return createOrder(idempotencyService, key, "carrito-1", createdOrders);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<OrderResponse>> attempts = IntStream.range(0, 6)
+                    .mapToObj(i -> executor.submit(retry))
+                    .toList();
+            start.countDown();
+
+            for (Future<OrderResponse> attempt : attempts) {
+                try {
+                    attempt.get();
+                } catch (ExecutionException e) {
+                    // Los que llegan mientras el primero sigue en curso reciben 409 y reintentan.
+                    assertInstanceOf(DuplicateResourceException.class, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, createdOrders.get());
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void invalidKeysShouldBeRejected() {
+        AtomicInteger createdOrders = new AtomicInteger();
+
+        assertThrows(BadRequestException.class,
+                () -> createOrder(idempotencyService, " ", "carrito-1", createdOrders));
+        assertThrows(BadRequestException.class,
+                () -> createOrder(idempotencyService, "x".repeat(101), "carrito-1", createdOrders));
+        assertEquals(0, createdOrders.get());
+    }
+
+    @Test
+    void requestsWithoutKeyShouldRunEveryTime() {
+        AtomicInteger createdOrders = new AtomicInteger();
+
+        createOrder(idempotencyService, null, "carrito-1", createdOrders);
+        createOrder(idempotencyService, null, "carrito-1", createdOrders);
+
+        assertEquals(2, createdOrders.get());
+        assertTrue(repository.findAll().isEmpty());
+    }
+
+    private OrderResponse createOrder(
+            IdempotencyService service, String key, String cart, AtomicInteger createdOrders) {
+        return service.execute("orders", key, () -> service.fingerprintOf(cart), OrderResponse.class, () -> {
+            int number = createdOrders.incrementAndGet();
+            sleepBriefly();
+            return OrderResponse.builder()
+                    .id((long) number)
+                    .orderNumber("ORD-20260801-%04d".formatted(number))
+                    .total(new BigDecimal("45.00"))
+                    .status("PENDING")
+                    .createdAt(LocalDateTime.of(2026, 8, 1, 10, 30))
+                    .build();
+        });
+    }
+
+    /** Deja a los reintentos concurrentes llegar mientras el primero sigue en curso. */
+    private static void sleepBriefly() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        JsonMapper jsonMapper() {
+            return JsonMapper.builder().build();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.model.MediaDeletion;
+import com.novedadeslz.backend.repository.MediaDeletionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Los archivos que dejan de usarse se borran en segundo plano y, si Cloudinary falla, se reintentan
+ * en vez de quedar huerfanos.
+ */
+@ExtendWith(MockitoExtension.class)
+class MediaDeletionServiceTest {
+
+    private static final String KEPT_FAILING = "https://res.cloudinary.com/demo/image/upload/v1/b.png";
+
+    @Mock
+    private MediaDeletionRepository mediaDeletionRepository;
+
+    @Mock
+    private CloudinaryService cloudinaryService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MediaDeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new MediaDeletionService(
+                mediaDeletionRepository, cloudinaryService, transactionManager, meterRegistry, 2, 60, 6, 5);
+    }
+
+    @Test
+    void confirmedDeletionsShouldLeaveTheQueueAndFailuresShouldBeRetriedLater() {
+        MediaDeletion deleted = deletion(1L, "https://res.cloudinary.com/demo/image/upload/v1/a.png", 0);
+        MediaDeletion failing = deletion(2L, KEPT_FAILING, 2);
+        when(mediaDeletionRepository.findByAbandonedAtIsNullAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(), eq(Limit.of(2))))
+                .thenReturn(List.of(deleted, failing), List.of());
+        when(cloudinaryService.deleteMediaBatch(List.of(deleted.getUrl(), failing.getUrl())))
+                .thenReturn(Map.of(KEPT_FAILING, "Cloudinary respondio: rate_limited"));
+        when(mediaDeletionRepository.countByAbandonedAtIsNull()).thenReturn(1L);
+
+        LocalDateTime before = LocalDateTime.now();
+        service.processDue();
+
+        verify(mediaDeletionRepository).deleteAllInBatch(List.of(deleted));
+        ArgumentCaptor<List<MediaDeletion>> retried = ArgumentCaptor.captor();
+        verify(mediaDeletionRepository).saveAll(retried.capture());
+        assertEquals(List.of(failing), retried.getValue());
+        assertEquals(3, failing.getAttempts());
+        assertEquals("Cloudinary respondio: rate_limited", failing.getLastError());
+        // Tercer intento fallido: 1 min * 2^2.
+        assertFalse(failing.getNextAttemptAt().isBefore(before.plusMinutes(4)));
+        assertNull(failing.getAbandonedAt());
+
+        assertEquals(1.0, meterRegistry.get("media.deletions").tag("result", "deleted").counter().count());
+        assertEquals(1.0, meterRegistry.get("media.deletions").tag("result", "failed").counter().count());
+        assertEquals(1.0, meterRegistry.get("media.deletions.pending").gauge().value());
+    }
+
+    @Test
+    void fileThatKeepsFailingShouldBeAbandonedAfterTheLastAttempt() {
+        MediaDeletion failing = deletion(2L, KEPT_FAILING, 4);
+        when(mediaDeletionRepository.findByAbandonedAtIsNullAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(), eq(Limit.of(2))))
+                .thenReturn(List.of(failing));
+        when(cloudinaryService.deleteMediaBatch(List.of(KEPT_FAILING)))
+                .thenReturn(Map.of(KEPT_FAILING, "Cloudinary respondio: invalid public id"));
+
+        service.processDue();
+
+        // Quinto intento con un tope de 5: queda en la tabla, pero ya no se vuelve a tomar.
+        verify(mediaDeletionRepository).saveAll(List.of(failing));
+        assertEquals(5, failing.getAttempts());
+        assertNotNull(failing.getAbandonedAt());
+        assertEquals("Cloudinary respondio: invalid public id", failing.getLastError());
+        assertEquals(1.0, meterRegistry.get("media.deletions").tag("result", "abandoned").counter().count());
+        assertEquals(0.0, meterRegistry.get("media.deletions").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void backoffShouldDoubleUpToTheCap() {
+        assertEquals(Duration.ofMinutes(1), service.backoff(1));
+        assertEquals(Duration.ofMinutes(2), service.backoff(2));
+        assertEquals(Duration.ofMinutes(32), service.backoff(6));
+        assertEquals(Duration.ofHours(6), service.backoff(20));
+        assertEquals(Duration.ofHours(6), service.backoff(500));
+    }
+
+    @Test
+    void orphansShouldBeDeletedRightAwayWhenTheQueueIsUnavailable() {
+        List<String> orphans = List.of("https://res.cloudinary.com/demo/image/upload/v1/c.png");
+        when(mediaDeletionRepository.saveAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("sin conexion"));
+        when(cloudinaryService.deleteMediaBatch(orphans)).thenReturn(Map.of());
+
+        service.deleteOrphans(orphans);
+
+        verify(cloudinaryService).deleteMediaBatch(orphans);
+    }
+
+    private MediaDeletion deletion(Long id, String url, int attempts) {
+        return MediaDeletion.builder()
+                .id(id)
+                .url(url)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.novedadeslz.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * El comprobante va a OCR.space como parte multipart leida del stream del archivo subido, sin
+ * pasar por {@code getBytes()} ni por base64.
+ */
+class OcrServiceTest {
+
+    private static final String RESPONSE = """
+            {"IsErroredOnProcessing": false,
+             "ParsedResults": [{"ParsedText": "Yapeaste S/ 25.00 Para Leslie Lopez Operacion 12345678"}]}
+            """;
+
+    @Test
+    void receiptShouldBeStreamedAsAMultipartFilePart() throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        OcrService service = new OcrService(restTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "ocrApiKey", "k-123");
+        ReflectionTestUtils.setField(service, "expectedRecipientPhone", "939662630");
+        ReflectionTestUtils.setField(service, "expectedRecipientName", "Leslie Lopez");
+        MockRestServiceServer server = MockRestServiceServer.createServer(restTemplate);
+
+        server.expect(once(), requestTo("https://api.ocr.space/parse/image"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("apikey", "k-123"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(content().string(containsString("name=\"file\"; filename=\"yape.png\"")))
+                .andExpect(content().string(containsString("contenido-del-comprobante")))
+                .andExpect(content().string(containsString("PNG")))
+                .andRespond(withSuccess(RESPONSE, MediaType.APPLICATION_JSON));
+
+        OcrService.YapeOcrResult result = service.analyzeYapeReceipt(streamOnlyFile("yape.png"));
+
+        server.verify();
+        assertEquals("12345678", result.getOperationNumber());
+        assertEquals(0, new BigDecimal("25.00").compareTo(result.getAmount()));
+    }
+
+    /** Un multipart que solo se deja leer como stream, como el de Tomcat ya escrito a disco. */
+    private MultipartFile streamOnlyFile(String name) {
+        byte[] content = "contenido-del-comprobante".getBytes(StandardCharsets.US_ASCII);
+        return new MultipartFile() {
+            @Override
+            public String getName() {
+                return "file";
+            }
+
+            @Override
+            public String getOriginalFilename() {
+                return name;
+            }
+
+            @Override
+            public String getContentType() {
+                return "image/png";
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return false;
+            }
+
+            @Override
+            public long getSize() {
+                return content.length;
+            }
+
+            @Override
+            public byte[] getBytes() {
+                throw new AssertionError("El comprobante no deberia cargarse entero en memoria");
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(content);
+            }
+
+            @Override
+            public void transferTo(File dest) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
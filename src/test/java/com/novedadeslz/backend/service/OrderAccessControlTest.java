@@ -2,15 +2,18 @@ package com.novedadeslz.backend.service;
 
 import com.novedadeslz.backend.dto.response.OrderResponse;
 import com.novedadeslz.backend.exception.ResourceNotFoundException;
+import com.novedadeslz.backend.mapper.OrderMapper;
 import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.repository.OrderEventRepository;
 import com.novedadeslz.backend.repository.OrderRepository;
 import com.novedadeslz.backend.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
@@ -27,10 +30,10 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,7 +53,16 @@ class OrderAccessControlTest {
     private ProductRepository productRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private OrderEventRepository orderEventRepository;
+
+    @Mock
+    private OrderSearchIndex orderSearchIndex;
+
+    @Spy
+    private OrderTrackingCache orderTrackingCache = new OrderTrackingCache(100, 30, new SimpleMeterRegistry());
+
+    @Mock
+    private OrderMapper orderMapper;
 
     @Mock
     private CloudinaryService cloudinaryService;
@@ -77,10 +89,13 @@ class OrderAccessControlTest {
             return callback.doInTransaction(mock(TransactionStatus.class));
         });
         ReflectionTestUtils.setField(orderService, "maxPaymentProofSizeBytes", 5L * 1024 * 1024);
-        lenient().when(modelMapper.map(any(Order.class), eq(OrderResponse.class)))
+        lenient().when(orderMapper.toResponse(any(Order.class)))
                 .thenAnswer(invocation -> {
+                    Order order = invocation.getArgument(0);
                     OrderResponse response = new OrderResponse();
-                    response.setOrderNumber(((Order) invocation.getArgument(0)).getOrderNumber());
+                    response.setId(order.getId());
+                    response.setOrderNumber(order.getOrderNumber());
+                    response.setCustomerPhone(order.getCustomerPhone());
                     return response;
                 });
     }
@@ -131,7 +146,7 @@ class OrderAccessControlTest {
 
     @Test
     void trackOrderShouldMatchPhoneRegardlessOfFormat() {
-        when(orderRepository.findByOrderNumberIgnoreCase("ORD-20260412-0001"))
+        when(orderRepository.findByOrderNumber("ORD-20260412-0001"))
                 .thenReturn(Optional.of(buildOrder()));
 
         OrderResponse response = orderService.trackOrder("ORD-20260412-0001", "987 654 321");
@@ -141,9 +156,26 @@ class OrderAccessControlTest {
 
     @Test
     void trackOrderShouldRejectWrongPhone() {
-        when(orderRepository.findByOrderNumberIgnoreCase("ORD-20260412-0001"))
+        when(orderRepository.findByOrderNumber("ORD-20260412-0001"))
+                .thenReturn(Optional.of(buildOrder()));
+
+        assertThrows(
+                ResourceNotFoundException.class,
+                () -> orderService.trackOrder("ORD-20260412-0001", "999888777")
+        );
+    }
+
+    @Test
+    void trackOrderShouldLookUpTheExactUppercaseNumberOnce() {
+        when(orderRepository.findByOrderNumber("ORD-20260412-0001"))
                 .thenReturn(Optional.of(buildOrder()));
 
+        orderService.trackOrder(" ord-20260412-0001 ", "987654321");
+        OrderResponse response = orderService.trackOrder("ORD-20260412-0001", "+51 987 654 321");
+
+        assertEquals("ORD-20260412-0001", response.getOrderNumber());
+        // La segunda consulta sale de la cache, pero el telefono se compara igual.
+        verify(orderRepository, times(1)).findByOrderNumber("ORD-20260412-0001");
         assertThrows(
                 ResourceNotFoundException.class,
                 () -> orderService.trackOrder("ORD-20260412-0001", "999888777")
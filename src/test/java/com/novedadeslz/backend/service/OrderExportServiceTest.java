@@ -0,0 +1,155 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderItem;
+import com.novedadeslz.backend.model.Product;
+import com.novedadeslz.backend.repository.OrderRepository;
+import com.novedadeslz.backend.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La exportacion lee de un cursor y escribe cada fila al vuelo. Se revisa lo que ve contabilidad:
+ * una linea por item en CSV, un objeto por pedido en NDJSON y los mismos filtros que el listado.
+ */
+@DataJpaTest
+class OrderExportServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 8, 1, 12, 0);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private OrderExportService exportService;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new OrderExportService(dataSource, jsonMapper);
+        product = productRepository.save(Product.builder()
+                .name("Vincha")
+                .price(new BigDecimal("10.00"))
+                .stock(10)
+                .trackInventory(true)
+                .active(true)
+                .build());
+    }
+
+    @Test
+    void csvShouldWriteOneLinePerItemAndKeepOrdersWithoutItems() throws IOException {
+        save("ORD-20260801-0001", "Lopez, Maria", Order.OrderStatus.CONFIRMED, NOW.minusDays(1), 2);
+        save("ORD-20260801-0002", "Rosa \"Rosi\" D\u00edaz", Order.OrderStatus.PENDING, NOW, 0);
+
+        List<String> lines = export(OrderExportService.Format.CSV, null, null, null).lines().toList();
+
+        assertTrue(lines.get(0).startsWith("\uFEFFpedido,fecha,estado,cliente"), lines.get(0));
+        assertEquals(4, lines.size(), lines::toString);
+        assertTrue(lines.get(1).startsWith("ORD-20260801-0001,2026-07-31T12:00,CONFIRMED,\"Lopez, Maria\","), lines.get(1));
+        assertTrue(lines.get(1).endsWith(",Vincha,1,10.00,10.00"), lines.get(1));
+        assertTrue(lines.get(2).startsWith("ORD-20260801-0001,"), lines.get(2));
+        // Sin items: el pedido sale igual, con las columnas del item vacias.
+        assertTrue(lines.get(3).startsWith("ORD-20260801-0002,2026-08-01T12:00,PENDING,\"Rosa \"\"Rosi\"\" D\u00edaz\","),
+                lines.get(3));
+        assertTrue(lines.get(3).endsWith(",,,,,"), lines.get(3));
+    }
+
+    @Test
+    void ndjsonShouldNestItemsAndApplyStatusAndDateFilters() throws IOException {
+        save("ORD-20260801-0001", "Maria Lopez", Order.OrderStatus.CONFIRMED, NOW.minusDays(10), 1);
+        save("ORD-20260801-0002", "Maria Lopez", Order.OrderStatus.CONFIRMED, NOW.minusHours(1), 3);
+        save("ORD-20260801-0003", "Maria Lopez", Order.OrderStatus.PENDING, NOW.minusHours(1), 1);
+
+        String body = export(OrderExportService.Format.NDJSON, Order.OrderStatus.CONFIRMED, NOW.minusDays(2), NOW);
+
+        List<String> lines = body.lines().toList();
+        assertEquals(1, lines.size(), body);
+        assertTrue(body.endsWith("\n"), "Cada objeto termina en su propia linea");
+        JsonNode order = jsonMapper.readTree(lines.get(0));
+        assertEquals("ORD-20260801-0002", order.get("orderNumber").asString());
+        assertEquals(3, order.get("items").size());
+        assertEquals("Vincha", order.get("items").get(0).get("productName").asString());
+        assertEquals(0, new BigDecimal("30.00").compareTo(order.get("total").decimalValue()));
+    }
+
+    @Test
+    void csvShouldNeutralizeFormulasButKeepPhoneNumbers() {
+        assertEquals("\"'=HYPERLINK(\"\"x\"\")\"", OrderExportService.csvCell("=HYPERLINK(\"x\")"));
+        assertEquals("'@SUM(A1)", OrderExportService.csvCell("@SUM(A1)"));
+        assertEquals("+51987111222", OrderExportService.csvCell("+51987111222"));
+        assertEquals("", OrderExportService.csvCell(null));
+    }
+
+    @Test
+    void unknownFormatShouldBeRejectedBeforeStreaming() {
+        assertThrows(BadRequestException.class, () -> OrderExportService.Format.parse("xlsx"));
+        assertEquals(OrderExportService.Format.NDJSON, OrderExportService.Format.parse(" ndjson "));
+    }
+
+    private String export(OrderExportService.Format format, Order.OrderStatus status,
+                          LocalDateTime startDate, LocalDateTime endDate) throws IOException {
+        // El cursor usa JDBC: tiene que ver lo que Hibernate todavia no escribio.
+        entityManager.flush();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(format, status, startDate, endDate, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private void save(String number, String customerName, Order.OrderStatus status,
+                      LocalDateTime createdAt, int itemCount) {
+        Order order = Order.builder()
+                .orderNumber(number)
+                .publicToken(UUID.randomUUID().toString())
+                .customerName(customerName)
+                .customerPhone("+51987111222")
+                .total(new BigDecimal("10.00").multiply(BigDecimal.valueOf(itemCount)))
+                .status(status)
+                .paymentMethod("yape")
+                .whatsappSent(false)
+                .items(new ArrayList<>())
+                .build();
+        for (int i = 0; i < itemCount; i++) {
+            order.addItem(OrderItem.builder()
+                    .product(product)
+                    .productName(product.getName())
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .build());
+        }
+        orderRepository.saveAndFlush(order);
+        // created_at lo pone Hibernate al insertar; se fija a mano.
+        entityManager.createNativeQuery("UPDATE orders SET created_at = ?1 WHERE id = ?2")
+                .setParameter(1, createdAt)
+                .setParameter(2, order.getId())
+                .executeUpdate();
+    }
+}
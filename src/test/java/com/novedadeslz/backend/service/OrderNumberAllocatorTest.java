@@ -0,0 +1,125 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderNumberCounter;
+import com.novedadeslz.backend.repository.OrderNumberCounterRepository;
+import com.novedadeslz.backend.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Los numeros de pedido salen de un contador por dia y no se repiten aunque lleguen checkouts a la
+ * vez. Sin transaccion de test: el asignador confirma en su propia transaccion.
+ */
+@DataJpaTest
+@Import(OrderNumberAllocator.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class OrderNumberAllocatorTest {
+
+    @Autowired
+    private OrderNumberAllocator allocator;
+
+    @Autowired
+    private OrderNumberCounterRepository counterRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        counterRepository.deleteAll();
+    }
+
+    @Test
+    void numbersShouldBeConsecutivePerDay() {
+        LocalDate day = LocalDate.of(2031, 3, 1);
+
+        assertEquals("ORD-20310301-0001", allocator.next(day));
+        assertEquals("ORD-20310301-0002", allocator.next(day));
+        // Otro dia arranca de nuevo.
+        assertEquals("ORD-20310302-0001", allocator.next(day.plusDays(1)));
+    }
+
+    @Test
+    void firstNumberOfTheDayShouldContinueAfterOrdersCreatedBeforeTheCounter() {
+        orderRepository.save(buildOrder("ORD-20310401-0001"));
+        orderRepository.save(buildOrder("ORD-20310401-0007"));
+        orderRepository.save(buildOrder("ORD-20310331-0042"));
+
+        assertEquals("ORD-20310401-0008", allocator.next(LocalDate.of(2031, 4, 1)));
+    }
+
+    @Test
+    void concurrentCheckoutsShouldNeverShareANumber() throws Exception {
+        LocalDate day = LocalDate.of(2031, 5, 1);
+        int checkouts = 40;
+        List<Callable<String>> tasks = IntStream.range(0, checkouts)
+                .<Callable<String>>mapToObj(i -> () -> allocator.next(day))
+                .toList();
+
+        Set<String> numbers;
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<String>> results = executor.invokeAll(tasks);
+            numbers = results.stream().map(this::join).collect(Collectors.toSet());
+        }
+
+        assertEquals(checkouts, numbers.size());
+        assertEquals(checkouts, counterRepository.findLastValue("20310501").orElseThrow());
+    }
+
+    @Test
+    void dayShouldNotWrapPastTheFourDigitLimit() {
+        counterRepository.save(new OrderNumberCounter("20310601", OrderNumberAllocator.MAX_ORDERS_PER_DAY - 1));
+        LocalDate day = LocalDate.of(2031, 6, 1);
+
+        assertEquals("ORD-20310601-9999", allocator.next(day));
+        assertThrows(BadRequestException.class, () -> allocator.next(day));
+        assertEquals(OrderNumberAllocator.MAX_ORDERS_PER_DAY, counterRepository.findLastValue("20310601").orElseThrow());
+    }
+
+    private String join(Future<String> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Order buildOrder(String orderNumber) {
+        return Order.builder()
+                .orderNumber(orderNumber)
+                .publicToken(UUID.randomUUID().toString())
+                .customerName("Cliente Demo")
+                .customerPhone("987654321")
+                .customerEmail("cliente@example.com")
+                .customerAddress("Av. Demo 123")
+                .customerCity("Lima")
+                .paymentMethod("yape")
+                .total(new BigDecimal("10.00"))
+                .build();
+    }
+}
@@ -4,14 +4,15 @@ import com.novedadeslz.backend.dto.request.OrderRequest;
 import com.novedadeslz.backend.dto.response.OrderResponse;
 import com.novedadeslz.backend.event.PaymentProofUploadedEvent;
 import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.mapper.OrderMapper;
 import com.novedadeslz.backend.model.Order;
 import com.novedadeslz.backend.model.Product;
+import com.novedadeslz.backend.repository.OrderEventRepository;
 import com.novedadeslz.backend.repository.OrderRepository;
 import com.novedadeslz.backend.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -32,8 +33,6 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -42,7 +41,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
- * Comportamiento del pedido ante fallos: colision del correlativo diario y errores al persistir
+ * Comportamiento del pedido ante fallos: errores al registrar el pedido y al persistir
  * despues de haber subido a Cloudinary.
  */
 @ExtendWith(MockitoExtension.class)
@@ -57,7 +56,16 @@ class OrderResilienceTest {
     private ProductRepository productRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private OrderEventRepository orderEventRepository;
+
+    @Mock
+    private OrderSearchIndex orderSearchIndex;
+
+    @Mock
+    private OrderTrackingCache orderTrackingCache;
+
+    @Mock
+    private OrderMapper orderMapper;
 
     @Mock
     private CloudinaryService cloudinaryService;
@@ -74,6 +82,12 @@ class OrderResilienceTest {
     @Mock
     private TransactionTemplate transactionTemplate;
 
+    @Mock
+    private MediaDeletionService mediaDeletionService;
+
+    @Mock
+    private OrderNumberAllocator orderNumberAllocator;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -84,7 +98,7 @@ class OrderResilienceTest {
             return callback.doInTransaction(mock(TransactionStatus.class));
         });
         ReflectionTestUtils.setField(orderService, "maxPaymentProofSizeBytes", 5L * 1024 * 1024);
-        lenient().when(modelMapper.map(any(Order.class), eq(OrderResponse.class)))
+        lenient().when(orderMapper.toResponse(any(Order.class)))
                 .thenAnswer(invocation -> {
                     OrderResponse response = new OrderResponse();
                     response.setOrderNumber(((Order) invocation.getArgument(0)).getOrderNumber());
@@ -93,18 +107,27 @@ class OrderResilienceTest {
     }
 
     @Test
-    void createOrderShouldRetryWhenTwoCheckoutsCollideOnTheSameOrderNumber() {
+    void createOrderShouldUseTheAllocatedNumberWithoutRetrying() {
         stubProduct();
-        when(orderRepository.countByOrderNumberStartingWith(anyString())).thenReturn(0L, 1L);
+        when(orderNumberAllocator.next()).thenReturn("ORD-" + today() + "-0002");
         when(orderRepository.saveAndFlush(any(Order.class)))
-                .thenThrow(new DataIntegrityViolationException("unique constraint ORDER_NUMBER"))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         OrderResponse response = orderService.createOrder(buildOrderRequest());
 
-        // El primer intento choca, el segundo cuenta de nuevo y obtiene el siguiente correlativo.
         assertEquals("ORD-" + today() + "-0002", response.getOrderNumber());
-        verify(orderRepository, times(2)).saveAndFlush(any(Order.class));
+        verify(orderNumberAllocator, times(1)).next();
+        verify(orderRepository, times(1)).saveAndFlush(any(Order.class));
+    }
+
+    @Test
+    void rejectedRequestShouldNotConsumeAnOrderNumber() {
+        OrderRequest request = buildOrderRequest();
+        request.setItems(List.of());
+
+        assertThrows(BadRequestException.class, () -> orderService.createOrder(request));
+
+        verify(orderNumberAllocator, never()).next();
     }
 
     @Test
@@ -127,7 +150,7 @@ class OrderResilienceTest {
     @Test
     void createOrderShouldAllowPickupWithoutAddress() {
         stubProduct();
-        when(orderRepository.countByOrderNumberStartingWith(anyString())).thenReturn(0L);
+        when(orderNumberAllocator.next()).thenReturn("ORD-" + today() + "-0001");
         when(orderRepository.saveAndFlush(any(Order.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -143,9 +166,9 @@ class OrderResilienceTest {
     }
 
     @Test
-    void createOrderShouldFailGracefullyWhenCollisionsPersist() {
+    void createOrderShouldFailGracefullyWhenPersistingViolatesAConstraint() {
         stubProduct();
-        when(orderRepository.countByOrderNumberStartingWith(anyString())).thenReturn(0L);
+        when(orderNumberAllocator.next()).thenReturn("ORD-" + today() + "-0001");
         when(orderRepository.saveAndFlush(any(Order.class)))
                 .thenThrow(new DataIntegrityViolationException("unique constraint ORDER_NUMBER"));
 
@@ -177,7 +200,7 @@ class OrderResilienceTest {
         );
 
         // Sin esta limpieza la imagen quedaria ocupando cuota en Cloudinary sin pedido asociado.
-        verify(cloudinaryService).deleteMedia("https://cdn.example.com/nuevo.png");
+        verify(mediaDeletionService).deleteOrphans(List.of("https://cdn.example.com/nuevo.png"));
     }
 
     @Test
@@ -205,7 +228,7 @@ class OrderResilienceTest {
                 .trackInventory(false)
                 .active(true)
                 .build();
-        when(productRepository.findById(7L)).thenReturn(Optional.of(product));
+        when(productRepository.findAllById(List.of(7L))).thenReturn(List.of(product));
     }
 
     private OrderRequest buildOrderRequest() {
@@ -1,21 +1,33 @@
 package com.novedadeslz.backend.service;
 
+import com.novedadeslz.backend.dto.request.OrderPaymentReviewRequest;
 import com.novedadeslz.backend.dto.request.OrderRequest;
 import com.novedadeslz.backend.dto.response.OrderResponse;
 import com.novedadeslz.backend.event.PaymentProofUploadedEvent;
 import com.novedadeslz.backend.exception.BadRequestException;
+import com.novedadeslz.backend.mapper.OrderMapper;
 import com.novedadeslz.backend.model.Order;
+import com.novedadeslz.backend.model.OrderEvent;
 import com.novedadeslz.backend.model.Product;
+import com.novedadeslz.backend.repository.OrderEventRepository;
+import com.novedadeslz.backend.repository.OrderItemRepository;
+import com.novedadeslz.backend.repository.OrderItemSummary;
 import com.novedadeslz.backend.repository.OrderRepository;
+import com.novedadeslz.backend.repository.OrderSummary;
 import com.novedadeslz.backend.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.TransactionStatus;
@@ -26,13 +38,13 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
@@ -50,7 +62,19 @@ class OrderServiceTest {
     private ProductRepository productRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private OrderItemRepository orderItemRepository;
+
+    @Mock
+    private OrderEventRepository orderEventRepository;
+
+    @Mock
+    private OrderSearchIndex orderSearchIndex;
+
+    @Mock
+    private OrderTrackingCache orderTrackingCache;
+
+    @Mock
+    private OrderMapper orderMapper;
 
     @Mock
     private CloudinaryService cloudinaryService;
@@ -67,6 +91,9 @@ class OrderServiceTest {
     @Mock
     private TransactionTemplate transactionTemplate;
 
+    @Mock
+    private OrderNumberAllocator orderNumberAllocator;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -132,7 +159,7 @@ class OrderServiceTest {
         when(ocrService.analyzeYapeReceipt(proof)).thenThrow(new IOException("OCR temporalmente no disponible"));
         when(cloudinaryService.uploadImage(proof)).thenReturn("https://cdn.example.com/proof.png");
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(modelMapper.map(any(Order.class), eq(OrderResponse.class))).thenReturn(mappedResponse);
+        when(orderMapper.toResponse(any(Order.class))).thenReturn(mappedResponse);
         OrderResponse response = orderService.uploadYapeProof(21L, VALID_TOKEN, proof);
 
         assertEquals("ORD-20260412-0001", response.getOrderNumber());
@@ -168,10 +195,10 @@ class OrderServiceTest {
         OrderResponse mappedResponse = new OrderResponse();
         mappedResponse.setOrderNumber("ORD-20260414-0002");
 
-        when(productRepository.findById(7L)).thenReturn(Optional.of(product));
-        when(orderRepository.countByOrderNumberStartingWith(anyString())).thenReturn(1L);
+        when(productRepository.findAllById(List.of(7L))).thenReturn(List.of(product));
+        when(orderNumberAllocator.next()).thenReturn("ORD-20260414-0002");
         when(orderRepository.saveAndFlush(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(modelMapper.map(any(Order.class), eq(OrderResponse.class))).thenReturn(mappedResponse);
+        when(orderMapper.toResponse(any(Order.class))).thenReturn(mappedResponse);
 
         OrderResponse response = orderService.createOrder(request);
 
@@ -179,6 +206,133 @@ class OrderServiceTest {
         verify(orderRepository).saveAndFlush(any(Order.class));
     }
 
+    @Test
+    void createOrderShouldReserveTheWholeCartInOneBatchAndFailIfAnyProductFallsShort() {
+        Product vincha = Product.builder()
+                .id(7L).name("Vincha").price(new BigDecimal("15.00"))
+                .stock(2).trackInventory(true).active(true).build();
+        Product collar = Product.builder()
+                .id(3L).name("Collar").price(new BigDecimal("20.00"))
+                .stock(5).trackInventory(true).active(true).build();
+
+        OrderRequest request = new OrderRequest();
+        request.setCustomerName("Test");
+        request.setCustomerPhone("+51999999999");
+        request.setCustomerAddress("Direccion");
+        request.setCustomerCity("Lima");
+        request.setPaymentMethod("yape");
+        request.setItems(List.of(itemRequest(7L, 1), itemRequest(3L, 1), itemRequest(7L, 2)));
+
+        when(productRepository.findAllById(List.of(7L, 3L))).thenReturn(List.of(collar, vincha));
+        when(orderNumberAllocator.next()).thenReturn("ORD-20260414-0003");
+        // La misma vincha dos veces en el carrito se reserva como una sola linea de 3 unidades.
+        when(productRepository.reserveStockInIdOrder(Map.of(3L, 1, 7L, 3))).thenReturn(List.of(7L));
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> orderService.createOrder(request)
+        );
+
+        assertEquals("Stock insuficiente para Vincha. Disponible: 2", exception.getMessage());
+        verify(productRepository, never()).findById(any());
+        verify(orderRepository, never()).saveAndFlush(any(Order.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void createOrderShouldReserveShardedProductsFromTheirBuckets() {
+        Product promo = Product.builder()
+                .id(9L).name("Mochila en oferta").price(new BigDecimal("30.00"))
+                .stock(100).stockBuckets(8).trackInventory(true).active(true).build();
+
+        OrderRequest request = new OrderRequest();
+        request.setCustomerName("Test");
+        request.setCustomerPhone("+51999999999");
+        request.setCustomerAddress("Direccion");
+        request.setCustomerCity("Lima");
+        request.setPaymentMethod("yape");
+        request.setItems(List.of(itemRequest(9L, 2)));
+
+        when(productRepository.findAllById(List.of(9L))).thenReturn(List.of(promo));
+        when(orderNumberAllocator.next()).thenReturn("ORD-20260414-0004");
+        when(productRepository.reserveFromBuckets(9L, 8, 2)).thenReturn(false);
+
+        BadRequestException exception = assertThrows(
+                BadRequestException.class,
+                () -> orderService.createOrder(request)
+        );
+
+        assertEquals("Stock insuficiente para Mochila en oferta. Disponible: 100", exception.getMessage());
+        verify(productRepository).reserveStockInIdOrder(Map.of());
+        verify(orderRepository, never()).saveAndFlush(any(Order.class));
+    }
+
+    private OrderRequest.OrderItemRequest itemRequest(Long productId, int quantity) {
+        OrderRequest.OrderItemRequest itemRequest = new OrderRequest.OrderItemRequest();
+        itemRequest.setProductId(productId);
+        itemRequest.setQuantity(quantity);
+        return itemRequest;
+    }
+
+    @Test
+    void listingShouldKeepTheOrderOfTheIdPageWithoutLoadingEntities() {
+        when(orderRepository.findIds(any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(9L, 3L), PageRequest.of(0, 2), 5));
+        // La consulta IN los devuelve en cualquier orden.
+        OrderSummary older = summary(3L);
+        OrderSummary newer = summary(9L);
+        when(orderRepository.findSummariesByIdIn(List.of(9L, 3L))).thenReturn(List.of(older, newer));
+        OrderItemSummary item = mock(OrderItemSummary.class);
+        when(item.getOrderId()).thenReturn(9L);
+        when(orderItemRepository.findSummariesByOrderIdIn(List.of(9L, 3L))).thenReturn(List.of(item));
+        when(orderMapper.toListResponse(any(OrderSummary.class), anyList())).thenAnswer(invocation ->
+                OrderResponse.builder().id(invocation.<OrderSummary>getArgument(0).getId()).build());
+
+        Page<OrderResponse> page = orderService.getAllOrders(null, null, null, null, null,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertEquals(List.of(9L, 3L), page.getContent().stream().map(OrderResponse::getId).toList());
+        assertEquals(5, page.getTotalElements());
+        verify(orderMapper).toListResponse(newer, List.of(item));
+        verify(orderMapper).toListResponse(older, List.of());
+        verify(orderMapper, never()).toResponse(any(Order.class));
+    }
+
+    @Test
+    void listingShouldRejectAnUnknownPaymentMethod() {
+        assertThrows(BadRequestException.class, () -> orderService.getAllOrders(
+                null, null, null, null, "tarjeta", PageRequest.of(0, 20)));
+    }
+
+    private OrderSummary summary(Long id) {
+        OrderSummary summary = mock(OrderSummary.class);
+        when(summary.getId()).thenReturn(id);
+        return summary;
+    }
+
+    @Test
+    void rejectingAPaymentShouldAppendAnEventAndReadTheTimelineForTheAdmin() {
+        Order order = buildPendingYapeOrder();
+        order.setStatus(Order.OrderStatus.PAYMENT_REVIEW);
+        OrderPaymentReviewRequest request = new OrderPaymentReviewRequest();
+        request.setNotes("  El monto no coincide  ");
+        OrderEvent previous = OrderEvent.of(21L, OrderEvent.Type.OCR_RESULT, OrderEvent.Actor.SYSTEM, "Resumen OCR");
+
+        when(orderRepository.findById(21L)).thenReturn(Optional.of(order));
+        when(orderRepository.save(order)).thenReturn(order);
+        when(orderEventRepository.findByOrderIdOrderByCreatedAtAscIdAsc(21L)).thenReturn(List.of(previous));
+
+        orderService.rejectOrderPayment(21L, request);
+
+        ArgumentCaptor<OrderEvent> recorded = ArgumentCaptor.forClass(OrderEvent.class);
+        verify(orderEventRepository).save(recorded.capture());
+        assertEquals(21L, recorded.getValue().getOrderId());
+        assertEquals(OrderEvent.Type.PAYMENT_REJECTED, recorded.getValue().getType());
+        assertEquals(OrderEvent.Actor.ADMIN, recorded.getValue().getActor());
+        assertEquals("Pago rechazado por administrador: El monto no coincide", recorded.getValue().getMessage());
+        verify(orderMapper).toAdminResponse(order, List.of(previous));
+    }
+
     private Order buildPendingYapeOrder() {
         return Order.builder()
                 .id(21L)
@@ -0,0 +1,88 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.dto.response.OrderResponse;
+import com.novedadeslz.backend.event.OrderChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El rastreo repetido del mismo pedido no vuelve a la base hasta que el pedido cambia.
+ */
+class OrderTrackingCacheTest {
+
+    private OrderTrackingCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new OrderTrackingCache(100, 30, new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void repeatedTrackingShouldHitTheDatabaseOnce() {
+        cache.get("ORD-20260801-0001", () -> load(1L, "PENDING"));
+        Optional<OrderResponse> order = cache.get("ORD-20260801-0001", () -> load(1L, "PENDING"));
+
+        assertEquals(1, loads.get());
+        assertEquals("PENDING", order.orElseThrow().getStatus());
+    }
+
+    @Test
+    void changeShouldOnlyEvictTheChangedOrders() {
+        cache.get("ORD-20260801-0001", () -> load(1L, "PENDING"));
+        cache.get("ORD-20260801-0002", () -> load(2L, "PENDING"));
+
+        cache.onOrderChanged(new OrderChangedEvent(Set.of(1L)));
+
+        Optional<OrderResponse> changed = cache.get("ORD-20260801-0001", () -> load(1L, "CONFIRMED"));
+        cache.get("ORD-20260801-0002", () -> load(2L, "PENDING"));
+        // 2 cargas iniciales + 1 recarga del pedido que cambio.
+        assertEquals(3, loads.get());
+        assertEquals("CONFIRMED", changed.orElseThrow().getStatus());
+    }
+
+    @Test
+    void unknownNumbersShouldNotBeCached() {
+        cache.get("ORD-20260801-9999", this::loadNothing);
+        Optional<OrderResponse> order = cache.get("ORD-20260801-9999", this::loadNothing);
+
+        assertTrue(order.isEmpty());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadRacingAChangeShouldNotBeCached() {
+        // El pedido cambia mientras se arma la respuesta: lo leido puede ser anterior al commit.
+        cache.get("ORD-20260801-0001", () -> {
+            Optional<OrderResponse> stale = load(1L, "PENDING");
+            cache.onOrderChanged(new OrderChangedEvent(Set.of(1L)));
+            return stale;
+        });
+
+        Optional<OrderResponse> order = cache.get("ORD-20260801-0001", () -> load(1L, "CONFIRMED"));
+
+        assertEquals("CONFIRMED", order.orElseThrow().getStatus());
+    }
+
+    private Optional<OrderResponse> load(Long id, String status) {
+        loads.incrementAndGet();
+        OrderResponse order = new OrderResponse();
+        order.setId(id);
+        order.setStatus(status);
+        return Optional.of(order);
+    }
+
+    private Optional<OrderResponse> loadNothing() {
+        loads.incrementAndGet();
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,135 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.event.ProductChangedEvent;
+import com.novedadeslz.backend.event.ProductStockChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El catalogo publico se sirve desde memoria y cada escritura invalida solo lo que pudo cambiar.
+ */
+class ProductCatalogCacheTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductCatalogCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ProductCatalogCache(100, 100, 300, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void repeatedReadsShouldHitTheDatabaseOnce() {
+        ProductCatalogCache.PageKey key = ProductCatalogCache.PageKey.of(null, null, true, FIRST_PAGE);
+
+        cache.getPage(key, () -> load(1L, 2L));
+        cache.getPage(key, () -> load(1L, 2L));
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "catalog.pages")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void stockChangeShouldOnlyEvictPagesThatContainTheProduct() {
+        ProductCatalogCache.PageKey withProduct = ProductCatalogCache.PageKey.of("Vinchas", null, true, FIRST_PAGE);
+        ProductCatalogCache.PageKey withoutProduct = ProductCatalogCache.PageKey.of("Aretes", null, true, FIRST_PAGE);
+        cache.getPage(withProduct, () -> load(1L, 2L));
+        cache.getPage(withoutProduct, () -> load(3L));
+
+        cache.onStockChanged(new ProductStockChangedEvent(Set.of(2L)));
+
+        cache.getPage(withProduct, () -> load(1L, 2L));
+        cache.getPage(withoutProduct, () -> load(3L));
+        // 2 cargas iniciales + 1 recarga del listado que mostraba el producto.
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void productChangeShouldKeepListingsOfOtherCategories() {
+        ProductCatalogCache.PageKey general = ProductCatalogCache.PageKey.of(null, null, true, FIRST_PAGE);
+        ProductCatalogCache.PageKey sameCategory = ProductCatalogCache.PageKey.of("Vinchas", null, true, FIRST_PAGE);
+        ProductCatalogCache.PageKey otherCategory = ProductCatalogCache.PageKey.of("Aretes", null, true, FIRST_PAGE);
+        cache.getPage(general, () -> load(1L));
+        cache.getPage(sameCategory, () -> load(1L));
+        cache.getPage(otherCategory, () -> load(3L));
+
+        cache.onProductChanged(new ProductChangedEvent(9L, Set.of("Vinchas")));
+
+        cache.getPage(general, () -> load(1L));
+        cache.getPage(sameCategory, () -> load(1L));
+        cache.getPage(otherCategory, () -> load(3L));
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void productChangeShouldEvictTheDetail() {
+        cache.getProduct(1L, () -> product(1L));
+
+        cache.onProductChanged(new ProductChangedEvent(1L, Set.of()));
+        ProductResponse reloaded = cache.getProduct(1L, () -> product(1L));
+
+        assertEquals(1L, reloaded.getId());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadThatRacedWithAnInvalidationShouldNotBeStored() {
+        ProductCatalogCache.PageKey key = ProductCatalogCache.PageKey.of(null, null, true, FIRST_PAGE);
+
+        // La escritura se confirma mientras la lectura sigue en curso: lo leido puede ser viejo.
+        cache.getPage(key, () -> {
+            cache.onStockChanged(new ProductStockChangedEvent(Set.of(1L)));
+            return load(1L);
+        });
+        cache.getPage(key, () -> load(1L));
+
+        assertEquals(2, loads.get());
+        assertTrue(meterRegistry.get("cache.size").tag("cache", "catalog.pages").gauge().value() <= 1);
+    }
+
+    @Test
+    void everyCommittedWriteShouldBumpTheCatalogVersion() {
+        String initial = cache.version();
+
+        cache.onStockChanged(new ProductStockChangedEvent(Set.of(1L)));
+        String afterStock = cache.version();
+        cache.onProductChanged(new ProductChangedEvent(1L, Set.of("Vinchas")));
+
+        assertNotEquals(initial, afterStock);
+        assertNotEquals(afterStock, cache.version());
+    }
+
+    private Page<ProductResponse> load(Long... ids) {
+        loads.incrementAndGet();
+        List<ProductResponse> content = Arrays.stream(ids)
+                .map(id -> ProductResponse.builder().id(id).build())
+                .toList();
+        return new PageImpl<>(content, FIRST_PAGE, content.size());
+    }
+
+    private ProductResponse product(Long id) {
+        loads.incrementAndGet();
+        return ProductResponse.builder().id(id).build();
+    }
+}
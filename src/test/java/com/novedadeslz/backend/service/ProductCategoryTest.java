@@ -2,24 +2,28 @@ package com.novedadeslz.backend.service;
 
 import com.novedadeslz.backend.dto.request.ProductRequest;
 import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.mapper.ProductMapper;
 import com.novedadeslz.backend.model.Product;
 import com.novedadeslz.backend.repository.ProductRepository;
 import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,7 +38,7 @@ class ProductCategoryTest {
     private ProductRepository productRepository;
 
     @Mock
-    private org.modelmapper.ModelMapper modelMapper;
+    private ProductMapper productMapper;
 
     @Mock
     private CloudinaryService cloudinaryService;
@@ -42,16 +46,24 @@ class ProductCategoryTest {
     @Mock
     private Validator validator;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductService productService;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productService, "mediaUploadExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(productService, "uploadConcurrency", 4);
+    }
+
     @Test
     void createProductShouldTrimSurroundingSpacesFromCategory() throws Exception {
         when(validator.validate(any(ProductRequest.class))).thenReturn(Set.of());
         when(cloudinaryService.uploadImage(any())).thenReturn("https://cdn.example.com/a.png");
         when(productRepository.save(any(Product.class))).thenAnswer(i -> i.getArgument(0));
-        when(modelMapper.map(any(Product.class), eq(ProductResponse.class)))
-                .thenReturn(new ProductResponse());
+        when(productMapper.toResponse(any(Product.class))).thenReturn(new ProductResponse());
 
         ProductRequest request = new ProductRequest();
         request.setName("Vincha");
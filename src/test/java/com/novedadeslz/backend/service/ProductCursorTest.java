@@ -0,0 +1,31 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductCursorTest {
+
+    @Test
+    void cursorShouldSurviveTheRoundTrip() {
+        ProductCursor cursor = new ProductCursor(LocalDateTime.of(2026, 7, 25, 10, 30, 15, 123_456_000), 42L);
+
+        assertEquals(cursor, ProductCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void emptyCursorShouldMeanTheFirstPage() {
+        assertNull(ProductCursor.decode(""));
+    }
+
+    @Test
+    void tamperedCursorShouldBeRejectedAsBadRequest() {
+        assertThrows(BadRequestException.class, () -> ProductCursor.decode("no-es-un-cursor"));
+        assertThrows(BadRequestException.class, () -> ProductCursor.decode("%%%"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.dto.request.ProductRequest;
+import com.novedadeslz.backend.dto.response.ProductResponse;
+import com.novedadeslz.backend.mapper.ProductMapper;
+import com.novedadeslz.backend.model.Product;
+import com.novedadeslz.backend.repository.ProductRepository;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Las imagenes de la galeria se suben en paralelo, pero el guardado sigue siendo todo o nada.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductMediaUploadTest {
+
+    private static final int CONCURRENCY = 3;
+    private static final int IMAGES = 8;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private CloudinaryService cloudinaryService;
+
+    @Mock
+    private MediaDeletionService mediaDeletionService;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProductService productService;
+
+    private ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        ReflectionTestUtils.setField(productService, "mediaUploadExecutor", executor);
+        ReflectionTestUtils.setField(productService, "uploadConcurrency", CONCURRENCY);
+        when(validator.validate(any(ProductRequest.class))).thenReturn(Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void uploadsShouldRunInParallelUpToTheLimitAndKeepTheGalleryOrder() throws Exception {
+        when(cloudinaryService.uploadImage(any())).thenAnswer(invocation -> upload(invocation.getArgument(0)));
+        when(productRepository.save(any(Product.class))).thenAnswer(i -> i.getArgument(0));
+        when(productMapper.toResponse(any(Product.class))).thenReturn(new ProductResponse());
+
+        productService.createProduct(request(), images(), null);
+
+        ArgumentCaptor<Product> saved = ArgumentCaptor.forClass(Product.class);
+        verify(productRepository).save(saved.capture());
+        assertEquals(IntStream.range(0, IMAGES).mapToObj(i -> "https://cdn.example.com/" + i + ".png").toList(),
+                saved.getValue().getImageUrls());
+        assertTrue(maxInFlight.get() > 1, "las subidas deberian solaparse");
+        assertTrue(maxInFlight.get() <= CONCURRENCY, "no deberia superar el limite por guardado");
+    }
+
+    @Test
+    void failedUploadShouldDeleteEveryImageThatReachedStorage() throws Exception {
+        when(cloudinaryService.uploadImage(any())).thenAnswer(invocation -> {
+            MultipartFile image = invocation.getArgument(0);
+            if ("2.png".equals(image.getOriginalFilename())) {
+                Thread.sleep(10);
+                throw new IOException("timeout");
+            }
+            return upload(image);
+        });
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> productService.createProduct(request(), images(), null));
+
+        assertEquals("Error al subir las imagenes: timeout", error.getMessage());
+        verify(productRepository, never()).save(any(Product.class));
+        // Lo que llego a subirse es exactamente lo que se manda a borrar; nada queda huerfano.
+        ArgumentCaptor<List<String>> orphans = ArgumentCaptor.captor();
+        verify(mediaDeletionService).deleteOrphans(orphans.capture());
+        List<String> uploaded = mockingDetails(cloudinaryService).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("uploadImage"))
+                .map(invocation -> ((MultipartFile) invocation.getArgument(0)).getOriginalFilename())
+                .filter(name -> !"2.png".equals(name))
+                .map(name -> "https://cdn.example.com/" + name)
+                .sorted()
+                .toList();
+        assertEquals(uploaded, orphans.getValue().stream().sorted().toList());
+    }
+
+    private String upload(MultipartFile image) throws InterruptedException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try {
+            Thread.sleep(20);
+            return "https://cdn.example.com/" + image.getOriginalFilename();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private ProductRequest request() {
+        ProductRequest request = new ProductRequest();
+        request.setName("Vincha");
+        request.setPrice(new BigDecimal("15.00"));
+        request.setCategory("Vinchas");
+        request.setStock(3);
+        return request;
+    }
+
+    private List<MultipartFile> images() {
+        return IntStream.range(0, IMAGES)
+                .<MultipartFile>mapToObj(i -> new MockMultipartFile("images", i + ".png", "image/png", "x".getBytes()))
+                .toList();
+    }
+}
@@ -0,0 +1,148 @@
+package com.novedadeslz.backend.service;
+
+import com.novedadeslz.backend.event.ProductChangedEvent;
+import com.novedadeslz.backend.repository.ProductRepository;
+import com.novedadeslz.backend.repository.SearchableProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * La busqueda del catalogo sale de un indice en memoria en vez de un LIKE sobre el CLOB.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20);
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 7, 25, 10, 0);
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findSearchableByActiveTrue()).thenReturn(List.of(
+                product(1L, "Vincha de perlas", "Accesorio para el cabello", NOW.minusDays(3)),
+                product(2L, "Aretes dorados", "Aretes con acabado de cafe y perlas pequenas", NOW.minusDays(2)),
+                product(3L, "Collar Corazón", "Cadena de acero con dije de corazón", NOW.minusDays(1))
+        ));
+        index = new ProductSearchIndex(productRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void searchShouldIgnoreAccentsAndCase() {
+        assertEquals(List.of(3L), search("CORAZON"));
+        assertEquals(List.of(3L), search("corazón"));
+    }
+
+    @Test
+    void searchShouldMatchPartialWords() {
+        assertEquals(List.of(1L), search("vinch"));
+        assertEquals(List.of(2L), search("dora"));
+    }
+
+    @Test
+    void matchInTheNameShouldRankAboveMatchInTheDescription() {
+        // El producto 2 es mas nuevo, pero "perlas" solo aparece en su descripcion.
+        assertEquals(List.of(1L, 2L), search("perlas"));
+    }
+
+    @Test
+    void everyWordOfTheQueryShouldMatch() {
+        assertEquals(List.of(2L), search("perlas aretes"));
+        assertEquals(List.of(), search("perlas collar"));
+    }
+
+    @Test
+    void commonWordsShouldNotExcludeProducts() {
+        // El nombre es "Aretes dorados", sin el "de".
+        assertEquals(List.of(2L), search("aretes de dorados"));
+        // Sola, la palabra se busca igual.
+        assertEquals(3, search("de").size());
+    }
+
+    @Test
+    void resultsShouldBePaged() {
+        Page<Long> firstPage = index.search("a", PageRequest.of(0, 2));
+        Page<Long> secondPage = index.search("a", PageRequest.of(1, 2));
+
+        assertEquals(3, firstPage.getTotalElements());
+        assertEquals(2, firstPage.getContent().size());
+        assertEquals(1, secondPage.getContent().size());
+    }
+
+    @Test
+    void editedProductShouldBeReindexed() {
+        when(productRepository.findSearchableByIdAndActiveTrue(1L))
+                .thenReturn(Optional.of(product(1L, "Vincha de terciopelo", "Accesorio", NOW.minusDays(3))));
+
+        index.onProductChanged(new ProductChangedEvent(1L, Set.of()));
+
+        assertEquals(List.of(1L), search("terciopelo"));
+        assertEquals(List.of(2L), search("perlas"));
+    }
+
+    @Test
+    void deactivatedProductShouldLeaveTheIndex() {
+        when(productRepository.findSearchableByIdAndActiveTrue(3L)).thenReturn(Optional.empty());
+
+        index.onProductChanged(new ProductChangedEvent(3L, Set.of()));
+
+        assertEquals(List.of(), search("collar"));
+        // La palabra ya no tiene productos y tampoco debe aparecer como coincidencia parcial.
+        assertEquals(List.of(), search("coraz"));
+    }
+
+    @Test
+    void indexShouldNotBeReadyUntilBuilt() {
+        ProductSearchIndex fresh = new ProductSearchIndex(productRepository);
+
+        assertFalse(fresh.isReady());
+        assertTrue(index.isReady());
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, FIRST_PAGE).getContent();
+    }
+
+    private SearchableProduct product(Long id, String name, String description, LocalDateTime createdAt) {
+        return new SearchableProduct() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.novedadeslz.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cada clave sale una sola vez y dentro del tick de su plazo, aunque el plazo este a dias y haya
+ * pasado por varios niveles de la rueda.
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 1_000;
+    private static final long START = 1_785_000_000_000L;
+
+    @Test
+    void aDeadlineDaysAwayShouldFireWithinOneTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 64, START);
+        long deadline = START + Duration.ofHours(48).toMillis() + 123;
+        wheel.schedule(7L, deadline);
+
+        List<Long> fired = new ArrayList<>();
+        long firedAt = -1;
+        for (long now = START; now <= deadline + TICK && firedAt < 0; now += TICK) {
+            List<Long> due = wheel.advance(now);
+            if (!due.isEmpty()) {
+                fired.addAll(due);
+                firedAt = now;
+            }
+        }
+
+        assertEquals(List.of(7L), fired);
+        assertTrue(Math.abs(firedAt - deadline) <= TICK, "Salio en " + (firedAt - deadline) + " ms del plazo");
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void keysShouldFireInDeadlineOrderAcrossLevels() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 64, START);
+        wheel.schedule(3L, START + Duration.ofHours(5).toMillis());
+        wheel.schedule(1L, START + Duration.ofSeconds(30).toMillis());
+        wheel.schedule(2L, START + Duration.ofMinutes(20).toMillis());
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = START; now <= START + Duration.ofHours(6).toMillis(); now += TICK) {
+            fired.addAll(wheel.advance(now));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), fired);
+    }
+
+    @Test
+    void aLongPauseShouldDeliverEverythingThatExpiredMeanwhile() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 64, START);
+        wheel.schedule(1L, START + Duration.ofMinutes(3).toMillis());
+        wheel.schedule(2L, START + Duration.ofHours(2).toMillis());
+        wheel.schedule(3L, START + Duration.ofHours(4).toMillis());
+
+        List<Long> fired = wheel.advance(START + Duration.ofHours(3).toMillis());
+
+        assertEquals(List.of(1L, 2L), fired.stream().sorted().toList());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void pastDeadlinesShouldFireOnTheNextAdvance() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 64, START);
+        wheel.schedule(1L, START - Duration.ofHours(1).toMillis());
+
+        assertEquals(List.of(1L), wheel.advance(START));
+    }
+
+    @Test
+    void cancelledOrRescheduledKeysShouldNotFireAtTheOldDeadline() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 64, START);
+        wheel.schedule(1L, START + 5 * TICK);
+        wheel.schedule(2L, START + 5 * TICK);
+        wheel.cancel(1L);
+        wheel.schedule(2L, START + 90 * TICK);
+
+        assertEquals(List.of(), wheel.advance(START + 10 * TICK));
+        assertEquals(List.of(2L), wheel.advance(START + 91 * TICK));
+        assertEquals(0, wheel.size());
+    }
+}